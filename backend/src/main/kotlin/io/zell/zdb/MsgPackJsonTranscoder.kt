@@ -0,0 +1,181 @@
+/*
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb
+
+import io.camunda.zeebe.msgpack.spec.MsgPackReader
+import io.camunda.zeebe.msgpack.spec.MsgPackType
+import org.agrona.DirectBuffer
+import org.agrona.MutableDirectBuffer
+import org.agrona.concurrent.UnsafeBuffer
+
+/**
+ * Transcodes MsgPack encoded documents, like record values or state values, directly into UTF-8
+ * encoded JSON. The JSON is written into a buffer given by the caller, no intermediate strings or
+ * objects are created. The output is the same as the one of `MsgPackConverter.convertToJson`,
+ * binary values are written as Base64 encoded strings.
+ *
+ * The transcoder is not thread safe, it is meant to be reused for all documents of a scan.
+ */
+class MsgPackJsonTranscoder {
+
+    companion object {
+        private const val FLOAT_32: Byte = 0xCA.toByte()
+        private val HEX_DIGITS = "0123456789ABCDEF".toByteArray()
+        private val BASE64_DIGITS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toByteArray()
+    }
+
+    private val reader = MsgPackReader()
+    private val source = UnsafeBuffer(0, 0)
+    private lateinit var output: MutableDirectBuffer
+    private var outputOffset = 0
+
+    fun transcode(msgPack: ByteArray, output: MutableDirectBuffer, outputOffset: Int): Int {
+        source.wrap(msgPack)
+        return transcode(source, 0, msgPack.size, output, outputOffset)
+    }
+
+    /**
+     * Writes the given MsgPack document as JSON into the output, starting at the given output
+     * offset, and returns the count of written bytes. The output should be expandable, e.g. an
+     * [org.agrona.ExpandableArrayBuffer], otherwise it has to be large enough for the JSON.
+     */
+    fun transcode(msgPack: DirectBuffer, offset: Int, length: Int, output: MutableDirectBuffer, outputOffset: Int): Int {
+        this.output = output
+        this.outputOffset = outputOffset
+        reader.wrap(msgPack, offset, length)
+        while (reader.offset < length) {
+            if (this.outputOffset > outputOffset) {
+                // like the JSON generator, multiple root values are separated by a space
+                writeByte(' '.code)
+            }
+            writeValue(msgPack, offset)
+        }
+        return this.outputOffset - outputOffset
+    }
+
+    private fun writeValue(msgPack: DirectBuffer, offset: Int) {
+        val format = msgPack.getByte(offset + reader.offset)
+        val token = reader.readToken()
+        when (token.type) {
+            MsgPackType.NIL -> writeAscii("null")
+            MsgPackType.BOOLEAN -> writeAscii(if (token.booleanValue) "true" else "false")
+            MsgPackType.INTEGER -> outputOffset += output.putLongAscii(outputOffset, token.integerValue)
+            MsgPackType.FLOAT -> {
+                // float32 values are read as double, but printed with float precision like before
+                val float = token.floatValue
+                writeAscii(if (format == FLOAT_32) float.toFloat().toString() else float.toString())
+            }
+            MsgPackType.STRING -> writeString(token.valueBuffer)
+            MsgPackType.MAP -> {
+                val size = token.size
+                writeByte('{'.code)
+                for (i in 0 until size) {
+                    if (i > 0) {
+                        writeByte(','.code)
+                    }
+                    writeKey(msgPack, offset)
+                    writeByte(':'.code)
+                    writeValue(msgPack, offset)
+                }
+                writeByte('}'.code)
+            }
+            MsgPackType.ARRAY -> {
+                val size = token.size
+                writeByte('['.code)
+                for (i in 0 until size) {
+                    if (i > 0) {
+                        writeByte(','.code)
+                    }
+                    writeValue(msgPack, offset)
+                }
+                writeByte(']'.code)
+            }
+            else -> writeBase64(token.valueBuffer)
+        }
+    }
+
+    private fun writeKey(msgPack: DirectBuffer, offset: Int) {
+        if (isString(msgPack.getByte(offset + reader.offset).toInt() and 0xFF)) {
+            writeValue(msgPack, offset)
+        } else {
+            // keys which are no strings, e.g. integers, are written as their string representation
+            writeByte('"'.code)
+            writeValue(msgPack, offset)
+            writeByte('"'.code)
+        }
+    }
+
+    private fun isString(format: Int): Boolean {
+        return (format and 0xE0) == 0xA0 || format in 0xD9..0xDB
+    }
+
+    private fun writeString(value: DirectBuffer) {
+        writeByte('"'.code)
+        for (i in 0 until value.capacity()) {
+            val byte = value.getByte(i).toInt()
+            // multi byte UTF-8 sequences are copied as they are, only ASCII needs to be escaped
+            if (byte >= 0 && (byte < 0x20 || byte == '"'.code || byte == '\\'.code)) {
+                writeEscaped(byte)
+            } else {
+                writeByte(byte)
+            }
+        }
+        writeByte('"'.code)
+    }
+
+    private fun writeEscaped(char: Int) {
+        writeByte('\\'.code)
+        when (char) {
+            '"'.code, '\\'.code -> writeByte(char)
+            '\b'.code -> writeByte('b'.code)
+            '\t'.code -> writeByte('t'.code)
+            '\n'.code -> writeByte('n'.code)
+            0x0C -> writeByte('f'.code)
+            '\r'.code -> writeByte('r'.code)
+            else -> {
+                writeAscii("u00")
+                writeByte(HEX_DIGITS[char shr 4].toInt())
+                writeByte(HEX_DIGITS[char and 0xF].toInt())
+            }
+        }
+    }
+
+    private fun writeBase64(value: DirectBuffer) {
+        writeByte('"'.code)
+        val length = value.capacity()
+        var i = 0
+        while (i < length) {
+            val remaining = length - i
+            val b0 = value.getByte(i).toInt() and 0xFF
+            val b1 = if (remaining > 1) value.getByte(i + 1).toInt() and 0xFF else 0
+            val b2 = if (remaining > 2) value.getByte(i + 2).toInt() and 0xFF else 0
+            writeByte(BASE64_DIGITS[b0 shr 2].toInt())
+            writeByte(BASE64_DIGITS[((b0 shl 4) or (b1 shr 4)) and 0x3F].toInt())
+            writeByte(if (remaining > 1) BASE64_DIGITS[((b1 shl 2) or (b2 shr 6)) and 0x3F].toInt() else '='.code)
+            writeByte(if (remaining > 2) BASE64_DIGITS[b2 and 0x3F].toInt() else '='.code)
+            i += 3
+        }
+        writeByte('"'.code)
+    }
+
+    private fun writeAscii(text: String) {
+        outputOffset += output.putStringWithoutLengthAscii(outputOffset, text)
+    }
+
+    private fun writeByte(value: Int) {
+        output.putByte(outputOffset++, value.toByte())
+    }
+}
@@ -21,6 +21,16 @@ import java.util.Iterator;
 
 public interface JournalReader extends Iterator<ReadOnlyJournalRecord>, AutoCloseable {
 
+  /**
+   * Same as {@link #next()}, but the returned record is a flyweight, which is reused by this
+   * reader. It points directly into the journal and is only valid until the next call to {@link
+   * #next()} or {@link #nextFlyweight()}, no record is allocated or copied. Callers which need to
+   * keep the record have to copy it.
+   *
+   * @return the next record, which is only valid until the next read
+   */
+  ReadOnlyJournalRecord nextFlyweight();
+
   /**
    * Seek to a record at the given index. if seek(index) return true, {@link JournalReader#next()}
    * should return a record at index.
@@ -106,6 +116,14 @@ public interface JournalReader extends Iterator<ReadOnlyJournalRecord>, AutoClos
    */
   long seekToAsqn(long asqn, long indexUpperBound);
 
+  /**
+   * Returns the index of the record which would be returned by {@link #next()}, regardless of
+   * whether it exists yet.
+   *
+   * @return the index of the next record
+   */
+  long getNextIndex();
+
   @Override
   void close();
 }
@@ -0,0 +1,38 @@
+/*
+ * Copyright © 2017 camunda services GmbH (info@camunda.com)
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.journal;
+
+import java.util.Iterator;
+
+/**
+ * Reads the journal backwards, from the last record to the first one. Like the {@link
+ * JournalReader}, records returned by {@link #next()} stay valid, while the record returned by
+ * {@link #nextFlyweight()} is reused by the reader.
+ */
+public interface ReverseJournalReader extends Iterator<ReadOnlyJournalRecord>, AutoCloseable {
+
+  /**
+   * Same as {@link #next()}, but the returned record is reused by this reader and is only valid
+   * until the next record is read.
+   *
+   * @return the previous record of the journal, which is only valid until the next read
+   */
+  ReadOnlyJournalRecord nextFlyweight();
+
+  @Override
+  void close();
+}
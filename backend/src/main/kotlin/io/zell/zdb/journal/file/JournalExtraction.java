@@ -0,0 +1,29 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.journal.file;
+
+/**
+ * Result of extracting a range of records into a new journal, see {@link
+ * SegmentedReadOnlyJournal#extract(java.nio.file.Path, long, long)}.
+ *
+ * @param firstIndex the first index of the new journal
+ * @param lastIndex the last index of the new journal
+ * @param segmentCount the number of segments written
+ * @param bytes the number of record bytes copied
+ */
+public record JournalExtraction(long firstIndex, long lastIndex, int segmentCount, long bytes) {}
@@ -0,0 +1,158 @@
+/*
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.journal.file;
+
+import io.zell.zdb.journal.record.MutableJournalRecord;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Extracts a range of records of a journal into a new journal directory. The record frames are
+ * copied as they are via {@link FileChannel#transferTo(long, long,
+ * java.nio.channels.WritableByteChannel)}, only the segment descriptors are written anew.
+ *
+ * <p>Records are only read to find the byte range of each segment, which usually means a few
+ * records around the first and last extracted index.
+ */
+final class JournalExtractor {
+
+  private final List<Segment> segments;
+  private final String name;
+  private final MutableJournalRecord record = new MutableJournalRecord();
+
+  JournalExtractor(final List<Segment> segments, final String name) {
+    this.segments = segments;
+    this.name = name;
+  }
+
+  JournalExtraction extract(final Path targetDirectory, final long fromIndex, final long toIndex)
+      throws IOException {
+    Files.createDirectories(targetDirectory);
+
+    long firstIndex = -1;
+    long lastIndex = -1;
+    int segmentCount = 0;
+    long bytes = 0;
+    for (int i = 0; i < segments.size(); i++) {
+      final var segment = segments.get(i);
+      final var nextSegmentIndex =
+          i + 1 < segments.size() ? segments.get(i + 1).index() : Long.MAX_VALUE;
+      if (segment.index() > toIndex || nextSegmentIndex <= fromIndex) {
+        continue;
+      }
+
+      final var range =
+          findRange(segment, Math.max(fromIndex, segment.index()), toIndex, nextSegmentIndex);
+      if (range == null) {
+        continue;
+      }
+
+      segmentCount++;
+      copy(segment, range, targetDirectory, segmentCount);
+      if (firstIndex == -1) {
+        firstIndex = range.firstIndex;
+      }
+      lastIndex = range.lastIndex;
+      bytes += range.end - range.start;
+    }
+
+    if (segmentCount == 0) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Expected to extract records between index %d and %d, but there are none.",
+              fromIndex, toIndex));
+    }
+    return new JournalExtraction(firstIndex, lastIndex, segmentCount, bytes);
+  }
+
+  /** Returns the bytes of the segment which contain the records in range, or null if none. */
+  private SegmentRange findRange(
+      final Segment segment,
+      final long firstIndex,
+      final long toIndex,
+      final long nextSegmentIndex) {
+    final var reader = segment.createReader();
+    try {
+      reader.seek(firstIndex);
+      if (reader.getNextIndex() != firstIndex || !reader.hasNext()) {
+        return null;
+      }
+      final int start = reader.getNextPosition();
+
+      // seek close to the last record in range, such that only a few records have to be read
+      final long lastKnownIndex = segment.getLastIndex();
+      final long scanFrom;
+      if (toIndex < nextSegmentIndex) {
+        scanFrom = toIndex;
+      } else {
+        scanFrom = lastKnownIndex > firstIndex ? lastKnownIndex : firstIndex;
+      }
+      reader.seek(scanFrom);
+      if (reader.getNextIndex() != scanFrom || !reader.hasNext()) {
+        // the segment ends before the given index
+        reader.seek(lastKnownIndex > firstIndex ? lastKnownIndex : firstIndex);
+      }
+
+      int lastRecordStart = start;
+      long lastIndex = firstIndex;
+      while (reader.getNextIndex() <= toIndex && reader.hasNext()) {
+        lastRecordStart = reader.getNextPosition();
+        lastIndex = reader.next(record).index();
+      }
+      return new SegmentRange(
+          firstIndex, lastIndex, start, lastRecordStart, reader.getNextPosition());
+    } finally {
+      reader.close();
+    }
+  }
+
+  private void copy(
+      final Segment segment, final SegmentRange range, final Path targetDirectory, final int id)
+      throws IOException {
+    final var descriptorLength = SegmentDescriptor.getEncodingLength();
+    final var descriptor =
+        new SegmentDescriptor(
+            id,
+            range.firstIndex,
+            segment.descriptor().maxSegmentSize(),
+            range.lastIndex,
+            descriptorLength + range.lastRecordStart - range.start);
+    final var descriptorBuffer = ByteBuffer.allocate(descriptorLength);
+    descriptor.copyTo(descriptorBuffer);
+
+    final var targetFile = targetDirectory.resolve(String.format("%s-%d.log", name, id));
+    try (final var source = FileChannel.open(segment.file().file().toPath(), StandardOpenOption.READ);
+        final var target =
+            FileChannel.open(
+                targetFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+      target.write(descriptorBuffer);
+
+      final long length = range.end - range.start;
+      long transferred = 0;
+      while (transferred < length) {
+        transferred += source.transferTo(range.start + transferred, length - transferred, target);
+      }
+    }
+  }
+
+  private record SegmentRange(
+      long firstIndex, long lastIndex, int start, int lastRecordStart, int end) {}
+}
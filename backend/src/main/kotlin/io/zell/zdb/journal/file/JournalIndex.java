@@ -28,10 +28,11 @@ interface JournalIndex {
   /**
    * Indexes the record and its position with in a segment
    *
+   * @param segmentIndex the first index of the segment which contains the record
    * @param record the record that should be indexed
    * @param position the position of the given index
    */
-  void index(ReadOnlyJournalRecord record, int position);
+  void index(long segmentIndex, ReadOnlyJournalRecord record, int position);
 
   /**
    * Looks up the position of the given index.
@@ -55,8 +56,8 @@ interface JournalIndex {
   /**
    * Checks if the entry at this index might have been already indexed. Note that the result is
    * probabilistic. If it returns true, it does not mean the lookup return exact index. If it
-   * returns false, it is likely that calling {@link JournalIndex#index(ReadOnlyJournalRecord, int)} with
-   * the entry at this index is useful.
+   * returns false, it is likely that calling {@link JournalIndex#index(long,
+   * ReadOnlyJournalRecord, int)} with the entry at this index is useful.
    *
    * @param index
    * @return true if this index likely have been already indexed. false if otherwise.
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.journal.file;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persists the entries of the {@link SparseJournalIndex}, such that later runs don't need to read
+ * the segments again to seek to an index or asqn.
+ *
+ * <p>The entries are stored per segment, together with the segment's file name, size and
+ * modification time. On restore only the entries of segments which didn't change are used, all
+ * others are indexed again while reading.
+ *
+ * <p>The file is only a cache, if it can't be read or written the journal works as without it.
+ */
+final class JournalIndexFile {
+
+  private static final Logger LOG = LoggerFactory.getLogger(JournalIndexFile.class);
+  private static final int MAGIC = 0x5a444249; // ZDBI
+  private static final int VERSION = 1;
+
+  private final Path path;
+  private final SparseJournalIndex index;
+  private int restoredEntries;
+  private int restoredFullyIndexedSegments;
+
+  JournalIndexFile(final Path path, final SparseJournalIndex index) {
+    this.path = path;
+    this.index = index;
+  }
+
+  /** Restores the index entries of all given segments, which didn't change since they were stored. */
+  void restore(final Collection<Segment> segments) {
+    if (!Files.isReadable(path)) {
+      return;
+    }
+
+    final Map<String, StoredSegment> storedSegments;
+    try {
+      storedSegments = read();
+    } catch (final IOException e) {
+      LOG.debug("Failed to read journal index file {}, will index the journal again.", path, e);
+      return;
+    }
+
+    for (final Segment segment : segments) {
+      final var stored = storedSegments.get(segment.file().name());
+      if (stored == null
+          || stored.fileSize != segment.fileSize()
+          || stored.lastModified != segment.lastModified()) {
+        continue;
+      }
+
+      for (final var entry : stored.entries) {
+        index.restore(segment.index(), entry.index, entry.position, entry.asqn);
+      }
+      restoredEntries += stored.entries.size();
+
+      if (stored.fullyIndexed) {
+        segment.markFullyIndexed();
+        restoredFullyIndexedSegments++;
+      }
+    }
+  }
+
+  /** Stores the index entries of all given segments, if something was indexed since restore. */
+  void store(final Collection<Segment> segments) {
+    final var fullyIndexedSegments = segments.stream().filter(Segment::isFullyIndexed).count();
+    if (index.size() == restoredEntries && fullyIndexedSegments == restoredFullyIndexedSegments) {
+      return;
+    }
+
+    final var tempFile = path.resolveSibling(path.getFileName() + ".tmp");
+    try {
+      Files.createDirectories(path.toAbsolutePath().getParent());
+      try (final var output =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+        write(output, List.copyOf(segments));
+      }
+      move(tempFile);
+    } catch (final IOException e) {
+      LOG.debug("Failed to write journal index file {}.", path, e);
+    }
+  }
+
+  private void write(final DataOutputStream output, final List<Segment> segments)
+      throws IOException {
+    output.writeInt(MAGIC);
+    output.writeInt(VERSION);
+    output.writeInt(index.density());
+    output.writeInt(segments.size());
+
+    for (final var segment : segments) {
+      final var entries = new ArrayList<StoredEntry>();
+      index.forEach(
+          segment.index(),
+          (entryIndex, position, asqn) -> entries.add(new StoredEntry(entryIndex, position, asqn)));
+
+      output.writeUTF(segment.file().name());
+      output.writeLong(segment.fileSize());
+      output.writeLong(segment.lastModified());
+      output.writeBoolean(segment.isFullyIndexed());
+      output.writeInt(entries.size());
+      for (final var entry : entries) {
+        output.writeLong(entry.index);
+        output.writeInt(entry.position);
+        output.writeLong(entry.asqn);
+      }
+    }
+  }
+
+  private Map<String, StoredSegment> read() throws IOException {
+    try (final var input =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+      if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+        throw new IOException("Unknown format of journal index file " + path);
+      }
+      if (input.readInt() != index.density()) {
+        // entries of a different density would break the index assumptions, like hasIndexed
+        return Map.of();
+      }
+
+      final var segmentCount = input.readInt();
+      final Map<String, StoredSegment> segments = new HashMap<>();
+      for (int i = 0; i < segmentCount; i++) {
+        final var fileName = input.readUTF();
+        final var fileSize = input.readLong();
+        final var lastModified = input.readLong();
+        final var fullyIndexed = input.readBoolean();
+        final var entryCount = input.readInt();
+        final var entries = new ArrayList<StoredEntry>(entryCount);
+        for (int j = 0; j < entryCount; j++) {
+          entries.add(new StoredEntry(input.readLong(), input.readInt(), input.readLong()));
+        }
+        segments.put(
+            fileName, new StoredSegment(fileSize, lastModified, fullyIndexed, entries));
+      }
+      return segments;
+    }
+  }
+
+  private void move(final Path tempFile) throws IOException {
+    try {
+      Files.move(
+          tempFile, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (final AtomicMoveNotSupportedException e) {
+      Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  private record StoredSegment(
+      long fileSize, long lastModified, boolean fullyIndexed, List<StoredEntry> entries) {}
+
+  private record StoredEntry(long index, int position, long asqn) {}
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.journal.file;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Segment buffer on top of the mapped segment, all bytes of the segment are readable. The buffer
+ * holds a reference to the mapping until it is closed, such that the segment isn't unmapped while
+ * it is read.
+ */
+final class MappedSegmentBuffer implements SegmentBuffer {
+
+  private final SegmentMapping mapping;
+  private ByteBuffer buffer;
+  private boolean closed;
+
+  MappedSegmentBuffer(final SegmentMapping mapping) {
+    this.mapping = mapping;
+    buffer = mapping.retain();
+  }
+
+  @Override
+  public ByteBuffer buffer() {
+    return buffer;
+  }
+
+  @Override
+  public int position() {
+    return buffer.position();
+  }
+
+  @Override
+  public void position(final int position) {
+    buffer.position(position);
+  }
+
+  @Override
+  public boolean ensureReadable(final int length) {
+    return (long) buffer.position() + length <= buffer.limit();
+  }
+
+  @Override
+  public int size() {
+    return buffer.limit();
+  }
+
+  @Override
+  public boolean isMapped() {
+    return true;
+  }
+
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+
+    closed = true;
+    // the mapping might be unmapped now, it must not be read anymore
+    buffer = ByteBuffer.allocate(0);
+    mapping.release();
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.journal.file;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps track of the mapped segments and unmaps the least recently used ones, if the mapped bytes
+ * exceed the configured budget. Segments which are currently read keep their mapping until their
+ * readers are closed, such that the budget might be exceeded temporarily. An unmapped segment is
+ * mapped again on its next read.
+ */
+final class MappedSegmentCache {
+
+  private final long maxMappedBytes;
+  // access ordered, the eldest entry is the least recently used segment
+  private final Map<Segment, Long> mappedSegments = new LinkedHashMap<>(16, 0.75f, true);
+  private long mappedBytes;
+
+  MappedSegmentCache(final long maxMappedBytes) {
+    this.maxMappedBytes = maxMappedBytes;
+  }
+
+  /**
+   * Marks the given segment as recently used, if it was not mapped before, least recently used
+   * segments are unmapped until the mapped bytes fit into the budget again.
+   *
+   * @param segment the segment which is read
+   * @param size the mapped size of the segment
+   */
+  synchronized void onAccess(final Segment segment, final long size) {
+    if (mappedSegments.put(segment, size) != null) {
+      return;
+    }
+
+    mappedBytes += size;
+    final var iterator = mappedSegments.entrySet().iterator();
+    while (mappedBytes > maxMappedBytes && iterator.hasNext()) {
+      final var entry = iterator.next();
+      final var eldest = entry.getKey();
+      if (eldest != segment) {
+        eldest.unmap();
+        iterator.remove();
+        mappedBytes -= entry.getValue();
+      }
+    }
+  }
+
+  synchronized void onUnmapped(final Segment segment) {
+    final var size = mappedSegments.remove(segment);
+    if (size != null) {
+      mappedBytes -= size;
+    }
+  }
+
+  synchronized long getMappedBytes() {
+    return mappedBytes;
+  }
+}
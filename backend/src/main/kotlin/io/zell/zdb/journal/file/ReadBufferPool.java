@@ -0,0 +1,132 @@
+/*
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.journal.file;
+
+import com.sun.nio.file.ExtendedOpenOption;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reusable read buffers of the streaming segment readers, see {@link StreamingSegmentBuffer}. The
+ * buffers are direct and aligned to the block size of the file store, such that segments can be
+ * read with direct I/O, bypassing the page cache. If direct I/O is not supported, e.g. on tmpfs or
+ * macOS, segments are read through the page cache instead.
+ */
+final class ReadBufferPool {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ReadBufferPool.class);
+  private static final ByteOrder ENDIANNESS = ByteOrder.LITTLE_ENDIAN;
+  private static final int DEFAULT_ALIGNMENT = 4096;
+
+  private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+  private final int alignment;
+  private final int bufferSize;
+  private volatile boolean directIo = true;
+
+  ReadBufferPool(final File directory, final int bufferSize) {
+    alignment = blockSize(directory.toPath());
+    this.bufferSize = alignUp(bufferSize);
+  }
+
+  /** Returns a buffer of the pool, or a new one if all buffers are in use. */
+  ByteBuffer acquire() {
+    final var buffer = buffers.poll();
+    return buffer != null ? buffer.clear() : allocate(bufferSize);
+  }
+
+  /**
+   * Returns a buffer to the pool. Buffers which were grown for a large record are not kept, such
+   * that the pool only holds buffers of the configured size.
+   */
+  void release(final ByteBuffer buffer) {
+    if (buffer.capacity() == bufferSize) {
+      buffers.offer(buffer);
+    }
+  }
+
+  /**
+   * Allocates a buffer which can hold at least the given number of bytes. Its capacity is exactly
+   * the aligned size, such that buffers of the configured size can be returned to the pool.
+   */
+  ByteBuffer allocate(final int size) {
+    final int alignedSize = alignUp(size);
+    // the aligned slice is larger than requested if the allocation happened to be aligned already
+    return ByteBuffer.allocateDirect(alignedSize + alignment)
+        .alignedSlice(alignment)
+        .slice(0, alignedSize)
+        .order(ENDIANNESS);
+  }
+
+  /**
+   * Opens the file for reading, with direct I/O if supported. Falls back to regular reads after
+   * direct I/O failed once.
+   */
+  FileChannel open(final Path file) throws IOException {
+    if (directIo) {
+      try {
+        return FileChannel.open(file, StandardOpenOption.READ, ExtendedOpenOption.DIRECT);
+      } catch (final UnsupportedOperationException | IOException e) {
+        disableDirectIo(e);
+      }
+    }
+    return FileChannel.open(file, StandardOpenOption.READ);
+  }
+
+  void disableDirectIo(final Exception cause) {
+    if (directIo) {
+      LOG.debug("Direct I/O is not supported, segments are read through the page cache", cause);
+      directIo = false;
+    }
+  }
+
+  boolean isDirectIo() {
+    return directIo;
+  }
+
+  int alignDown(final long position) {
+    return (int) (position - position % alignment);
+  }
+
+  int alignUp(final long length) {
+    return alignDown(length + alignment - 1);
+  }
+
+  int bufferSize() {
+    return bufferSize;
+  }
+
+  private static int blockSize(final Path directory) {
+    try {
+      final long blockSize = Files.getFileStore(directory).getBlockSize();
+      // aligned slices require a power of two
+      return blockSize > 0 && blockSize <= DEFAULT_ALIGNMENT * 16 && Long.bitCount(blockSize) == 1
+          ? (int) blockSize
+          : DEFAULT_ALIGNMENT;
+    } catch (final IOException | UnsupportedOperationException e) {
+      return DEFAULT_ALIGNMENT;
+    }
+  }
+}
@@ -18,10 +18,8 @@
 package io.zell.zdb.journal.file;
 
 import com.google.common.collect.Sets;
-import org.agrona.IoUtil;
+import io.zell.zdb.journal.record.MutableJournalRecord;
 
-import java.nio.ByteOrder;
-import java.nio.MappedByteBuffer;
 import java.util.Set;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
@@ -34,24 +32,45 @@ import static com.google.common.base.Preconditions.checkState;
  */
 final class Segment implements AutoCloseable {
 
-  private static final ByteOrder ENDIANNESS = ByteOrder.LITTLE_ENDIAN;
+  private static final long UNKNOWN_ASQN = Long.MIN_VALUE;
   private final SegmentDescriptor descriptor;
   private final JournalIndex index;
   private final Set<SegmentReader> readers = Sets.newConcurrentHashSet();
-  private final MappedByteBuffer buffer;
+  private final MappedSegmentCache mappedSegmentCache;
+  // set if the segment is streamed instead of mapped
+  private final ReadBufferPool readBufferPool;
+  private final boolean verifyChecksums;
+  // mapped on first access and released by the cache, guarded by this
+  private SegmentMapping mapping;
   private final long lastWrittenAsqn;
   private final long lastIndex;
+  private final SegmentFile file;
+  private final long fileSize;
+  private final long lastModified;
+  private volatile boolean fullyIndexed;
+  private long indexUpperBound = Long.MAX_VALUE;
+  private volatile long firstAsqn = UNKNOWN_ASQN;
 
   // This needs to be volatile in case the flushing is asynchronous
   private volatile boolean open = true;
 
   Segment(
+      final SegmentFile file,
+      final long fileSize,
+      final long lastModified,
       final SegmentDescriptor descriptor,
-      final MappedByteBuffer buffer,
       final long lastWrittenAsqn,
-      final JournalIndex index) {
+      final JournalIndex index,
+      final MappedSegmentCache mappedSegmentCache,
+      final ReadBufferPool readBufferPool,
+      final boolean verifyChecksums) {
+    this.file = file;
+    this.verifyChecksums = verifyChecksums;
+    this.mappedSegmentCache = mappedSegmentCache;
+    this.readBufferPool = readBufferPool;
+    this.fileSize = fileSize;
+    this.lastModified = lastModified;
     this.descriptor = descriptor;
-    this.buffer = buffer;
     this.index = index;
     this.lastWrittenAsqn = lastWrittenAsqn;
     lastIndex = descriptor.lastIndex();
@@ -65,6 +84,73 @@ final class Segment implements AutoCloseable {
     return lastIndex;
   }
 
+  /**
+   * Returns the first asqn which is written in this segment, or {@link
+   * SegmentedReadOnlyJournal#ASQN_IGNORE} if no record of the segment has an asqn. The asqn is read
+   * on first access, usually only the first record of the segment has to be read for that.
+   */
+  long getFirstAsqn() {
+    if (firstAsqn == UNKNOWN_ASQN) {
+      final var reader = createReader();
+      final var record = new MutableJournalRecord();
+      try {
+        long asqn = SegmentedReadOnlyJournal.ASQN_IGNORE;
+        while (asqn == SegmentedReadOnlyJournal.ASQN_IGNORE && reader.hasNext()) {
+          asqn = reader.next(record).asqn();
+        }
+        firstAsqn = asqn;
+      } finally {
+        reader.close();
+      }
+    }
+    return firstAsqn;
+  }
+
+  /**
+   * Returns the highest index this segment can contain, which is the index before the next
+   * segment. Used if the descriptor doesn't contain the last index.
+   */
+  long getIndexUpperBound() {
+    return indexUpperBound;
+  }
+
+  void setIndexUpperBound(final long indexUpperBound) {
+    this.indexUpperBound = indexUpperBound;
+  }
+
+  /**
+   * Returns the file of the segment, together with its size and modification time at the time the
+   * segment was loaded.
+   */
+  SegmentFile file() {
+    return file;
+  }
+
+  long fileSize() {
+    return fileSize;
+  }
+
+  long lastModified() {
+    return lastModified;
+  }
+
+  /** Returns whether readers of this segment verify the checksum of every record they read. */
+  boolean verifiesChecksums() {
+    return verifyChecksums;
+  }
+
+  /**
+   * Returns whether all records of the segment have been read once, such that the journal index
+   * contains all entries of the segment.
+   */
+  boolean isFullyIndexed() {
+    return fullyIndexed;
+  }
+
+  void markFullyIndexed() {
+    fullyIndexed = true;
+  }
+
   /**
    * Returns the segment ID.
    *
@@ -93,18 +179,51 @@ final class Segment implements AutoCloseable {
   }
 
   /**
-   * Creates a new segment reader.
+   * Creates a new segment reader. If the journal streams its segments, the reader reads the
+   * segment through its own buffer, otherwise the segment is mapped on first access.
    *
    * @return A new segment reader.
    */
   SegmentReader createReader() {
-    checkOpen();
-    final SegmentReader reader =
-        new SegmentReader(buffer.asReadOnlyBuffer().position(0).order(ENDIANNESS), this, index);
-    readers.add(reader);
+    if (readBufferPool != null) {
+      synchronized (this) {
+        checkOpen();
+        final var reader =
+            new SegmentReader(
+                new StreamingSegmentBuffer(file.file().toPath(), fileSize, readBufferPool),
+                this,
+                index);
+        readers.add(reader);
+        return reader;
+      }
+    }
+
+    final SegmentReader reader;
+    synchronized (this) {
+      checkOpen();
+      if (mapping == null) {
+        mapping = SegmentMapping.map(file.file().toPath(), fileSize);
+      }
+      // the reader holds its own reference to the mapping, which it releases on close
+      reader = new SegmentReader(new MappedSegmentBuffer(mapping), this, index);
+      readers.add(reader);
+    }
+    // called without holding the lock, since the cache might unmap other segments
+    mappedSegmentCache.onAccess(this, fileSize);
     return reader;
   }
 
+  /**
+   * Releases the mapping of the segment, it is mapped again on the next read. If the segment is
+   * currently read, the memory is unmapped as soon as the last reader is closed.
+   */
+  synchronized void unmap() {
+    if (mapping != null) {
+      mapping.release();
+      mapping = null;
+    }
+  }
+
   /**
    * Removes the reader from this segment.
    *
@@ -131,9 +250,12 @@ final class Segment implements AutoCloseable {
   /** Closes the segment. */
   @Override
   public void close() {
-    open = false;
-    readers.forEach(SegmentReader::close);
-    IoUtil.unmap(buffer);
+    synchronized (this) {
+      open = false;
+      readers.forEach(SegmentReader::close);
+      unmap();
+    }
+    mappedSegmentCache.onUnmapped(this);
   }
 
   @Override
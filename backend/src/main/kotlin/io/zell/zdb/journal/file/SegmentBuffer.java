@@ -0,0 +1,61 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.journal.file;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The bytes of a segment, which are read by a {@link SegmentReader}. Positions are always positions
+ * in the segment file. Depending on the implementation the buffer contains the complete segment or
+ * only the bytes around the current position.
+ */
+interface SegmentBuffer extends AutoCloseable {
+
+  /**
+   * Returns the buffer which contains the bytes at the current position, the position of the buffer
+   * corresponds to the current position in the segment. Reading from the buffer advances the
+   * position in the segment. Only valid after {@link #ensureReadable(int)} returned true.
+   */
+  ByteBuffer buffer();
+
+  /** Returns the current position in the segment. */
+  int position();
+
+  /** Moves to the given position in the segment. */
+  void position(int position);
+
+  /**
+   * Makes sure the given number of bytes, starting at the current position, can be read from the
+   * buffer.
+   *
+   * @return false if the segment ends before
+   */
+  boolean ensureReadable(int length);
+
+  /** Returns the size of the segment in bytes. */
+  int size();
+
+  /**
+   * Returns whether the complete segment is mapped. The bytes are then always readable and stay
+   * valid while the segment is mapped, otherwise they are only valid until the buffer is refilled.
+   */
+  boolean isMapped();
+
+  @Override
+  void close();
+}
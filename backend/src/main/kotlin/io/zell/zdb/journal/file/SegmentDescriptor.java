@@ -21,9 +21,11 @@ import io.camunda.zeebe.journal.file.DescriptorMetadataEncoder;
 import io.camunda.zeebe.journal.file.MessageHeaderEncoder;
 import io.camunda.zeebe.journal.file.SegmentDescriptorEncoder;
 import io.camunda.zeebe.journal.util.ChecksumGenerator;
+import org.agrona.concurrent.UnsafeBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
 /**
@@ -94,6 +96,56 @@ final class SegmentDescriptor {
     this.encodedLength = encodedLength;
   }
 
+  /**
+   * Creates a descriptor of the current version, e.g. for a segment which is written by an
+   * extraction.
+   */
+  SegmentDescriptor(
+          final long id,
+          final long index,
+          final int maxSegmentSize,
+          final long lastIndex,
+          final int lastPosition) {
+    this(
+        CUR_VERSION,
+        SegmentDescriptorEncoder.SCHEMA_VERSION,
+        id,
+        index,
+        maxSegmentSize,
+        lastIndex,
+        lastPosition,
+        getEncodingLength());
+  }
+
+  /**
+   * Writes the descriptor into the first bytes of the given buffer, in the same format as the
+   * broker. The metadata contains the checksum of the descriptor, which is validated on read.
+   *
+   * @param buffer the buffer to write to, needs at least {@link #length()} bytes
+   */
+  void copyTo(final ByteBuffer buffer) {
+    buffer.put(0, version);
+    final var directBuffer = new UnsafeBuffer(buffer);
+
+    final int metadataOffset = VERSION_LENGTH;
+    final int descriptorOffset =
+        metadataOffset + MessageHeaderEncoder.ENCODED_LENGTH + DescriptorMetadataEncoder.BLOCK_LENGTH;
+    segmentDescriptorEncoder
+        .wrapAndApplyHeader(directBuffer, descriptorOffset, headerEncoder)
+        .id(id)
+        .index(index)
+        .maxSegmentSize(maxSegmentSize)
+        .lastIndex(lastIndex)
+        .lastPosition(lastPosition);
+
+    final int descriptorLength = encodedLength - descriptorOffset;
+    final var descriptorBytes = ByteBuffer.allocate(descriptorLength);
+    directBuffer.getBytes(descriptorOffset, descriptorBytes, descriptorLength);
+    metadataEncoder
+        .wrapAndApplyHeader(directBuffer, metadataOffset, headerEncoder)
+        .checksum(checksumGen.compute(descriptorBytes, 0, descriptorLength));
+  }
+
   /**
    * The number of bytes taken by the descriptor in the segment is dependent on the encoding used.
    * The length represents this number of bytes.
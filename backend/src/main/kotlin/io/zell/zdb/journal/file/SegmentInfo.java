@@ -0,0 +1,29 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.journal.file;
+
+/**
+ * Identifies the state of a segment file, see {@link SegmentedReadOnlyJournal#getSegmentInfo(long)}.
+ * If the file is still the same, everything derived from the segment can be reused.
+ *
+ * @param fileName the file name of the segment
+ * @param firstIndex the first index of the segment
+ * @param fileSize the size of the segment file in bytes
+ * @param lastModified the modification time of the segment file
+ */
+public record SegmentInfo(String fileName, long firstIndex, long fileSize, long lastModified) {}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.journal.file;
+
+import io.zell.zdb.journal.JournalReader;
+import io.zell.zdb.journal.ReadOnlyJournalRecord;
+import io.zell.zdb.journal.record.MutableJournalRecord;
+
+import java.util.NoSuchElementException;
+
+import static io.zell.zdb.journal.file.SegmentedReadOnlyJournal.ASQN_IGNORE;
+
+/**
+ * Reader which is bound to a single segment. In contrast to the {@link SegmentedJournalReader} it
+ * never moves to the next segment, which allows to read the segments of a journal concurrently, each
+ * with its own reader.
+ */
+final class SegmentJournalReader implements JournalReader {
+
+  private final SegmentedReadOnlyJournal journal;
+  private final Segment segment;
+  private final SegmentReader reader;
+  private final MutableJournalRecord flyweight = new MutableJournalRecord();
+
+  SegmentJournalReader(final SegmentedReadOnlyJournal journal, final Segment segment) {
+    this.journal = journal;
+    this.segment = segment;
+    reader = segment.createReader();
+  }
+
+  @Override
+  public boolean hasNext() {
+    final var stamp = journal.acquireReadlock();
+    try {
+      return reader.hasNext();
+    } finally {
+      journal.releaseReadlock(stamp);
+    }
+  }
+
+  @Override
+  public ReadOnlyJournalRecord next() {
+    final var stamp = journal.acquireReadlock();
+    try {
+      if (!reader.hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return reader.next();
+    } finally {
+      journal.releaseReadlock(stamp);
+    }
+  }
+
+  @Override
+  public ReadOnlyJournalRecord nextFlyweight() {
+    final var stamp = journal.acquireReadlock();
+    try {
+      if (!reader.hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return reader.next(flyweight);
+    } finally {
+      journal.releaseReadlock(stamp);
+    }
+  }
+
+  @Override
+  public long getNextIndex() {
+    return reader.getNextIndex();
+  }
+
+  @Override
+  public long seek(final long index) {
+    final var stamp = journal.acquireReadlock();
+    try {
+      reader.seek(index);
+      return reader.getNextIndex();
+    } finally {
+      journal.releaseReadlock(stamp);
+    }
+  }
+
+  @Override
+  public long seekToFirst() {
+    reader.reset();
+    return segment.index();
+  }
+
+  /**
+   * Seeks to the last record, which is known from the segment descriptor, without reading the
+   * records before it. Records which have been written after the descriptor was updated are still
+   * returned afterwards.
+   */
+  @Override
+  public long seekToLast() {
+    final var stamp = journal.acquireReadlock();
+    try {
+      reader.seekToLastKnownRecord();
+      return reader.getNextIndex();
+    } finally {
+      journal.releaseReadlock(stamp);
+    }
+  }
+
+  @Override
+  public long seekToAsqn(final long asqn) {
+    return seekToAsqn(asqn, Long.MAX_VALUE);
+  }
+
+  @Override
+  public long seekToAsqn(final long asqn, final long indexUpperBound) {
+    final var stamp = journal.acquireReadlock();
+    try {
+      reader.reset();
+
+      // the records are only compared, they are read as flyweights to not copy them
+      Long recordIndex = null;
+      while (reader.hasNext()) {
+        final var currentRecord = reader.next(flyweight);
+        if (currentRecord.index() > indexUpperBound) {
+          break;
+        }
+        if (currentRecord.asqn() <= asqn && currentRecord.asqn() != ASQN_IGNORE) {
+          recordIndex = currentRecord.index();
+        } else if (currentRecord.asqn() >= asqn) {
+          break;
+        }
+      }
+
+      if (recordIndex == null) {
+        reader.reset();
+        return segment.index();
+      }
+
+      reader.seek(recordIndex);
+      return reader.getNextIndex();
+    } finally {
+      journal.releaseReadlock(stamp);
+    }
+  }
+
+  @Override
+  public void close() {
+    reader.close();
+  }
+}
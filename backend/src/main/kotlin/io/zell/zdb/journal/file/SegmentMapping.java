@@ -0,0 +1,83 @@
+/*
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.journal.file;
+
+import io.camunda.zeebe.journal.JournalException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.agrona.IoUtil;
+
+/**
+ * Read-only mapping of a segment, which is reference counted. The segment holds a reference as long
+ * as it keeps the mapping, every reader holds one until it is closed. The mapping is unmapped as
+ * soon as the last reference is released, such that evicting or closing a segment never unmaps
+ * memory which is still read, and the memory is released right after the last read.
+ */
+final class SegmentMapping {
+
+  private static final ByteOrder ENDIANNESS = ByteOrder.LITTLE_ENDIAN;
+
+  private final MappedByteBuffer buffer;
+  // guarded by this, the mapping is unmapped when it drops to zero
+  private int references = 1;
+
+  private SegmentMapping(final MappedByteBuffer buffer) {
+    this.buffer = buffer;
+  }
+
+  /**
+   * Maps the given segment file read-only, the returned mapping holds one reference for the
+   * caller. The segment is mapped with its file size, such that the file is never extended and no
+   * pages are touched before they are read.
+   */
+  static SegmentMapping map(final Path file, final long size) {
+    try (final var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return new SegmentMapping(channel.map(MapMode.READ_ONLY, 0, size));
+    } catch (final IOException e) {
+      throw new JournalException(String.format("Failed to map segment %s", file), e);
+    }
+  }
+
+  /**
+   * Acquires a reference and returns a new read-only view on the mapping, which is valid until the
+   * reference is released.
+   */
+  synchronized ByteBuffer retain() {
+    if (references == 0) {
+      throw new IllegalStateException("Expected to retain a segment mapping, but it is unmapped");
+    }
+    references++;
+    return buffer.asReadOnlyBuffer().position(0).order(ENDIANNESS);
+  }
+
+  /** Releases a reference, the last one unmaps the segment. */
+  synchronized void release() {
+    if (references == 0) {
+      return;
+    }
+
+    references--;
+    if (references == 0) {
+      IoUtil.unmap(buffer);
+    }
+  }
+}
@@ -18,29 +18,49 @@
 package io.zell.zdb.journal.file;
 
 import com.google.common.base.Preconditions;
+import io.camunda.zeebe.journal.CorruptedJournalException;
+import io.camunda.zeebe.journal.JournalException.InvalidIndex;
 import io.zell.zdb.journal.ReadOnlyJournalRecord;
+import io.zell.zdb.journal.file.SegmentVerification.CorruptedRange;
 import io.zell.zdb.journal.record.JournalRecordReaderUtil;
+import io.zell.zdb.journal.record.MutableJournalRecord;
 import io.zell.zdb.journal.record.SBESerializer;
 
-import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
+import org.agrona.concurrent.UnsafeBuffer;
 
-/** Log segment reader. */
+/**
+ * Log segment reader. The segment is either mapped or streamed through a reusable buffer, see
+ * {@link SegmentBuffer}.
+ */
 final class SegmentReader implements Iterator<ReadOnlyJournalRecord> {
 
-  private final ByteBuffer buffer;
+  private static final int VERSION_LENGTH = Byte.BYTES;
+
+  private final SegmentBuffer buffer;
   private final JournalIndex index;
   private final Segment segment;
   private long currentIndex;
+  private final SBESerializer serializer = new SBESerializer();
   private final JournalRecordReaderUtil recordReader;
+  // view on the buffer to read the length of a record, before it's read
+  private final UnsafeBuffer frameView = new UnsafeBuffer(0, 0);
   private final int descriptorLength;
+  // whether the reader read all records from the start of the segment, without skipping any
+  private boolean readFromStart;
+  // records which are skipped during a seek are read into this flyweight, to not allocate for them
+  private final MutableJournalRecord seekRecord = new MutableJournalRecord();
+  // records which are returned by next are read into this flyweight and copied
+  private final MutableJournalRecord copiedRecord = new MutableJournalRecord();
 
-  SegmentReader(final ByteBuffer buffer, final Segment segment, final JournalIndex index) {
+  SegmentReader(final SegmentBuffer buffer, final Segment segment, final JournalIndex index) {
     this.index = index;
     this.segment = segment;
     descriptorLength = segment.descriptor().length();
-    recordReader = new JournalRecordReaderUtil(new SBESerializer());
+    recordReader = new JournalRecordReaderUtil(serializer, segment.verifiesChecksums());
     this.buffer = buffer;
     reset();
   }
@@ -53,35 +73,106 @@ final class SegmentReader implements Iterator<ReadOnlyJournalRecord> {
       return false;
     }
 
+    if (hasFrame()) {
+      return true;
+    }
+
+    if (readFromStart) {
+      // streamed segments are only marked here, see next
+      segment.markFullyIndexed();
+    }
+    return false;
+  }
+
+  /** Returns whether there is a frame at the current position, regardless of the segment state. */
+  private boolean hasFrame() {
     // if the next entry exists the version would be non-zero
-    return FrameUtil.hasValidVersion(buffer);
+    return buffer.ensureReadable(VERSION_LENGTH) && FrameUtil.hasValidVersion(buffer.buffer());
   }
 
+  /**
+   * Reads the next record and copies it, such that it stays valid after the reader is closed and
+   * the segment is unmapped, or the read buffer is refilled. Use {@link
+   * #next(MutableJournalRecord)} to read without copying.
+   */
   @Override
   public ReadOnlyJournalRecord next() {
+    next(copiedRecord);
+    return copiedRecord.copy();
+  }
+
+  /**
+   * Reads the next record into the given flyweight record, which points into the segment buffer
+   * afterwards. The record is only valid until the next read.
+   */
+  ReadOnlyJournalRecord next(final MutableJournalRecord record) {
     if (!hasNext()) {
       throw new NoSuchElementException();
     }
 
+    final var position = buffer.position();
+    ensureFrameReadable();
     // Read version so that buffer's position is advanced.
-    FrameUtil.readVersion(buffer);
+    FrameUtil.readVersion(buffer.buffer());
+
+    try {
+      recordReader.read(buffer.buffer(), getNextIndex(), record);
+    } catch (final RuntimeException e) {
+      // the frame might still be written by a live broker, reset to allow reading it again later
+      buffer.position(position);
+      throw e;
+    }
+    currentIndex = record.index();
+    // index everything we read, such that later seeks don't need to read the segment again
+    index.index(segment.index(), record, position);
+
+    // checking a streamed segment for a further frame might refill the buffer the record points into
+    if (readFromStart && buffer.isMapped() && !hasFrame()) {
+      // every record of the segment was read and indexed
+      segment.markFullyIndexed();
+    }
+    return record;
+  }
 
-    final var currentEntry = recordReader.read(buffer, getNextIndex());
-    // currentEntry should not be null as hasNext returns true
-    currentIndex = currentEntry.index();
-    return currentEntry;
+  /**
+   * Makes sure the complete frame at the current position is in the buffer, which is only necessary
+   * if the segment is not mapped. If the frame can't be read, the record reader reports it.
+   */
+  private void ensureFrameReadable() {
+    if (buffer.isMapped()
+        || !buffer.ensureReadable(VERSION_LENGTH + serializer.getMetadataLength())) {
+      return;
+    }
+
+    final var byteBuffer = buffer.buffer();
+    if (frameView.byteBuffer() != byteBuffer) {
+      frameView.wrap(byteBuffer);
+    }
+    final int metadataOffset = byteBuffer.position() + VERSION_LENGTH;
+    try {
+      final int metadataLength = serializer.getMetadataLength(frameView, metadataOffset);
+      final int recordLength = serializer.readMetadata(frameView, metadataOffset, seekRecord);
+      if (recordLength > 0) {
+        buffer.ensureReadable(VERSION_LENGTH + metadataLength + recordLength);
+      }
+    } catch (final CorruptedJournalException e) {
+      // reported by the record reader
+    }
   }
 
   void reset() {
     buffer.position(descriptorLength);
     currentIndex = segment.index() - 1;
+    readFromStart = true;
   }
 
   void seek(final long index) {
     checkSegmentOpen();
     final long firstIndex = segment.index();
 
-    final long lastIndex = segment.getLastIndex();
+    // the last index is not always written to the descriptor
+    final long lastIndex =
+        segment.getLastIndex() > 0 ? segment.getLastIndex() : segment.getIndexUpperBound();
 
     reset();
 
@@ -89,23 +180,152 @@ final class SegmentReader implements Iterator<ReadOnlyJournalRecord> {
     if (position != null && position.index() >= firstIndex && position.index() <= lastIndex) {
       buffer.position(position.position());
       currentIndex = position.index() - 1;
+      readFromStart = false;
     }
 
-    // If the returned index is far away from the seekIndex, it is likely that this segment was not
-    // indexed before. So we try to index them during the seek.
-    final boolean shouldIndex = !this.index.hasIndexed(index);
-
+    // records are indexed while reading, if the returned index is far away from the seekIndex they
+    // are indexed during the seek
     while (getNextIndex() < index && hasNext()) {
-      final var nextPosition = buffer.position();
-      final var nextEntry = next();
-      if (shouldIndex) {
-        this.index.index(nextEntry, nextPosition);
+      next(seekRecord);
+    }
+  }
+
+  /**
+   * Positions the reader at the last record, which is stored in the segment descriptor, without
+   * reading the records before it. The descriptor is only updated from time to time, there might be
+   * more records afterwards, which are read as usual. If the descriptor doesn't contain the last
+   * record, or the record can't be read at the stored position, it falls back to a regular seek.
+   */
+  void seekToLastKnownRecord() {
+    checkSegmentOpen();
+    final long lastIndex = segment.getLastIndex();
+    final int lastPosition = segment.descriptor().lastPosition();
+    if (lastIndex < segment.index()) {
+      // older segments don't contain the last record, all records have to be read
+      reset();
+      return;
+    }
+
+    if (lastPosition < descriptorLength
+        || lastPosition >= buffer.size()
+        || !isRecordAt(lastPosition, lastIndex)) {
+      seek(lastIndex);
+    }
+  }
+
+  private boolean isRecordAt(final int position, final long recordIndex) {
+    seekToPosition(position, recordIndex);
+    try {
+      if (!hasNext()) {
+        return false;
+      }
+      next(seekRecord);
+    } catch (final CorruptedJournalException | InvalidIndex e) {
+      // the descriptor doesn't match the records
+      return false;
+    }
+
+    // the record is read again by the caller
+    seekToPosition(position, recordIndex);
+    return true;
+  }
+
+  /**
+   * Positions the reader at the record with the given index, which starts at the given position in
+   * the segment. The position has to be known before, e.g. from the index or {@link
+   * #getNextPosition()}.
+   */
+  void seekToPosition(final int position, final long recordIndex) {
+    checkSegmentOpen();
+    reset();
+    buffer.position(position);
+    currentIndex = recordIndex - 1;
+    readFromStart = false;
+  }
+
+  /** Returns the position in the segment at which the next record starts. */
+  int getNextPosition() {
+    return buffer.position();
+  }
+
+  /**
+   * Reads all records of the segment and verifies their checksums, independent of whether the
+   * segment verifies checksums on read. Corrupted records are skipped via the length in their
+   * metadata, if the metadata is corrupted as well the rest of the segment is reported as corrupted.
+   * The reader is reset afterwards.
+   */
+  SegmentVerification verify() {
+    final var serializer = new SBESerializer();
+    final var verifyingReader = new JournalRecordReaderUtil(serializer, true);
+    final List<CorruptedRange> corruptedRanges = new ArrayList<>();
+    long recordCount = 0;
+    long expectedIndex = segment.index();
+
+    reset();
+    while (hasFrame()) {
+      ensureFrameReadable();
+      FrameUtil.readVersion(buffer.buffer());
+      final int recordStart = buffer.position();
+      recordCount++;
+
+      try {
+        final var record = verifyingReader.read(buffer.buffer(), expectedIndex);
+        expectedIndex = record.index() + 1;
+      } catch (final RuntimeException e) {
+        // usually a CorruptedJournalException or InvalidIndex, but any decoding failure counts
+        addCorruptedIndex(corruptedRanges, expectedIndex, e.getMessage());
+        final int nextFrame = nextFramePosition(serializer, recordStart);
+        if (nextFrame < 0) {
+          corruptedRanges.add(
+              new CorruptedRange(
+                  expectedIndex + 1,
+                  SegmentVerification.UNKNOWN_INDEX,
+                  "Metadata of the record is corrupted, the rest of the segment can't be read."));
+          break;
+        }
+        buffer.position(nextFrame);
+        expectedIndex++;
+      }
+    }
+    reset();
+
+    return new SegmentVerification(
+        segment.file().name(), segment.index(), recordCount, corruptedRanges);
+  }
+
+  private static void addCorruptedIndex(
+      final List<CorruptedRange> corruptedRanges, final long index, final String reason) {
+    final var lastIndex = corruptedRanges.size() - 1;
+    if (lastIndex >= 0 && corruptedRanges.get(lastIndex).toIndex() == index - 1) {
+      final var last = corruptedRanges.get(lastIndex);
+      corruptedRanges.set(lastIndex, new CorruptedRange(last.fromIndex(), index, last.reason()));
+    } else {
+      corruptedRanges.add(new CorruptedRange(index, index, reason));
+    }
+  }
+
+  /** Returns the position of the frame after the given record, or -1 if it can't be determined. */
+  private int nextFramePosition(final SBESerializer serializer, final int recordStart) {
+    try {
+      buffer.position(recordStart);
+      if (!buffer.ensureReadable(serializer.getMetadataLength())) {
+        return -1;
       }
+      final var byteBuffer = buffer.buffer();
+      final var directBuffer =
+          new UnsafeBuffer(byteBuffer, byteBuffer.position(), byteBuffer.remaining());
+      final int metadataLength = serializer.getMetadataLength(directBuffer, 0);
+      final int recordLength = serializer.readMetadata(directBuffer, 0).length();
+      final long nextFrame = (long) recordStart + metadataLength + recordLength;
+      return recordLength > 0 && nextFrame <= buffer.size() ? (int) nextFrame : -1;
+    } catch (final RuntimeException e) {
+      return -1;
     }
   }
 
   void close() {
     segment.onReaderClosed(this);
+    buffer.close();
   }
 
   long getNextIndex() {
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.journal.file;
+
+import java.util.List;
+
+/**
+ * Result of verifying all records of a segment, see {@link
+ * SegmentedReadOnlyJournal#verifySegment(long)}.
+ *
+ * @param fileName the file name of the segment
+ * @param firstIndex the first index of the segment
+ * @param recordCount the number of records found in the segment, including corrupted ones
+ * @param corruptedRanges the ranges of corrupted records, empty if the segment is valid
+ */
+public record SegmentVerification(
+    String fileName, long firstIndex, long recordCount, List<CorruptedRange> corruptedRanges) {
+
+  /** Used as {@link CorruptedRange#toIndex()}, if the rest of the segment couldn't be read. */
+  public static final long UNKNOWN_INDEX = -1;
+
+  public boolean isValid() {
+    return corruptedRanges.isEmpty();
+  }
+
+  /**
+   * Range of records which are corrupted, e.g. their checksum doesn't match.
+   *
+   * @param fromIndex the first corrupted index
+   * @param toIndex the last corrupted index (inclusive), or {@link #UNKNOWN_INDEX} if the segment
+   *     couldn't be read further
+   * @param reason the reason of the first corrupted record in this range
+   */
+  public record CorruptedRange(long fromIndex, long toIndex, String reason) {}
+}
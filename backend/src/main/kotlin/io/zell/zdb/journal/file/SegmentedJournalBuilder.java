@@ -18,6 +18,7 @@
 package io.zell.zdb.journal.file;
 
 import java.io.File;
+import java.nio.file.Path;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -29,12 +30,22 @@ public class SegmentedJournalBuilder {
   private static final String DEFAULT_NAME = "journal";
   private static final String DEFAULT_DIRECTORY = System.getProperty("user.dir");
   private static final int DEFAULT_MAX_SEGMENT_SIZE = 1024 * 1024 * 32;
-  private static final int DEFAULT_JOURNAL_INDEX_DENSITY = 100;
+  private static final long DEFAULT_INDEX_MEMORY_BUDGET = 16L * 1024 * 1024;
+  // small on purpose: underestimating the record size keeps the index within the budget
+  private static final int ESTIMATED_RECORD_SIZE = 256;
+  private static final long DEFAULT_MAX_MAPPED_BYTES = 2L * 1024 * 1024 * 1024;
+  private static final int DEFAULT_READ_BUFFER_SIZE = 8 * 1024 * 1024;
   protected String name = DEFAULT_NAME;
   protected File directory = new File(DEFAULT_DIRECTORY);
   protected int maxSegmentSize = DEFAULT_MAX_SEGMENT_SIZE;
 
-  private int journalIndexDensity = DEFAULT_JOURNAL_INDEX_DENSITY;
+  private int journalIndexDensity;
+  private long indexMemoryBudget = DEFAULT_INDEX_MEMORY_BUDGET;
+  private Path indexFile;
+  private long maxMappedBytes = DEFAULT_MAX_MAPPED_BYTES;
+  private boolean verifyChecksums = true;
+  private boolean streamingReads;
+  private int readBufferSize = DEFAULT_READ_BUFFER_SIZE;
 
   protected SegmentedJournalBuilder() {}
 
@@ -97,15 +108,160 @@ public class SegmentedJournalBuilder {
     return this;
   }
 
+  /**
+   * Sets the file in which the journal index is persisted, returning the builder for method
+   * chaining.
+   *
+   * <p>The index is restored from the file when the journal is built, and stored when the journal is
+   * closed. This allows later runs to seek without reading the segments again. Entries of segments
+   * which changed in between are ignored. By default, the index is not persisted.
+   *
+   * @param indexFile the file to persist the index in, or null to not persist the index
+   * @return The journal builder.
+   */
+  public SegmentedJournalBuilder withIndexFile(final Path indexFile) {
+    this.indexFile = indexFile;
+    return this;
+  }
+
+  /**
+   * Sets the budget of bytes which are kept mapped, returning the builder for method chaining.
+   *
+   * <p>Segments are mapped on first read. If the mapped segments exceed the budget, the least
+   * recently used segments which are currently not read are unmapped again.
+   *
+   * <p>By default, the budget is {@code 2 GiB}.
+   *
+   * @param maxMappedBytes the maximum bytes to keep mapped
+   * @return The journal builder.
+   * @throws IllegalArgumentException If the {@code maxMappedBytes} is not positive
+   */
+  public SegmentedJournalBuilder withMaxMappedBytes(final long maxMappedBytes) {
+    checkArgument(maxMappedBytes > 0, "maxMappedBytes must be positive");
+    this.maxMappedBytes = maxMappedBytes;
+    return this;
+  }
+
+  /**
+   * Sets whether segments are streamed instead of mapped, returning the builder for method
+   * chaining.
+   *
+   * <p>Streamed segments are read through reusable buffers, with direct I/O if the file system
+   * supports it. This makes the throughput of full scans over large logs predictable and doesn't
+   * evict everything else from the page cache. Seeks have to read from disk every time, which makes
+   * mapped segments the better choice for random access.
+   *
+   * <p>By default, segments are mapped.
+   *
+   * @param streamingReads whether segments are streamed
+   * @return The journal builder.
+   */
+  public SegmentedJournalBuilder withStreamingReads(final boolean streamingReads) {
+    this.streamingReads = streamingReads;
+    return this;
+  }
+
+  /**
+   * Sets the size of the buffers through which segments are streamed, returning the builder for
+   * method chaining. Only used if segments are streamed, see {@link #withStreamingReads(boolean)}.
+   *
+   * <p>By default, the buffers are {@code 8 MiB}.
+   *
+   * @param readBufferSize the size of a read buffer in bytes
+   * @return The journal builder.
+   * @throws IllegalArgumentException If the {@code readBufferSize} is not positive
+   */
+  public SegmentedJournalBuilder withReadBufferSize(final int readBufferSize) {
+    checkArgument(readBufferSize > 0, "readBufferSize must be positive");
+    this.readBufferSize = readBufferSize;
+    return this;
+  }
+
+  /**
+   * Sets whether readers verify the checksum of every record they read, returning the builder for
+   * method chaining.
+   *
+   * <p>Computing the checksums is a large part of the read costs. It can be turned off for trusted
+   * read paths, corruption can still be detected via {@link SegmentedReadOnlyJournal#verifySegment(long)}.
+   *
+   * <p>By default, checksums are verified.
+   *
+   * @param verifyChecksums whether checksums are verified on read
+   * @return The journal builder.
+   */
+  public SegmentedJournalBuilder withChecksumVerification(final boolean verifyChecksums) {
+    this.verifyChecksums = verifyChecksums;
+    return this;
+  }
+
+  /**
+   * Sets the density of the journal index, returning the builder for method chaining.
+   *
+   * <p>Every {@code density}-th record is indexed, seeks read at most {@code density} records. If
+   * set, the density is used instead of the one derived from the index memory budget.
+   *
+   * @param journalIndexDensity the density of the journal index
+   * @return The journal builder.
+   * @throws IllegalArgumentException If the {@code journalIndexDensity} is not positive
+   */
+  public SegmentedJournalBuilder withJournalIndexDensity(final int journalIndexDensity) {
+    checkArgument(journalIndexDensity > 0, "journalIndexDensity must be positive");
+    this.journalIndexDensity = journalIndexDensity;
+    return this;
+  }
+
+  /**
+   * Sets the memory budget of the journal index in bytes, returning the builder for method
+   * chaining.
+   *
+   * <p>The index density is chosen based on the size of the segments, such that the index of the
+   * complete journal fits in the budget. Small logs are indexed densely, which makes seeks cheap.
+   *
+   * <p>By default, the budget is {@code 16 MiB}.
+   *
+   * @param indexMemoryBudget the maximum bytes used by the journal index
+   * @return The journal builder.
+   * @throws IllegalArgumentException If the {@code indexMemoryBudget} is not positive
+   */
+  public SegmentedJournalBuilder withIndexMemoryBudget(final long indexMemoryBudget) {
+    checkArgument(indexMemoryBudget > 0, "indexMemoryBudget must be positive");
+    this.indexMemoryBudget = indexMemoryBudget;
+    return this;
+  }
+
   public SegmentedReadOnlyJournal build() {
-    final var journalIndex = new SparseJournalIndex(journalIndexDensity);
+    final var density =
+        journalIndexDensity > 0
+            ? journalIndexDensity
+            : SparseJournalIndex.densityFor(
+                getSegmentsSize() / ESTIMATED_RECORD_SIZE, indexMemoryBudget);
+    final var journalIndex = new SparseJournalIndex(density);
     final var segmentsManager =
         new SegmentsManager(
             journalIndex,
             maxSegmentSize,
             directory,
-            name);
+            name,
+            maxMappedBytes,
+            streamingReads ? readBufferSize : 0,
+            verifyChecksums);
+    final var journalIndexFile =
+        indexFile != null ? new JournalIndexFile(indexFile, journalIndex) : null;
+
+    return new SegmentedReadOnlyJournal(journalIndex, segmentsManager, journalIndexFile);
+  }
+
+  private long getSegmentsSize() {
+    final File[] files =
+        directory.listFiles(file -> file.isFile() && SegmentFile.isSegmentFile(name, file));
+    if (files == null) {
+      return 0;
+    }
 
-    return new SegmentedReadOnlyJournal(journalIndex, segmentsManager);
+    long size = 0;
+    for (final File file : files) {
+      size += file.length();
+    }
+    return size;
   }
 }
@@ -20,6 +20,7 @@ package io.zell.zdb.journal.file;
 
 import io.zell.zdb.journal.JournalReader;
 import io.zell.zdb.journal.ReadOnlyJournalRecord;
+import io.zell.zdb.journal.record.MutableJournalRecord;
 
 import java.util.NoSuchElementException;
 
@@ -30,6 +31,7 @@ class SegmentedJournalReader implements JournalReader {
   private final SegmentedReadOnlyJournal journal;
   private Segment currentSegment;
   private SegmentReader currentReader;
+  private final MutableJournalRecord flyweight = new MutableJournalRecord();
 
   SegmentedJournalReader(final SegmentedReadOnlyJournal journal) {
     this.journal = journal;
@@ -42,6 +44,7 @@ class SegmentedJournalReader implements JournalReader {
     currentReader = currentSegment.createReader();
   }
 
+  @Override
   public long getNextIndex() {
     return currentReader.getNextIndex();
   }
@@ -66,6 +69,20 @@ class SegmentedJournalReader implements JournalReader {
     }
   }
 
+  @Override
+  public ReadOnlyJournalRecord nextFlyweight() {
+    final var stamp = journal.acquireReadlock();
+    try {
+      if (!unsafeHasNext()) {
+        throw new NoSuchElementException();
+      }
+
+      return currentReader.next(flyweight);
+    } finally {
+      journal.releaseReadlock(stamp);
+    }
+  }
+
   private ReadOnlyJournalRecord unsafeNext() throws NoSuchElementException {
     if (!unsafeHasNext()) {
       throw new NoSuchElementException();
@@ -115,7 +132,16 @@ class SegmentedJournalReader implements JournalReader {
       final var stamp = journal.acquireReadlock();
       try {
         final var journalIndex = journal.getJournalIndex();
-        final var index = journalIndex.lookupAsqn(asqn, indexUpperBound);
+        var index = journalIndex.lookupAsqn(asqn, indexUpperBound);
+
+        // the index might be empty or only cover parts of the journal, the segment which contains the
+        // asqn is found via binary search over the first records of the segments
+        final var segment = journal.getSegmentForAsqn(asqn);
+        if (segment != null
+            && segment.index() <= indexUpperBound
+            && (index == null || index < segment.index())) {
+          index = segment.index();
+        }
 
         // depending on the type of index, it's possible there is no ASQN indexed, in which case
         // start from the beginning
@@ -127,14 +153,15 @@ class SegmentedJournalReader implements JournalReader {
 
         // potential beneficiary of a peek() call, which would avoid the duplicate seek or
         // being at the second position if the first entry has a greater ASQN
-        ReadOnlyJournalRecord record = null;
+        // the records are only compared, they are read as flyweights to not copy them
+        Long recordIndex = null;
         while (unsafeHasNext()) {
-          final var currentRecord = next();
+          final var currentRecord = currentReader.next(flyweight);
           if (currentRecord.index() > indexUpperBound) {
             break;
           }
           if (currentRecord.asqn() <= asqn && currentRecord.asqn() != ASQN_IGNORE) {
-            record = currentRecord;
+            recordIndex = currentRecord.index();
           } else if (currentRecord.asqn() >= asqn) {
             break;
           }
@@ -143,13 +170,13 @@ class SegmentedJournalReader implements JournalReader {
         // if the journal was empty, the reader will be at the beginning of the log
         // if the journal only contained entries with ASQN greater than the one requested, then seek
         // back to the beginning
-        if (record == null) {
+        if (recordIndex == null) {
           return unsafeSeekToFirst();
         }
 
         // This is needed so that the next() returns the correct record
         // TODO: Remove the duplicate seek. https://github.com/zeebe-io/zeebe/issues/6223
-        return unsafeSeek(record.index());
+        return unsafeSeek(recordIndex);
       } finally {
         journal.releaseReadlock(stamp);
       }
@@ -18,10 +18,15 @@
 package io.zell.zdb.journal.file;
 
 import com.google.common.collect.Sets;
+import io.camunda.zeebe.journal.JournalException;
 import io.zell.zdb.journal.JournalReader;
 import io.zell.zdb.journal.ReadOnlyJournal;
+import io.zell.zdb.journal.ReverseJournalReader;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.locks.StampedLock;
 
@@ -35,13 +40,19 @@ public final class SegmentedReadOnlyJournal implements ReadOnlyJournal {
   private final JournalIndex journalIndex;
   private final StampedLock rwlock = new StampedLock();
   private final SegmentsManager segments;
+  private final JournalIndexFile journalIndexFile;
 
   SegmentedReadOnlyJournal(
       final JournalIndex journalIndex,
-      final SegmentsManager segments) {
+      final SegmentsManager segments,
+      final JournalIndexFile journalIndexFile) {
     this.journalIndex = Objects.requireNonNull(journalIndex, "must specify a journal index");
     this.segments = Objects.requireNonNull(segments, "must specify a journal segments manager");
+    this.journalIndexFile = journalIndexFile;
     this.segments.open();
+    if (journalIndexFile != null) {
+      journalIndexFile.restore(segments.getSegments());
+    }
   }
 
   /**
@@ -83,13 +94,173 @@ public final class SegmentedReadOnlyJournal implements ReadOnlyJournal {
     }
   }
 
+  /**
+   * Opens a reader which reads the journal backwards, starting at the last record. The last record
+   * is found via the segment descriptor, such that reading the last records doesn't require reading
+   * the complete journal.
+   *
+   * @return a reader which returns the newest records first
+   */
+  public ReverseJournalReader openReverseReader() {
+    final var stamped = acquireReadlock();
+    try {
+      return new SegmentedReverseJournalReader(this);
+    } finally {
+      releaseReadlock(stamped);
+    }
+  }
+
+  /**
+   * Returns the first indexes of all segments, in ascending order. Each index identifies a segment,
+   * which can be read on its own via {@link #openSegmentReader(long)}.
+   *
+   * @return the first indexes of all segments
+   */
+  public List<Long> getSegmentIndexes() {
+    assertOpen();
+    return segments.getSegmentIndexes();
+  }
+
+  /**
+   * Opens a reader which only reads the records of the segment starting at the given index. The
+   * reader doesn't move on to the next segment, which allows to read several segments concurrently,
+   * each with its own reader.
+   *
+   * @param segmentIndex the first index of the segment, see {@link #getSegmentIndexes()}
+   * @return a reader for the given segment
+   * @throws IllegalArgumentException if there is no segment starting at the given index
+   */
+  public JournalReader openSegmentReader(final long segmentIndex) {
+    final var stamped = acquireReadlock();
+    try {
+      return new SegmentJournalReader(this, getSegmentStartingAt(segmentIndex));
+    } finally {
+      releaseReadlock(stamped);
+    }
+  }
+
+  /**
+   * Returns the file state of the segment starting at the given index, which allows to detect
+   * whether the segment changed since it was read before.
+   *
+   * @param segmentIndex the first index of the segment, see {@link #getSegmentIndexes()}
+   * @return the file state of the segment
+   * @throws IllegalArgumentException if there is no segment starting at the given index
+   */
+  public SegmentInfo getSegmentInfo(final long segmentIndex) {
+    final var stamped = acquireReadlock();
+    try {
+      final var segment = getSegmentStartingAt(segmentIndex);
+      return new SegmentInfo(
+          segment.file().name(), segment.index(), segment.fileSize(), segment.lastModified());
+    } finally {
+      releaseReadlock(stamped);
+    }
+  }
+
+  /**
+   * Reads all records of the segment starting at the given index and verifies their checksums. This
+   * is done regardless of whether checksums are verified on read. Segments can be verified
+   * concurrently.
+   *
+   * @param segmentIndex the first index of the segment, see {@link #getSegmentIndexes()}
+   * @return the result of the verification, containing the corrupted ranges of the segment
+   * @throws IllegalArgumentException if there is no segment starting at the given index
+   */
+  public SegmentVerification verifySegment(final long segmentIndex) {
+    final var stamped = acquireReadlock();
+    try {
+      final var reader = getSegmentStartingAt(segmentIndex).createReader();
+      try {
+        return reader.verify();
+      } finally {
+        reader.close();
+      }
+    } finally {
+      releaseReadlock(stamped);
+    }
+  }
+
+  /**
+   * Copies the records between the given indexes into a new journal in the target directory, which
+   * can be read like any other partition. The record frames are copied as they are, only the
+   * segment descriptors are written anew.
+   *
+   * @param targetDirectory the directory to write the segments to, must not contain segments yet
+   * @param targetName the name of the new journal, the segment files are named after it
+   * @param fromIndex the first index to extract, inclusive
+   * @param toIndex the last index to extract, inclusive
+   * @return the range which has been extracted
+   * @throws IllegalArgumentException if there are no records between the given indexes
+   */
+  public JournalExtraction extract(
+      final Path targetDirectory,
+      final String targetName,
+      final long fromIndex,
+      final long toIndex) {
+    final var stamped = acquireReadlock();
+    try {
+      assertOpen();
+      return new JournalExtractor(List.copyOf(segments.getSegments()), targetName)
+          .extract(targetDirectory, fromIndex, toIndex);
+    } catch (final IOException e) {
+      throw new JournalException(
+          String.format("Failed to extract the journal into %s", targetDirectory), e);
+    } finally {
+      releaseReadlock(stamped);
+    }
+  }
+
+  /**
+   * Loads the segments which have been created since the journal was opened, e.g. when the log is
+   * still written by a running broker. New records of already loaded segments are visible without
+   * a refresh, since the segments are mapped completely.
+   *
+   * @return true if new segments were found
+   */
+  public boolean refreshSegments() {
+    final var stamp = rwlock.writeLock();
+    try {
+      assertOpen();
+      return segments.loadNewSegments();
+    } finally {
+      rwlock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Returns the directory which contains the segment files of the journal.
+   *
+   * @return the journal directory
+   */
+  public Path getDirectory() {
+    return segments.getDirectory().toPath();
+  }
+
   @Override
   public boolean isOpen() {
     return open;
   }
 
+  /**
+   * Returns whether all segments have been read completely once, such that seeks can be answered
+   * via the journal index without reading the segments.
+   *
+   * @return true if all segments are fully indexed
+   */
+  public boolean isFullyIndexed() {
+    return segments.getSegments().stream().allMatch(Segment::isFullyIndexed);
+  }
+
   @Override
   public void close() {
+    if (!open) {
+      return;
+    }
+
+    if (journalIndexFile != null) {
+      journalIndexFile.store(segments.getSegments());
+    }
     segments.close();
     open = false;
   }
@@ -133,6 +304,15 @@ public final class SegmentedReadOnlyJournal implements ReadOnlyJournal {
     return segments.getNextSegment(index);
   }
 
+  private Segment getSegmentStartingAt(final long segmentIndex) {
+    final var segment = segments.getSegmentStartingAt(segmentIndex);
+    if (segment == null) {
+      throw new IllegalArgumentException(
+          String.format("Expected to find segment starting at index %d, but none exists.", segmentIndex));
+    }
+    return segment;
+  }
+
   /**
    * Returns the segment for the given index.
    *
@@ -144,6 +324,17 @@ public final class SegmentedReadOnlyJournal implements ReadOnlyJournal {
     return segments.getSegment(index);
   }
 
+  /**
+   * Returns the last segment which starts with an asqn lower or equal to the given asqn.
+   *
+   * @param asqn the asqn to look for
+   * @throws IllegalStateException if the segment manager is not open
+   */
+  Segment getSegmentForAsqn(final long asqn) {
+    assertOpen();
+    return segments.getSegmentForAsqn(asqn);
+  }
+
   public void closeReader(final SegmentedJournalReader segmentedJournalReader) {
     readers.remove(segmentedJournalReader);
   }
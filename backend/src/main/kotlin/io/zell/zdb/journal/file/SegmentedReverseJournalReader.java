@@ -0,0 +1,161 @@
+/*
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.journal.file;
+
+import io.zell.zdb.journal.ReadOnlyJournalRecord;
+import io.zell.zdb.journal.ReverseJournalReader;
+import io.zell.zdb.journal.record.MutableJournalRecord;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the journal backwards. Frames can only be read forward, which is why the records are read
+ * in chunks: starting at the closest indexed record before the next record to return, the
+ * positions of all records up to it are collected, afterwards the records are read at these
+ * positions in reverse order. Every record read is indexed, such that the chunks are bounded by
+ * the index density once a segment has been read. The last record of a segment is found via its
+ * descriptor.
+ */
+final class SegmentedReverseJournalReader implements ReverseJournalReader {
+
+  private static final int INITIAL_CHUNK_CAPACITY = 64;
+
+  private final SegmentedReadOnlyJournal journal;
+  private final JournalIndex index;
+  private final List<Long> segmentIndexes;
+  private final MutableJournalRecord flyweight = new MutableJournalRecord();
+  // the records of a chunk are read into this record, only their positions are kept
+  private final MutableJournalRecord chunkRecord = new MutableJournalRecord();
+  private int[] chunkPositions = new int[INITIAL_CHUNK_CAPACITY];
+  private int chunkSize;
+  private int currentSegment;
+  private Segment segment;
+  private SegmentReader reader;
+  // index of the record which is returned next, decreases with every read
+  private long nextIndex;
+
+  SegmentedReverseJournalReader(final SegmentedReadOnlyJournal journal) {
+    this.journal = journal;
+    index = journal.getJournalIndex();
+    segmentIndexes = journal.getSegmentIndexes();
+    currentSegment = segmentIndexes.size();
+    moveToPreviousSegment();
+  }
+
+  @Override
+  public boolean hasNext() {
+    return segment != null && segment.isOpen();
+  }
+
+  @Override
+  public ReadOnlyJournalRecord next() {
+    return read(new MutableJournalRecord());
+  }
+
+  @Override
+  public ReadOnlyJournalRecord nextFlyweight() {
+    return read(flyweight);
+  }
+
+  @Override
+  public void close() {
+    if (reader != null) {
+      reader.close();
+      reader = null;
+    }
+    segment = null;
+  }
+
+  private ReadOnlyJournalRecord read(final MutableJournalRecord record) {
+    final var stamp = journal.acquireReadlock();
+    try {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+
+      if (chunkSize == 0) {
+        readChunk();
+      }
+
+      reader.seekToPosition(chunkPositions[--chunkSize], nextIndex);
+      reader.next(record);
+
+      nextIndex--;
+      if (nextIndex < segment.index()) {
+        moveToPreviousSegment();
+      }
+      return record;
+    } finally {
+      journal.releaseReadlock(stamp);
+    }
+  }
+
+  /** Collects the positions of the records from the closest indexed record up to the next index. */
+  private void readChunk() {
+    final var indexed = index.lookup(nextIndex);
+    if (indexed != null && indexed.index() >= segment.index() && indexed.index() <= nextIndex) {
+      reader.seekToPosition(indexed.position(), indexed.index());
+    } else {
+      reader.reset();
+    }
+
+    while (reader.getNextIndex() <= nextIndex && reader.hasNext()) {
+      if (chunkSize == chunkPositions.length) {
+        chunkPositions = Arrays.copyOf(chunkPositions, chunkSize * 2);
+      }
+      chunkPositions[chunkSize++] = reader.getNextPosition();
+      reader.next(chunkRecord);
+    }
+
+    if (reader.getNextIndex() != nextIndex + 1) {
+      throw new IllegalStateException(
+          String.format(
+              "Expected to read the records up to index %d in segment %s, but stopped at index %d",
+              nextIndex, segment.file().name(), reader.getNextIndex() - 1));
+    }
+  }
+
+  /** Moves to the last record of the previous non-empty segment, if there is any. */
+  private void moveToPreviousSegment() {
+    chunkSize = 0;
+    while (true) {
+      if (reader != null) {
+        reader.close();
+        reader = null;
+      }
+
+      if (--currentSegment < 0) {
+        segment = null;
+        return;
+      }
+
+      segment = journal.getSegment(segmentIndexes.get(currentSegment));
+      reader = segment.createReader();
+
+      // the descriptor might not contain the last record, everything after it is read as well
+      reader.seekToLastKnownRecord();
+      while (reader.hasNext()) {
+        reader.next(chunkRecord);
+      }
+
+      nextIndex = reader.getNextIndex() - 1;
+      if (nextIndex >= segment.index()) {
+        return;
+      }
+    }
+  }
+}
@@ -9,7 +9,6 @@ package io.zell.zdb.journal.file;
 
 import io.camunda.zeebe.journal.CorruptedJournalException;
 import io.camunda.zeebe.journal.JournalException;
-import org.agrona.IoUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -17,7 +16,6 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -31,22 +29,37 @@ import static com.google.common.base.Preconditions.checkNotNull;
 final class SegmentsManager implements AutoCloseable {
 
   private static final long INITIAL_ASQN = SegmentedReadOnlyJournal.ASQN_IGNORE;
+  private static final ByteOrder ENDIANNESS = ByteOrder.LITTLE_ENDIAN;
+  // enough to contain the descriptor, also if later versions add some fields
+  private static final int DESCRIPTOR_READ_LENGTH = 1024;
 
   private static final Logger LOG = LoggerFactory.getLogger(SegmentsManager.class);
 
   private final NavigableMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+  // snapshot of the segments in index order, replaced whenever segments are loaded
+  private volatile Segment[] sortedSegments = new Segment[0];
   private final JournalIndex journalIndex;
   private final int maxSegmentSize;
   private final File directory;
   private final String name;
+  private final MappedSegmentCache mappedSegmentCache;
+  private final ReadBufferPool readBufferPool;
+  private final boolean verifyChecksums;
   private volatile Segment currentSegment;
 
   SegmentsManager(
       final JournalIndex journalIndex,
       final int maxSegmentSize,
       final File directory,
-      final String name) {
+      final String name,
+      final long maxMappedBytes,
+      final int readBufferSize,
+      final boolean verifyChecksums) {
     this.name = checkNotNull(name, "name cannot be null");
+    this.verifyChecksums = verifyChecksums;
+    mappedSegmentCache = new MappedSegmentCache(maxMappedBytes);
+    // segments are only streamed if a read buffer size is given
+    readBufferPool = readBufferSize > 0 ? new ReadBufferPool(directory, readBufferSize) : null;
     this.journalIndex = journalIndex;
     this.maxSegmentSize = maxSegmentSize;
     this.directory = directory;
@@ -84,6 +97,61 @@ final class SegmentsManager implements AutoCloseable {
     return nextSegment != null ? nextSegment.getValue() : null;
   }
 
+  Segment getSegmentStartingAt(final long index) {
+    return segments.get(index);
+  }
+
+  /**
+   * Returns the last segment with a first asqn lower or equal to the given asqn. Asqns are
+   * increasing over the segments, which allows to binary search them via their first record.
+   * Segments without any asqn are skipped.
+   *
+   * @param asqn the asqn to look for
+   * @return the segment which might contain the asqn, or null if all segments start with a higher
+   *     asqn
+   */
+  Segment getSegmentForAsqn(final long asqn) {
+    final Segment[] sortedSegments = this.sortedSegments;
+    Segment found = null;
+    int low = 0;
+    int high = sortedSegments.length - 1;
+
+    while (low <= high) {
+      final int mid = (low + high) >>> 1;
+
+      // segments which only contain raft entries have no asqn, use the closest one before instead
+      int probe = mid;
+      long firstAsqn = sortedSegments[probe].getFirstAsqn();
+      while (firstAsqn == SegmentedReadOnlyJournal.ASQN_IGNORE && probe > low) {
+        probe--;
+        firstAsqn = sortedSegments[probe].getFirstAsqn();
+      }
+
+      if (firstAsqn == SegmentedReadOnlyJournal.ASQN_IGNORE) {
+        low = mid + 1;
+      } else if (firstAsqn <= asqn) {
+        found = sortedSegments[probe];
+        low = mid + 1;
+      } else {
+        high = probe - 1;
+      }
+    }
+
+    return found;
+  }
+
+  Collection<Segment> getSegments() {
+    return segments.values();
+  }
+
+  List<Long> getSegmentIndexes() {
+    return List.copyOf(segments.keySet());
+  }
+
+  File getDirectory() {
+    return directory;
+  }
+
   Segment getSegment(final long index) {
     // Check if the current segment contains the given index first in order to prevent an
     // unnecessary map lookup.
@@ -102,9 +170,15 @@ final class SegmentsManager implements AutoCloseable {
   /** Loads existing segments from the disk */
   void open() {
     // Load existing log segments from disk.
+    Segment previousSegment = null;
     for (final Segment segment : loadSegments()) {
       segments.put(segment.descriptor().index(), segment);
+      if (previousSegment != null) {
+        previousSegment.setIndexUpperBound(segment.index() - 1);
+      }
+      previousSegment = segment;
     }
+    updateSortedSegments();
 
     // If a segment doesn't already exist, create an initial segment starting at index 1.
     if (!segments.isEmpty()) {
@@ -114,6 +188,48 @@ final class SegmentsManager implements AutoCloseable {
     }
   }
 
+  /**
+   * Loads the segments which have been created after the segments were loaded, e.g. by a broker
+   * which still writes to the log. Segments which can't be read yet, because they are still
+   * prepared, are skipped and loaded on a later call.
+   *
+   * @return true if new segments were loaded
+   */
+  boolean loadNewSegments() {
+    Segment lastSegment = getLastSegment();
+    final int lastSegmentId = (int) lastSegment.id();
+    boolean loaded = false;
+
+    for (final File file : getSortedLogSegments()) {
+      if (SegmentFile.getSegmentIdFromPath(file.getName()) <= lastSegmentId) {
+        continue;
+      }
+
+      final Segment segment;
+      try {
+        segment = loadExistingSegment(file.toPath(), lastSegment.getLastWrittenAsqn(), journalIndex);
+      } catch (final EmptySegmentException | JournalException e) {
+        LOG.trace("Segment {} can't be read yet, will retry later.", file.getName(), e);
+        break;
+      }
+
+      lastSegment.setIndexUpperBound(segment.index() - 1);
+      segments.put(segment.index(), segment);
+      currentSegment = segment;
+      lastSegment = segment;
+      loaded = true;
+    }
+
+    if (loaded) {
+      updateSortedSegments();
+    }
+    return loaded;
+  }
+
+  private void updateSortedSegments() {
+    sortedSegments = segments.values().toArray(new Segment[0]);
+  }
+
   /**
    * Loads all segments from disk.
    *
@@ -121,10 +237,11 @@ final class SegmentsManager implements AutoCloseable {
    */
   private Collection<Segment> loadSegments() {
 
-    // Ensure log directories are created.
-    //noinspection ResultOfMethodCallIgnored
-    directory.mkdirs();
     final List<Segment> segments = new ArrayList<>();
+    if (!directory.exists()) {
+      // nothing to read, the directory is not created since the log might be on a read-only mount
+      return segments;
+    }
 
     final List<File> files = getSortedLogSegments();
     Segment previousSegment = null;
@@ -185,46 +302,60 @@ final class SegmentsManager implements AutoCloseable {
 
     return buffer.get(0);
   }
-  private static final ByteOrder ENDIANNESS = ByteOrder.LITTLE_ENDIAN;
-
-  private MappedByteBuffer mapSegment(final FileChannel channel, final long segmentSize)
-          throws IOException {
-    final var mappedSegment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
-    mappedSegment.order(ENDIANNESS);
-
-    return mappedSegment;
-  }
   Segment loadExistingSegment(
           final Path segmentFile, final long lastWrittenAsqn, final JournalIndex journalIndex) {
 
-    try (final var channel =
-                 FileChannel.open(segmentFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
-      MappedByteBuffer mappedSegment;
-      final var initialMappedLength = Files.size(segmentFile);
-      mappedSegment = mapSegment(channel, initialMappedLength);
-      final var descriptor = readDescriptor(mappedSegment, segmentFile.getFileName().toString());
-
-      if (descriptor.maxSegmentSize() > initialMappedLength) {
-        // remap with actual size
-        IoUtil.unmap(mappedSegment);
-        mappedSegment = mapSegment(channel, descriptor.maxSegmentSize());
-      }
-
-      return loadSegment(segmentFile, mappedSegment, descriptor, lastWrittenAsqn, journalIndex);
+    // segments are only read, they are mapped lazily on first access (see Segment#createReader)
+    try (final var channel = FileChannel.open(segmentFile, StandardOpenOption.READ)) {
+      final var fileSize = Files.size(segmentFile);
+      final var lastModified = Files.getLastModifiedTime(segmentFile).toMillis();
+      final var descriptorBuffer = readDescriptorBytes(channel, fileSize);
+      final var descriptor = readDescriptor(descriptorBuffer, segmentFile.getFileName().toString());
+
+      return loadSegment(
+          segmentFile,
+          fileSize,
+          lastModified,
+          descriptor,
+          lastWrittenAsqn,
+          journalIndex);
     } catch (final IOException e) {
       throw new JournalException(
               String.format("Failed to load existing segment %s", segmentFile), e);
     }
   }
 
+  /**
+   * Reads the beginning of the segment, which contains the descriptor, into a heap buffer. This
+   * avoids mapping every segment just to read its descriptor.
+   */
+  private ByteBuffer readDescriptorBytes(final FileChannel channel, final long fileSize)
+          throws IOException {
+    final var buffer = ByteBuffer.allocate((int) Math.min(fileSize, DESCRIPTOR_READ_LENGTH));
+    while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+      // read until the buffer is full or the end of the file is reached
+    }
+    return buffer.flip().order(ENDIANNESS);
+  }
+
   /* ---- Internal methods ------ */
   private Segment loadSegment(
           final Path file,
-          final MappedByteBuffer buffer,
+          final long fileSize,
+          final long lastModified,
           final SegmentDescriptor descriptor,
           final long lastWrittenAsqn,
           final JournalIndex journalIndex) {
-    return new Segment(descriptor, buffer, lastWrittenAsqn, journalIndex);
+    return new Segment(
+        new SegmentFile(file.toFile()),
+        fileSize,
+        lastModified,
+        descriptor,
+        lastWrittenAsqn,
+        journalIndex,
+        mappedSegmentCache,
+        readBufferPool,
+        verifyChecksums);
   }
 
 
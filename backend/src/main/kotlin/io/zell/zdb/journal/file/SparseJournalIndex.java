@@ -18,56 +18,115 @@ package io.zell.zdb.journal.file;
 
 import io.zell.zdb.journal.ReadOnlyJournalRecord;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentNavigableMap;
-import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.Arrays;
 
+/**
+ * Indexes every {@code density}-th record of the journal. The entries are kept per segment in
+ * sorted primitive arrays, such that large logs can be indexed densely without boxing every entry.
+ *
+ * <p>A segment is read by one thread at a time from its start, which only appends to the arrays of
+ * that segment. Segments might be read concurrently and in any order, but they don't share any
+ * arrays, so readers of different segments don't contend. Lookups first search the segment which
+ * contains the index and then the entries within it.
+ */
 final class SparseJournalIndex implements JournalIndex {
 
+  /** Memory used per indexed entry: index and position, plus index and asqn for the asqn lookup. */
+  static final int BYTES_PER_ENTRY = 2 * Long.BYTES + Integer.BYTES + Long.BYTES;
+
+  private static final long NO_INDEX = -1;
+  private static final SegmentEntries[] NO_SEGMENTS = new SegmentEntries[0];
+
   private final int density;
-  private final ConcurrentNavigableMap<Long, Integer> indexToPosition =
-      new ConcurrentSkipListMap<>();
-  private final ConcurrentNavigableMap<Long, Long> asqnToIndex = new ConcurrentSkipListMap<>();
-  // This is added to make deleteAfter and deleteUntil easier.
-  // TODO: Check if this can be improved. https://github.com/zeebe-io/zeebe/issues/6220
-  private final ConcurrentNavigableMap<Long, Long> indexToAsqn = new ConcurrentSkipListMap<>();
+  // sorted by the first index of the segments; replaced as a whole when a segment is added
+  private volatile SegmentEntries[] segments = NO_SEGMENTS;
 
   SparseJournalIndex(final int density) {
     this.density = density;
   }
 
+  /**
+   * Returns the density for which the index of the expected records stays within the given memory
+   * budget. The density is rounded up to a power of two, such that it only changes rarely while the
+   * log grows and a persisted index can still be used.
+   *
+   * @param expectedRecords the amount of records which are expected in the journal
+   * @param memoryBudget the bytes the index should use at most
+   * @return the density, at least 1
+   */
+  static int densityFor(final long expectedRecords, final long memoryBudget) {
+    final long maxEntries = Math.max(1, memoryBudget / BYTES_PER_ENTRY);
+    final long density = Math.max(1, (expectedRecords + maxEntries - 1) / maxEntries);
+    final long powerOfTwo = density == 1 ? 1 : Long.highestOneBit(density - 1) << 1;
+    return (int) Math.min(powerOfTwo, 1 << 30);
+  }
+
   @Override
-  public void index(final ReadOnlyJournalRecord indexedEntry, final int position) {
+  public void index(
+      final long segmentIndex, final ReadOnlyJournalRecord indexedEntry, final int position) {
     final long index = indexedEntry.index();
     if (index % density == 0) {
-      indexToPosition.put(index, position);
-      final long asqn = indexedEntry.asqn();
-      if (asqn != SegmentedReadOnlyJournal.ASQN_IGNORE) {
-        asqnToIndex.put(asqn, index);
-        indexToAsqn.put(index, asqn);
-      }
+      restore(segmentIndex, index, position, indexedEntry.asqn());
     }
   }
 
   @Override
   public IndexInfo lookup(final long index) {
-    final Map.Entry<Long, Integer> entry = indexToPosition.floorEntry(index);
-    return entry != null ? new IndexInfo(entry.getKey(), entry.getValue()) : null;
+    final var segments = this.segments;
+    for (int slot = segmentSlot(segments, index); slot >= 0; slot--) {
+      final var indexInfo = segments[slot].lookup(index);
+      if (indexInfo != null) {
+        return indexInfo;
+      }
+    }
+    return null;
   }
 
   @Override
   public Long lookupAsqn(final long asqn, final long indexUpperBound) {
-    final Map.Entry<Long, Long> entry = asqnToIndex.floorEntry(asqn);
-    if (entry != null) {
-      if (entry.getValue() <= indexUpperBound) {
-        return entry.getValue();
-      } else {
-        return indexToAsqn.floorKey(indexUpperBound);
+    final var segments = this.segments;
+    for (int slot = segmentSlot(segments, indexUpperBound); slot >= 0; slot--) {
+      final long index = segments[slot].lookupAsqn(asqn, indexUpperBound);
+      if (index != NO_INDEX) {
+        return index;
       }
     }
     return null;
   }
 
+  /**
+   * Restores an entry which was indexed before, e.g. read from a {@link JournalIndexFile}.
+   *
+   * @param segmentIndex the first index of the segment which contains the record
+   * @param index the index of the record
+   * @param position the position of the record within its segment
+   * @param asqn the asqn of the record, or {@link SegmentedReadOnlyJournal#ASQN_IGNORE}
+   */
+  void restore(final long segmentIndex, final long index, final int position, final long asqn) {
+    entriesOf(segmentIndex).add(index, position, asqn);
+  }
+
+  /** Calls the consumer for every indexed entry of the segment with the given first index. */
+  void forEach(final long segmentIndex, final EntryConsumer consumer) {
+    final var segments = this.segments;
+    final int slot = segmentSlot(segments, segmentIndex);
+    if (slot >= 0 && segments[slot].firstIndex == segmentIndex) {
+      segments[slot].forEach(consumer);
+    }
+  }
+
+  int size() {
+    int size = 0;
+    for (final var entries : segments) {
+      size += entries.size();
+    }
+    return size;
+  }
+
+  int density() {
+    return density;
+  }
+
   @Override
   public boolean hasIndexed(final long index) {
     final var indexInfo = lookup(index);
@@ -77,4 +136,155 @@ final class SparseJournalIndex implements JournalIndex {
       return indexInfo.index() > index - density;
     }
   }
+
+  private SegmentEntries entriesOf(final long segmentIndex) {
+    final var segments = this.segments;
+    final int slot = segmentSlot(segments, segmentIndex);
+    if (slot >= 0 && segments[slot].firstIndex == segmentIndex) {
+      return segments[slot];
+    }
+
+    synchronized (this) {
+      // another reader might have added the segment in the meantime
+      final var current = this.segments;
+      final int floorSlot = segmentSlot(current, segmentIndex);
+      if (floorSlot >= 0 && current[floorSlot].firstIndex == segmentIndex) {
+        return current[floorSlot];
+      }
+
+      final var entries = new SegmentEntries(segmentIndex);
+      final var added = new SegmentEntries[current.length + 1];
+      System.arraycopy(current, 0, added, 0, floorSlot + 1);
+      added[floorSlot + 1] = entries;
+      System.arraycopy(
+          current, floorSlot + 1, added, floorSlot + 2, current.length - floorSlot - 1);
+      this.segments = added;
+      return entries;
+    }
+  }
+
+  /** Returns the slot of the last segment which starts at or before the given index, or -1. */
+  private static int segmentSlot(final SegmentEntries[] segments, final long index) {
+    int low = 0;
+    int high = segments.length - 1;
+    while (low <= high) {
+      final int mid = (low + high) >>> 1;
+      if (segments[mid].firstIndex <= index) {
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return high;
+  }
+
+  /** Returns the slot of the greatest value less than or equal to the given key, or -1. */
+  private static int floorSlot(final long[] values, final int size, final long key) {
+    // entries are mostly added and looked up at the end
+    if (size > 0 && values[size - 1] <= key) {
+      return size - 1;
+    }
+
+    final int slot = Arrays.binarySearch(values, 0, size, key);
+    return slot >= 0 ? slot : -(slot + 1) - 1;
+  }
+
+  @FunctionalInterface
+  interface EntryConsumer {
+    void accept(long index, int position, long asqn);
+  }
+
+  /**
+   * The entries of a single segment. They are only written by the reader of the segment, the lock
+   * is only contended if the entries are looked up at the same time.
+   */
+  private static final class SegmentEntries {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final long firstIndex;
+    // indexes and positions share their slots, as do asqnIndexes and asqns
+    private long[] indexes = new long[INITIAL_CAPACITY];
+    private int[] positions = new int[INITIAL_CAPACITY];
+    private int size;
+    // asqns grow with the index, so both arrays are sorted; records without asqn are not contained
+    private long[] asqnIndexes = new long[INITIAL_CAPACITY];
+    private long[] asqns = new long[INITIAL_CAPACITY];
+    private int asqnSize;
+
+    private SegmentEntries(final long firstIndex) {
+      this.firstIndex = firstIndex;
+    }
+
+    synchronized IndexInfo lookup(final long index) {
+      final int slot = floorSlot(indexes, size, index);
+      return slot >= 0 ? new IndexInfo(indexes[slot], positions[slot]) : null;
+    }
+
+    /** Returns the index of the lookup, or {@link #NO_INDEX} to continue in the segment before. */
+    synchronized long lookupAsqn(final long asqn, final long indexUpperBound) {
+      final int slot = floorSlot(asqns, asqnSize, asqn);
+      if (slot < 0) {
+        return NO_INDEX;
+      }
+
+      if (asqnIndexes[slot] <= indexUpperBound) {
+        return asqnIndexes[slot];
+      }
+      final int upperBoundSlot = floorSlot(asqnIndexes, asqnSize, indexUpperBound);
+      return upperBoundSlot >= 0 ? asqnIndexes[upperBoundSlot] : NO_INDEX;
+    }
+
+    synchronized void add(final long index, final int position, final long asqn) {
+      // the segment is read in order, only a reader which reads it again adds known entries
+      int slot = floorSlot(indexes, size, index);
+      if (slot < 0 || indexes[slot] != index) {
+        slot++;
+        if (size == indexes.length) {
+          indexes = Arrays.copyOf(indexes, size * 2);
+          positions = Arrays.copyOf(positions, size * 2);
+        }
+        System.arraycopy(indexes, slot, indexes, slot + 1, size - slot);
+        System.arraycopy(positions, slot, positions, slot + 1, size - slot);
+        indexes[slot] = index;
+        size++;
+      }
+      positions[slot] = position;
+
+      if (asqn != SegmentedReadOnlyJournal.ASQN_IGNORE) {
+        addAsqn(index, asqn);
+      }
+    }
+
+    private void addAsqn(final long index, final long asqn) {
+      int slot = floorSlot(asqnIndexes, asqnSize, index);
+      if (slot < 0 || asqnIndexes[slot] != index) {
+        slot++;
+        if (asqnSize == asqnIndexes.length) {
+          asqnIndexes = Arrays.copyOf(asqnIndexes, asqnSize * 2);
+          asqns = Arrays.copyOf(asqns, asqnSize * 2);
+        }
+        System.arraycopy(asqnIndexes, slot, asqnIndexes, slot + 1, asqnSize - slot);
+        System.arraycopy(asqns, slot, asqns, slot + 1, asqnSize - slot);
+        asqnIndexes[slot] = index;
+        asqnSize++;
+      }
+      asqns[slot] = asqn;
+    }
+
+    synchronized void forEach(final EntryConsumer consumer) {
+      for (int slot = 0; slot < size; slot++) {
+        final long index = indexes[slot];
+        final int asqnSlot = Arrays.binarySearch(asqnIndexes, 0, asqnSize, index);
+        consumer.accept(
+            index,
+            positions[slot],
+            asqnSlot >= 0 ? asqns[asqnSlot] : SegmentedReadOnlyJournal.ASQN_IGNORE);
+      }
+    }
+
+    synchronized int size() {
+      return size;
+    }
+  }
 }
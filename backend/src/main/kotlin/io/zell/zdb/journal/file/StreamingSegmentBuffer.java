@@ -0,0 +1,187 @@
+/*
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.journal.file;
+
+import io.camunda.zeebe.journal.JournalException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+/**
+ * Segment buffer which streams the segment through a reusable buffer, instead of mapping it. This
+ * gives full scans of large logs a predictable throughput, without page faults and, with direct
+ * I/O, without evicting everything else from the page cache.
+ *
+ * <p>The buffer only contains the bytes around the current position and is refilled on demand. The
+ * read ahead starts small after every seek, such that reading a single record is cheap, and doubles
+ * with every sequential refill up to the size of the buffer.
+ */
+final class StreamingSegmentBuffer implements SegmentBuffer {
+
+  private static final int INITIAL_READ_AHEAD = 64 * 1024;
+
+  private final Path file;
+  private final int size;
+  private final ReadBufferPool pool;
+  private FileChannel channel;
+  private boolean direct;
+  private ByteBuffer buffer;
+  // position in the segment of the first byte of the buffer
+  private int bufferStart;
+  private int readAhead;
+  private boolean closed;
+
+  StreamingSegmentBuffer(final Path file, final long size, final ReadBufferPool pool) {
+    this.file = file;
+    this.size = (int) size;
+    this.pool = pool;
+    try {
+      openChannel();
+    } catch (final IOException e) {
+      throw new JournalException(String.format("Failed to open segment %s", file), e);
+    }
+    buffer = pool.acquire().limit(0);
+    readAhead = Math.min(INITIAL_READ_AHEAD, pool.bufferSize());
+  }
+
+  @Override
+  public ByteBuffer buffer() {
+    return buffer;
+  }
+
+  @Override
+  public int position() {
+    return bufferStart + buffer.position();
+  }
+
+  @Override
+  public void position(final int position) {
+    if (position >= bufferStart && position <= bufferStart + buffer.limit()) {
+      buffer.position(position - bufferStart);
+      return;
+    }
+
+    // not sequential anymore, the buffer is refilled on the next read
+    bufferStart = position;
+    buffer.position(0).limit(0);
+    readAhead = Math.min(INITIAL_READ_AHEAD, pool.bufferSize());
+  }
+
+  @Override
+  public boolean ensureReadable(final int length) {
+    if (buffer.remaining() >= length) {
+      return true;
+    }
+
+    final int position = position();
+    if (closed || (long) position + length > size) {
+      return false;
+    }
+
+    fill(position, length);
+    return buffer.remaining() >= length;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean isMapped() {
+    return false;
+  }
+
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+
+    closed = true;
+    pool.release(buffer);
+    buffer = ByteBuffer.allocate(0);
+    try {
+      channel.close();
+    } catch (final IOException e) {
+      throw new JournalException(String.format("Failed to close segment %s", file), e);
+    }
+  }
+
+  /**
+   * Refills the buffer, starting at the aligned position before the given position, such that at
+   * least the given number of bytes can be read afterwards.
+   */
+  private void fill(final int position, final int length) {
+    final int start = pool.alignDown(position);
+    final int readLength = pool.alignUp(Math.max(position - start + length, readAhead));
+    if (readLength > buffer.capacity()) {
+      // a record which is larger than the buffer
+      pool.release(buffer);
+      buffer = pool.allocate(readLength);
+    }
+
+    try {
+      read(start, readLength);
+    } catch (final IOException e) {
+      if (!direct) {
+        throw new JournalException(String.format("Failed to read segment %s", file), e);
+      }
+
+      // e.g. the file system doesn't accept the alignment, read through the page cache instead
+      pool.disableDirectIo(e);
+      try {
+        channel.close();
+        openChannel();
+        read(start, readLength);
+      } catch (final IOException retryError) {
+        throw new JournalException(String.format("Failed to read segment %s", file), retryError);
+      }
+    }
+
+    // bytes which have been written after the segment was loaded are not visible, like for mapped
+    // segments
+    final int limit = Math.min(buffer.limit(), size - start);
+    if (limit < position - start) {
+      // the file is shorter than on load, there is nothing to read at the position
+      bufferStart = position;
+      buffer.position(0).limit(0);
+      return;
+    }
+    buffer.limit(limit);
+    bufferStart = start;
+    buffer.position(position - start);
+    readAhead = Math.min(readAhead * 2, pool.bufferSize());
+  }
+
+  private void read(final int start, final int readLength) throws IOException {
+    buffer.clear().limit(readLength);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, (long) start + buffer.position()) <= 0) {
+        // end of the file
+        break;
+      }
+    }
+    buffer.flip();
+  }
+
+  private void openChannel() throws IOException {
+    final boolean directIo = pool.isDirectIo();
+    channel = pool.open(file);
+    direct = directIo && pool.isDirectIo();
+  }
+}
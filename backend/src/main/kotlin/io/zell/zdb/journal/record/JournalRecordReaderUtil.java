@@ -20,9 +20,22 @@ public final class JournalRecordReaderUtil {
 
   private final JournalRecordSerializer serializer;
   private final ChecksumGenerator checksumGenerator = new ChecksumGenerator();
+  private final boolean verifyChecksum;
+  private final UnsafeBuffer bufferView = new UnsafeBuffer(0, 0);
 
   public JournalRecordReaderUtil(final JournalRecordSerializer serializer) {
+    this(serializer, true);
+  }
+
+  /**
+   * @param serializer the serializer to read the records with
+   * @param verifyChecksum whether the checksum of every record is verified on read, can be turned
+   *     off for trusted read paths where the checksum computation is the main cost
+   */
+  public JournalRecordReaderUtil(
+      final JournalRecordSerializer serializer, final boolean verifyChecksum) {
     this.serializer = serializer;
+    this.verifyChecksum = verifyChecksum;
   }
 
   /**
@@ -30,6 +43,19 @@ public final class JournalRecordReaderUtil {
    * position of {@code buffer} will be advanced to the next record.
    */
   public ReadOnlyJournalRecord read(final ByteBuffer buffer, final long expectedIndex) {
+    final var record = new MutableJournalRecord();
+    read(buffer, expectedIndex, record);
+    return record;
+  }
+
+  /**
+   * Reads the JournalRecord in the buffer at the current position into the given flyweight record,
+   * nothing is allocated or copied. The record points into the given buffer and is only valid
+   * until the next read. After the methods returns, the position of {@code buffer} will be advanced
+   * to the next record.
+   */
+  public void read(
+      final ByteBuffer buffer, final long expectedIndex, final MutableJournalRecord record) {
     // Mark the buffer so it can be reset if necessary.
     buffer.mark();
 
@@ -40,45 +66,46 @@ public final class JournalRecordReaderUtil {
     }
 
     final int startPosition = buffer.position();
+    if (bufferView.byteBuffer() != buffer) {
+      bufferView.wrap(buffer);
+    }
 
-    final UnsafeBuffer directBuffer = new UnsafeBuffer(buffer.slice());
-
-    final RecordMetadata metadata = serializer.readMetadata(directBuffer, 0);
-
-    final int metadataLength = serializer.getMetadataLength(directBuffer, 0);
-    final var recordLength = metadata.length();
-    if (buffer.position() + metadataLength + recordLength > buffer.limit()) {
+    final int recordLength = serializer.readMetadata(bufferView, startPosition, record);
+    final int metadataLength = serializer.getMetadataLength(bufferView, startPosition);
+    if (startPosition + metadataLength + recordLength > buffer.limit()) {
       // There is no valid record here. This should not happen, if we have magic headers before
       // each record.
       throw new CorruptedJournalException(
           String.format(
-              "Expected to read a record at position %d, with metadata %s, but reached the end of the segment.",
-              buffer.position(), metadata));
+              "Expected to read a record at position %d, with length %d, but reached the end of the segment.",
+              startPosition, recordLength));
     }
 
-    // verify checksum
-    final long checksum =
-        checksumGenerator.compute(buffer, startPosition + metadataLength, recordLength);
+    if (verifyChecksum) {
+      final long checksum =
+          checksumGenerator.compute(buffer, startPosition + metadataLength, recordLength);
 
-    if (checksum != metadata.checksum()) {
-      buffer.reset();
-      throw new CorruptedJournalException(
-          "Record's checksum (%d) doesn't match checksum stored in metadata (%d)."
-              .formatted(checksum, metadata.checksum()));
+      if (checksum != record.checksum()) {
+        buffer.reset();
+        throw new CorruptedJournalException(
+            "Record's checksum (%d) doesn't match checksum stored in metadata (%d)."
+                .formatted(checksum, record.checksum()));
+      }
     }
 
     // Read record
-    final RecordData record = serializer.readData(directBuffer, metadataLength);
+    serializer.readData(bufferView, startPosition + metadataLength, record);
 
-    if (record != null && expectedIndex != record.index()) {
+    if (expectedIndex != record.index()) {
       buffer.reset();
       throw new InvalidIndex(
           String.format(
               "Expected to read a record with next index %d, but found %d",
               expectedIndex, record.index()));
     }
+    record
+        .serializedRecordBuffer()
+        .wrap(bufferView, startPosition + metadataLength, recordLength);
     buffer.position(startPosition + metadataLength + recordLength);
-    return new PersistedJournalRecord(
-        metadata, record, new UnsafeBuffer(buffer, startPosition + metadataLength, recordLength));
   }
 }
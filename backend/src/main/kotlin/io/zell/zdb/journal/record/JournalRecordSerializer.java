@@ -37,6 +37,27 @@ public interface JournalRecordSerializer {
    */
   RecordData readData(DirectBuffer buffer, int offset);
 
+  /**
+   * Same as {@link #readMetadata(DirectBuffer, int)}, but reads the metadata into the given
+   * flyweight record instead of allocating.
+   *
+   * @param buffer to read
+   * @param offset the offset in the buffer at which the metadata will be read from
+   * @param record the record to read the checksum into
+   * @return the length of the record data, which follows the metadata
+   */
+  int readMetadata(DirectBuffer buffer, int offset, MutableJournalRecord record);
+
+  /**
+   * Same as {@link #readData(DirectBuffer, int)}, but reads the data into the given flyweight
+   * record instead of allocating. The data buffer of the record is wrapped, not copied.
+   *
+   * @param buffer to read
+   * @param offset the offset in the buffer at which the data will be read from
+   * @param record the record to read index, asqn and data into
+   */
+  void readData(DirectBuffer buffer, int offset, MutableJournalRecord record);
+
   /**
    * Returns the length of the serialized {@link RecordMetadata} in the buffer.
    *
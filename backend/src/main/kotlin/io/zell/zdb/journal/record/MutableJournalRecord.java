@@ -0,0 +1,94 @@
+/*
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.journal.record;
+
+import io.zell.zdb.journal.ReadOnlyJournalRecord;
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+/**
+ * Flyweight journal record, which is reused for every record a reader reads. The buffers point
+ * directly into the segment, nothing is copied. The record is only valid until the next record is
+ * read, it has to be copied if it should be kept.
+ */
+public final class MutableJournalRecord implements ReadOnlyJournalRecord {
+
+  private final UnsafeBuffer data = new UnsafeBuffer(0, 0);
+  private final UnsafeBuffer serializedRecord = new UnsafeBuffer(0, 0);
+  private long index;
+  private long asqn;
+  private long checksum;
+
+  @Override
+  public long index() {
+    return index;
+  }
+
+  @Override
+  public long asqn() {
+    return asqn;
+  }
+
+  @Override
+  public long checksum() {
+    return checksum;
+  }
+
+  @Override
+  public DirectBuffer data() {
+    return data;
+  }
+
+  @Override
+  public DirectBuffer serializedRecord() {
+    return serializedRecord;
+  }
+
+  /**
+   * Returns a copy of the record, which owns its bytes and stays valid after the next record is
+   * read.
+   */
+  public MutableJournalRecord copy() {
+    final var copy = new MutableJournalRecord();
+    final var bytes = new byte[serializedRecord.capacity()];
+    serializedRecord.getBytes(0, bytes);
+    copy.serializedRecord.wrap(bytes);
+    // the data is part of the serialized record
+    final int dataOffset = (int) (data.addressOffset() - serializedRecord.addressOffset());
+    copy.data.wrap(copy.serializedRecord, dataOffset, data.capacity());
+    copy.index = index;
+    copy.asqn = asqn;
+    copy.checksum = checksum;
+    return copy;
+  }
+
+  void setChecksum(final long checksum) {
+    this.checksum = checksum;
+  }
+
+  void setIndexAndAsqn(final long index, final long asqn) {
+    this.index = index;
+    this.asqn = asqn;
+  }
+
+  UnsafeBuffer dataBuffer() {
+    return data;
+  }
+
+  UnsafeBuffer serializedRecordBuffer() {
+    return serializedRecord;
+  }
+}
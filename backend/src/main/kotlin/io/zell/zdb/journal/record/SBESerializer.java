@@ -57,6 +57,40 @@ public final class SBESerializer implements JournalRecordSerializer {
     return new RecordData(recordDecoder.index(), recordDecoder.asqn(), data);
   }
 
+  @Override
+  public int readMetadata(
+      final DirectBuffer buffer, final int offset, final MutableJournalRecord record) {
+    if (!hasMetadata(buffer, offset)) {
+      throw new CorruptedJournalException("Cannot read metadata. Header does not match.");
+    }
+    metadataDecoder.wrap(
+        buffer,
+        offset + headerDecoder.encodedLength(),
+        headerDecoder.blockLength(),
+        headerDecoder.version());
+
+    record.setChecksum(metadataDecoder.checksum());
+    return metadataDecoder.length();
+  }
+
+  @Override
+  public void readData(
+      final DirectBuffer buffer, final int offset, final MutableJournalRecord record) {
+    headerDecoder.wrap(buffer, offset);
+    if (headerDecoder.schemaId() != recordDecoder.sbeSchemaId()
+        || headerDecoder.templateId() != recordDecoder.sbeTemplateId()) {
+      throw new CorruptedJournalException("Cannot read record. Header does not match.");
+    }
+    recordDecoder.wrap(
+        buffer,
+        offset + headerDecoder.encodedLength(),
+        headerDecoder.blockLength(),
+        headerDecoder.version());
+
+    recordDecoder.wrapData(record.dataBuffer());
+    record.setIndexAndAsqn(recordDecoder.index(), recordDecoder.asqn());
+  }
+
   @Override
   public int getMetadataLength(final DirectBuffer buffer, final int offset) {
     headerDecoder.wrap(buffer, offset);
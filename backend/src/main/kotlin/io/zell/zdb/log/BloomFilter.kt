@@ -0,0 +1,70 @@
+/*
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.log
+
+/**
+ * Bloom filter over long keys. A key which was added is always found, a key which was not added is
+ * found with a probability of about 1%.
+ */
+internal class BloomFilter(internal val bits: LongArray) {
+
+    private val bitCount = bits.size * Long.SIZE_BITS
+
+    fun put(key: Long) {
+        val hash = mix(key)
+        for (i in 0 until HASH_FUNCTIONS) {
+            val bit = bitOf(hash, i)
+            bits[bit ushr 6] = bits[bit ushr 6] or (1L shl bit)
+        }
+    }
+
+    fun mightContain(key: Long): Boolean {
+        val hash = mix(key)
+        for (i in 0 until HASH_FUNCTIONS) {
+            val bit = bitOf(hash, i)
+            if ((bits[bit ushr 6] and (1L shl bit)) == 0L) {
+                return false
+            }
+        }
+        return true
+    }
+
+    /** Derives the hash functions from the two halves of a single hash, see Kirsch and Mitzenmacher. */
+    private fun bitOf(hash: Long, function: Int): Int {
+        val combined = hash.toInt() + function * (hash ushr 32).toInt()
+        return (combined and Int.MAX_VALUE) % bitCount
+    }
+
+    companion object {
+        private const val BITS_PER_KEY = 10
+        private const val HASH_FUNCTIONS = 7
+
+        fun create(expectedKeys: Int): BloomFilter {
+            val words = (expectedKeys.toLong() * BITS_PER_KEY + Long.SIZE_BITS - 1) / Long.SIZE_BITS
+            return BloomFilter(LongArray(words.coerceIn(1, Int.MAX_VALUE.toLong()).toInt()))
+        }
+
+        /** Finalizer of MurmurHash3, spreads the bits of keys which only differ in a few bits. */
+        private fun mix(key: Long): Long {
+            var hash = key
+            hash = hash xor (hash ushr 33)
+            hash *= -49064778989728563L // 0xff51afd7ed558ccd
+            hash = hash xor (hash ushr 33)
+            hash *= -4265267296055464877L // 0xc4ceb9fe1a85ec53
+            return hash xor (hash ushr 33)
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.log
+
+import org.agrona.DirectBuffer
+import java.io.Flushable
+import java.nio.ByteBuffer
+import java.nio.channels.WritableByteChannel
+
+/**
+ * Reusable byte buffer, which is flushed to the given channel whenever it is full. Provides the
+ * encoding of numbers and strings for the writers of the log, without creating intermediate
+ * strings or byte arrays.
+ */
+internal class ChannelOutput(private val channel: WritableByteChannel, bufferSize: Int) : Flushable {
+
+    companion object {
+        private val HEX_DIGITS = "0123456789abcdef".toByteArray()
+        private val MIN_LONG = Long.MIN_VALUE.toString().toByteArray()
+    }
+
+    private val buffer = ByteBuffer.allocateDirect(bufferSize)
+    private val digits = ByteArray(20)
+
+    /**
+     * Writes the buffered bytes to the channel.
+     */
+    override fun flush() {
+        buffer.flip()
+        while (buffer.hasRemaining()) {
+            channel.write(buffer)
+        }
+        buffer.clear()
+    }
+
+    fun writeAscii(text: String) {
+        for (char in text) {
+            writeByte(char.code)
+        }
+    }
+
+    fun writeJsonString(text: String) {
+        writeByte('"'.code)
+        writeUtf8(text, true)
+        writeByte('"'.code)
+    }
+
+    /**
+     * Encodes the given text as UTF-8, if escaped the text is written as content of a JSON string.
+     */
+    fun writeUtf8(text: String, escape: Boolean) {
+        var i = 0
+        while (i < text.length) {
+            val char = text[i]
+            val code = char.code
+            when {
+                escape && (code < 0x20 || char == '"' || char == '\\') -> writeEscaped(char)
+                code < 0x80 -> writeByte(code)
+                code < 0x800 -> {
+                    writeByte(0xC0 or (code shr 6))
+                    writeByte(0x80 or (code and 0x3F))
+                }
+                Character.isHighSurrogate(char) && i + 1 < text.length && Character.isLowSurrogate(text[i + 1]) -> {
+                    val codePoint = Character.toCodePoint(char, text[i + 1])
+                    writeByte(0xF0 or (codePoint shr 18))
+                    writeByte(0x80 or ((codePoint shr 12) and 0x3F))
+                    writeByte(0x80 or ((codePoint shr 6) and 0x3F))
+                    writeByte(0x80 or (codePoint and 0x3F))
+                    i++
+                }
+                // like the UTF-8 encoder, malformed surrogates are replaced
+                Character.isSurrogate(char) -> writeByte('?'.code)
+                else -> {
+                    writeByte(0xE0 or (code shr 12))
+                    writeByte(0x80 or ((code shr 6) and 0x3F))
+                    writeByte(0x80 or (code and 0x3F))
+                }
+            }
+            i++
+        }
+    }
+
+    private fun writeEscaped(char: Char) {
+        writeByte('\\'.code)
+        when (char) {
+            '"', '\\' -> writeByte(char.code)
+            '\b' -> writeByte('b'.code)
+            '\t' -> writeByte('t'.code)
+            '\n' -> writeByte('n'.code)
+            '\u000C' -> writeByte('f'.code)
+            '\r' -> writeByte('r'.code)
+            else -> {
+                writeAscii("u00")
+                writeByte(HEX_DIGITS[char.code shr 4].toInt())
+                writeByte(HEX_DIGITS[char.code and 0xF].toInt())
+            }
+        }
+    }
+
+    fun writeBytes(source: DirectBuffer, offset: Int, length: Int) {
+        var written = 0
+        while (written < length) {
+            if (!buffer.hasRemaining()) {
+                flush()
+            }
+            val chunk = minOf(buffer.remaining(), length - written)
+            source.getBytes(offset + written, buffer, buffer.position(), chunk)
+            buffer.position(buffer.position() + chunk)
+            written += chunk
+        }
+    }
+
+    fun writeLong(value: Long) {
+        if (value == Long.MIN_VALUE) {
+            MIN_LONG.forEach { writeByte(it.toInt()) }
+            return
+        }
+        if (value < 0) {
+            writeByte('-'.code)
+        }
+        var remaining = Math.abs(value)
+        var length = 0
+        do {
+            digits[length++] = ('0'.code + (remaining % 10).toInt()).toByte()
+            remaining /= 10
+        } while (remaining > 0)
+        while (length > 0) {
+            writeByte(digits[--length].toInt())
+        }
+    }
+
+    fun writeByte(value: Int) {
+        if (!buffer.hasRemaining()) {
+            flush()
+        }
+        buffer.put(value.toByte())
+    }
+}
@@ -0,0 +1,581 @@
+/*
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.log
+
+import io.camunda.zeebe.msgpack.spec.MsgPackToken
+import io.camunda.zeebe.msgpack.spec.MsgPackType
+import io.camunda.zeebe.protocol.record.RecordType
+import io.camunda.zeebe.protocol.record.RejectionType
+import io.camunda.zeebe.protocol.record.ValueType
+import io.camunda.zeebe.protocol.record.intent.Intent
+import io.zell.zdb.log.RecordProjection.Metadata
+import io.zell.zdb.log.records.RecordView
+import org.agrona.DirectBuffer
+import org.agrona.collections.IntHashSet
+import java.time.Instant
+import java.time.format.DateTimeParseException
+
+/**
+ * Compiles filter expressions into a [RecordFilter], e.g.
+ *
+ * ```
+ * valueType == JOB && intent in (TIMED_OUT, FAILED) && value.type == "payment" && timestamp > "2024-05-01T10:00:00Z"
+ * ```
+ *
+ * A comparison consists of a field, an operator (`==`, `!=`, `>`, `>=`, `<`, `<=` or `in`) and a
+ * literal (number, quoted string, name or `true`/`false`/`null`). Comparisons can be combined with
+ * `&&`, `||`, `!` and parentheses. Metadata fields are named like in the JSON format, every other
+ * field, optionally prefixed with `value.`, is a path into the record value, nested properties are
+ * separated by dots. Timestamps can be compared with ISO-8601 instants.
+ *
+ * The expression is compiled once: names are resolved to enum constants and the operands of `&&`
+ * and `||` are ordered, such that the header fields of a record are checked before its metadata,
+ * which is checked before any value path. Intents are resolved against the value types they are
+ * combined with via `&&`, or against all value types, so unknown intents are rejected as well. Value
+ * paths are evaluated on the MsgPack encoded value, nothing is converted to JSON. Comparisons of
+ * positions, timestamps, keys, record types, value types and intents are also used to skip
+ * segments via their summary.
+ */
+class FilterExpression private constructor(private val expression: String) {
+
+    companion object {
+        private val OPERATORS = listOf("&&", "||", "==", "!=", ">=", "<=", ">", "<", "!", "(", ")", ",")
+        private const val VALUE_PREFIX = "value."
+
+        /** The intents of every value type, read from the intent enum of the value type. */
+        private val INTENTS: Map<ValueType, List<Intent>> = ValueType.values().associateWith { intentsOf(it) }
+
+        /**
+         * Compiles the given expression, throws an [IllegalArgumentException] which points to the
+         * invalid part if the expression can't be parsed.
+         */
+        fun compile(expression: String): RecordFilter {
+            return FilterExpression(expression).parse()
+        }
+
+        private fun intentsOf(valueType: ValueType): List<Intent> {
+            // fails for value types which have no intents
+            val intent = runCatching { Intent.fromProtocolValue(valueType, 0) }.getOrNull()
+            if (intent == null || intent == Intent.UNKNOWN) {
+                return emptyList()
+            }
+            // constants with a body are subclasses of their enum
+            val type = if (intent.javaClass.isEnum) intent.javaClass else intent.javaClass.superclass
+            return type?.enumConstants?.filterIsInstance<Intent>() ?: emptyList()
+        }
+    }
+
+    private enum class TokenType { NAME, NUMBER, STRING, SYMBOL }
+
+    private class Token(val type: TokenType, val text: String, val position: Int)
+
+    private val tokens = tokenize()
+    private var next = 0
+
+    private fun parse(): RecordFilter {
+        if (tokens.isEmpty()) {
+            throw error("Expected a comparison", 0)
+        }
+        val predicate = parseOr()
+        if (next < tokens.size) {
+            throw error("Unexpected '${tokens[next].text}'", tokens[next].position)
+        }
+        resolveIntents(predicate, INTENTS.keys)
+        return predicate
+    }
+
+    /**
+     * Resolves the intents of all intent comparisons, against the value types which are required by
+     * the surrounding `&&`, such that `valueType == JOB && intent == CREATED` only matches jobs.
+     */
+    private fun resolveIntents(predicate: Predicate, valueTypes: Set<ValueType>) {
+        when (predicate) {
+            is And -> {
+                val required = predicate.operands
+                    .filterIsInstance<EnumComparison>()
+                    .filter { it.field == Metadata.VALUE_TYPE && !it.negated }
+                    .flatMap { it.values }
+                    .filterIsInstance<ValueType>()
+                val scope = if (required.isEmpty()) valueTypes else valueTypes.intersect(required.toSet())
+                predicate.operands.forEach { resolveIntents(it, scope) }
+            }
+            is Or -> predicate.operands.forEach { resolveIntents(it, valueTypes) }
+            is Not -> resolveIntents(predicate.operand, valueTypes)
+            is IntentComparison -> predicate.resolve(predicate.literals.flatMap { resolveIntent(it, valueTypes) })
+            else -> {}
+        }
+    }
+
+    private fun resolveIntent(literal: Token, valueTypes: Set<ValueType>): List<Pair<ValueType, Intent>> {
+        val intents = valueTypes.mapNotNull { valueType ->
+            INTENTS.getValue(valueType).firstOrNull { it.name() == literal.text }?.let { valueType to it }
+        }
+        if (intents.isEmpty()) {
+            val scope = if (valueTypes.size == INTENTS.size) "any value type" else valueTypes.sorted().joinToString()
+            throw error("Unknown intent '${literal.text}' of $scope", literal.position)
+        }
+        return intents
+    }
+
+    private fun parseOr(): Predicate {
+        val operands = mutableListOf(parseAnd())
+        while (accept("||")) {
+            operands.add(parseAnd())
+        }
+        return if (operands.size == 1) operands[0] else Or(operands.sortedBy { it.cost })
+    }
+
+    private fun parseAnd(): Predicate {
+        val operands = mutableListOf(parseUnary())
+        while (accept("&&")) {
+            operands.add(parseUnary())
+        }
+        return if (operands.size == 1) operands[0] else And(operands.sortedBy { it.cost })
+    }
+
+    private fun parseUnary(): Predicate {
+        if (accept("!")) {
+            return Not(parseUnary())
+        }
+        if (accept("(")) {
+            val predicate = parseOr()
+            expect(")")
+            return predicate
+        }
+        return parseComparison()
+    }
+
+    private fun parseComparison(): Predicate {
+        val field = nextToken("a field")
+        if (field.type != TokenType.NAME) {
+            throw error("Expected a field, but got '${field.text}'", field.position)
+        }
+
+        val operatorToken = nextToken("an operator")
+        val operator = Operator.values().firstOrNull { it.symbol == operatorToken.text }
+            ?: throw error("Expected an operator, but got '${operatorToken.text}'", operatorToken.position)
+        val literals = mutableListOf<Token>()
+        if (operator == Operator.IN) {
+            expect("(")
+            do {
+                literals.add(nextLiteral())
+            } while (accept(","))
+            expect(")")
+        } else {
+            literals.add(nextLiteral())
+        }
+        return comparison(field, operator, literals)
+    }
+
+    private fun comparison(field: Token, operator: Operator, literals: List<Token>): Predicate {
+        val name = field.text
+        val metadata = if (name.startsWith(VALUE_PREFIX)) null else Metadata.values().firstOrNull { it.fieldName == name }
+        if (metadata == null) {
+            val path = name.removePrefix(VALUE_PREFIX).split('.').map { it.toByteArray() }
+            return ValueComparison(path, operator, literals.map { Literal(it) })
+        }
+
+        return when (metadata) {
+            Metadata.INDEX, Metadata.TERM ->
+                throw error("'$name' can't be filtered, it is not part of the records", field.position)
+            Metadata.POSITION, Metadata.SOURCE_RECORD_POSITION, Metadata.TIMESTAMP, Metadata.KEY,
+            Metadata.REQUEST_ID, Metadata.REQUEST_STREAM_ID, Metadata.PROTOCOL_VERSION, Metadata.RECORD_VERSION ->
+                LongComparison(metadata, operator, literals.map { toLong(metadata, it) }.toLongArray())
+            Metadata.RECORD_TYPE ->
+                EnumComparison(metadata, equality(field, operator), literals.map { toEnum<RecordType>(it) })
+            Metadata.VALUE_TYPE ->
+                EnumComparison(metadata, equality(field, operator), literals.map { toEnum<ValueType>(it) })
+            Metadata.REJECTION_TYPE ->
+                EnumComparison(metadata, equality(field, operator), literals.map { toEnum<RejectionType>(it) })
+            Metadata.INTENT -> IntentComparison(equality(field, operator), literals)
+            Metadata.REJECTION_REASON, Metadata.BROKER_VERSION, Metadata.AUTH_DATA ->
+                StringComparison(metadata, equality(field, operator), literals.map { it.text }.toSet())
+        }
+    }
+
+    /**
+     * Returns whether the comparison is negated, names and strings can only be checked for equality.
+     */
+    private fun equality(field: Token, operator: Operator): Boolean {
+        return when (operator) {
+            Operator.EQUALS, Operator.IN -> false
+            Operator.NOT_EQUALS -> true
+            else -> throw error("'${field.text}' can only be compared with ==, != or in", field.position)
+        }
+    }
+
+    private fun toLong(field: Metadata, literal: Token): Long {
+        if (literal.type == TokenType.NUMBER) {
+            return literal.text.toLongOrNull() ?: throw error("Expected an integer, but got '${literal.text}'", literal.position)
+        }
+        if (field == Metadata.TIMESTAMP && literal.type == TokenType.STRING) {
+            try {
+                return Instant.parse(literal.text).toEpochMilli()
+            } catch (e: DateTimeParseException) {
+                throw error("Expected an ISO-8601 instant, but got '${literal.text}'", literal.position)
+            }
+        }
+        throw error("Expected a number for '${field.fieldName}', but got '${literal.text}'", literal.position)
+    }
+
+    private inline fun <reified T : Enum<T>> toEnum(literal: Token): T {
+        return enumValues<T>().firstOrNull { it.name == literal.text }
+            ?: throw error("Unknown ${T::class.java.simpleName} '${literal.text}'", literal.position)
+    }
+
+    private fun accept(symbol: String): Boolean {
+        if (next < tokens.size && tokens[next].type == TokenType.SYMBOL && tokens[next].text == symbol) {
+            next++
+            return true
+        }
+        return false
+    }
+
+    private fun expect(symbol: String) {
+        val token = nextToken("'$symbol'")
+        if (token.type != TokenType.SYMBOL || token.text != symbol) {
+            throw error("Expected '$symbol', but got '${token.text}'", token.position)
+        }
+    }
+
+    private fun nextLiteral(): Token {
+        val token = nextToken("a value")
+        if (token.type == TokenType.SYMBOL) {
+            throw error("Expected a value, but got '${token.text}'", token.position)
+        }
+        return token
+    }
+
+    private fun nextToken(expected: String): Token {
+        if (next >= tokens.size) {
+            throw error("Expected $expected at the end", expression.length)
+        }
+        return tokens[next++]
+    }
+
+    private fun tokenize(): List<Token> {
+        val tokens = mutableListOf<Token>()
+        var i = 0
+        while (i < expression.length) {
+            val char = expression[i]
+            val start = i
+            when {
+                char.isWhitespace() -> i++
+                char.isLetter() || char == '_' -> {
+                    while (i < expression.length && (expression[i].isLetterOrDigit() || expression[i] in "_.")) {
+                        i++
+                    }
+                    val name = expression.substring(start, i)
+                    // `in` is the only operator which is a word
+                    tokens.add(Token(if (name == Operator.IN.symbol) TokenType.SYMBOL else TokenType.NAME, name, start))
+                }
+                char.isDigit() || (char == '-' && i + 1 < expression.length && expression[i + 1].isDigit()) -> {
+                    i++
+                    while (i < expression.length && (expression[i].isDigit() || expression[i] == '.')) {
+                        i++
+                    }
+                    tokens.add(Token(TokenType.NUMBER, expression.substring(start, i), start))
+                }
+                char == '"' -> {
+                    val text = StringBuilder()
+                    i++
+                    while (i < expression.length && expression[i] != '"') {
+                        if (expression[i] == '\\' && i + 1 < expression.length) {
+                            i++
+                        }
+                        text.append(expression[i])
+                        i++
+                    }
+                    if (i >= expression.length) {
+                        throw error("Unterminated string", start)
+                    }
+                    i++
+                    tokens.add(Token(TokenType.STRING, text.toString(), start))
+                }
+                else -> {
+                    val symbol = OPERATORS.firstOrNull { expression.startsWith(it, i) }
+                        ?: throw error("Unexpected character '$char'", i)
+                    tokens.add(Token(TokenType.SYMBOL, symbol, start))
+                    i += symbol.length
+                }
+            }
+        }
+        return tokens
+    }
+
+    private fun error(message: String, position: Int): IllegalArgumentException {
+        return IllegalArgumentException("Invalid filter expression '$expression' at position $position: $message")
+    }
+
+    private enum class Operator(val symbol: String) {
+        EQUALS("=="),
+        NOT_EQUALS("!="),
+        GREATER(">"),
+        GREATER_OR_EQUAL(">="),
+        LESS("<"),
+        LESS_OR_EQUAL("<="),
+        IN("in");
+
+        /**
+         * Returns whether the result of comparing the actual with the expected value matches.
+         */
+        fun matches(comparison: Int): Boolean {
+            return when (this) {
+                EQUALS, IN -> comparison == 0
+                NOT_EQUALS -> comparison != 0
+                GREATER -> comparison > 0
+                GREATER_OR_EQUAL -> comparison >= 0
+                LESS -> comparison < 0
+                LESS_OR_EQUAL -> comparison <= 0
+            }
+        }
+
+        /**
+         * Returns whether any value of the given range might match the expected value.
+         */
+        fun mightMatch(min: Long, max: Long, expected: Long): Boolean {
+            if (min > max) {
+                // no records at all
+                return false
+            }
+            return when (this) {
+                EQUALS, IN -> expected in min..max
+                NOT_EQUALS -> min != max || min != expected
+                GREATER -> max > expected
+                GREATER_OR_EQUAL -> max >= expected
+                LESS -> min < expected
+                LESS_OR_EQUAL -> min <= expected
+            }
+        }
+    }
+
+    /**
+     * Compiled part of the expression, the cost defines in which order operands are evaluated.
+     */
+    private abstract class Predicate : RecordFilter {
+        abstract val cost: Int
+    }
+
+    private class And(val operands: List<Predicate>) : Predicate() {
+        override val cost = operands.maxOf { it.cost }
+        override fun test(record: RecordView) = operands.all { it.test(record) }
+        override fun mightMatch(summary: SegmentSummary) = operands.all { it.mightMatch(summary) }
+    }
+
+    private class Or(val operands: List<Predicate>) : Predicate() {
+        override val cost = operands.maxOf { it.cost }
+        override fun test(record: RecordView) = operands.any { it.test(record) }
+        override fun mightMatch(summary: SegmentSummary) = operands.any { it.mightMatch(summary) }
+    }
+
+    private class Not(val operand: Predicate) : Predicate() {
+        override val cost = operand.cost
+        override fun test(record: RecordView) = !operand.test(record)
+        // the summary can only tell which records might exist, not which are missing
+    }
+
+    private class LongComparison(
+        private val field: Metadata,
+        private val operator: Operator,
+        private val values: LongArray
+    ) : Predicate() {
+
+        // position, timestamp and key are part of the header, everything else needs the metadata
+        override val cost = when (field) {
+            Metadata.POSITION, Metadata.SOURCE_RECORD_POSITION, Metadata.TIMESTAMP, Metadata.KEY -> 0
+            else -> 1
+        }
+
+        override fun test(record: RecordView): Boolean {
+            val actual = when (field) {
+                Metadata.POSITION -> record.position
+                Metadata.SOURCE_RECORD_POSITION -> record.sourceRecordPosition
+                Metadata.TIMESTAMP -> record.timestamp
+                Metadata.KEY -> record.key
+                Metadata.REQUEST_ID -> record.requestId
+                Metadata.REQUEST_STREAM_ID -> record.requestStreamId.toLong()
+                Metadata.PROTOCOL_VERSION -> record.protocolVersion.toLong()
+                else -> record.recordVersion.toLong()
+            }
+            return values.any { operator.matches(actual.compareTo(it)) }
+        }
+
+        override fun mightMatch(summary: SegmentSummary): Boolean {
+            return when (field) {
+                Metadata.POSITION -> values.any { operator.mightMatch(summary.minPosition, summary.maxPosition, it) }
+                Metadata.TIMESTAMP -> values.any { operator.mightMatch(summary.minTimestamp, summary.maxTimestamp, it) }
+                Metadata.KEY -> (operator != Operator.EQUALS && operator != Operator.IN) ||
+                    values.any { summary.mightContainKey(it) }
+                else -> true
+            }
+        }
+    }
+
+    private class EnumComparison(
+        val field: Metadata,
+        val negated: Boolean,
+        val values: List<Enum<*>>
+    ) : Predicate() {
+
+        override val cost = 1
+
+        override fun test(record: RecordView): Boolean {
+            val actual = when (field) {
+                Metadata.RECORD_TYPE -> record.recordType
+                Metadata.VALUE_TYPE -> record.valueType
+                else -> record.rejectionType
+            }
+            return values.contains(actual) != negated
+        }
+
+        override fun mightMatch(summary: SegmentSummary): Boolean {
+            if (negated) {
+                return true
+            }
+            return when (field) {
+                Metadata.RECORD_TYPE -> values.any { summary.containsRecordType(it as RecordType) }
+                Metadata.VALUE_TYPE -> values.any { summary.containsValueType(it as ValueType) }
+                else -> true
+            }
+        }
+    }
+
+    private class StringComparison(
+        private val field: Metadata,
+        private val negated: Boolean,
+        private val values: Set<String>
+    ) : Predicate() {
+
+        override val cost = 1
+
+        override fun test(record: RecordView): Boolean {
+            val actual = when (field) {
+                Metadata.REJECTION_REASON -> record.rejectionReason
+                Metadata.BROKER_VERSION -> record.brokerVersion
+                else -> record.authData
+            }
+            return values.contains(actual) != negated
+        }
+    }
+
+    /**
+     * Compares the intent of records by its protocol value, the names are resolved after parsing,
+     * when the value types of the expression are known.
+     */
+    private class IntentComparison(val negated: Boolean, val literals: List<Token>) : Predicate() {
+
+        override val cost = 1
+
+        private var intents: List<Pair<ValueType, Intent>> = emptyList()
+        private val keys = IntHashSet()
+
+        fun resolve(intents: List<Pair<ValueType, Intent>>) {
+            this.intents = intents
+            intents.forEach { (valueType, intent) -> keys.add(key(valueType, intent)) }
+        }
+
+        override fun test(record: RecordView): Boolean {
+            return keys.contains(key(record.valueType, record.intent)) != negated
+        }
+
+        override fun mightMatch(summary: SegmentSummary): Boolean {
+            if (negated) {
+                return true
+            }
+            return intents.any { (valueType, intent) -> summary.containsIntent(valueType, intent) }
+        }
+
+        private fun key(valueType: ValueType, intent: Intent): Int {
+            return (valueType.value().toInt() shl 16) or (intent.value().toInt() and 0xFFFF)
+        }
+    }
+
+    /**
+     * Literal which is compared with a property of the record value, the type is only known when
+     * the MsgPack token is read.
+     */
+    private class Literal(token: Token) {
+        val isNull = token.type == TokenType.NAME && token.text == "null"
+        val boolean = if (token.type == TokenType.NAME) token.text.toBooleanStrictOrNull() else null
+        val long = if (token.type == TokenType.NUMBER) token.text.toLongOrNull() else null
+        val double = if (token.type == TokenType.NUMBER) token.text.toDoubleOrNull() else null
+        // names which are no keywords are compared as strings, e.g. enum values like SERVICE_TASK
+        val string = if (token.type == TokenType.STRING || (token.type == TokenType.NAME && !isNull && boolean == null)) {
+            token.text.toByteArray()
+        } else {
+            null
+        }
+
+        /**
+         * Compares the given token with this literal, returns null if they are not comparable.
+         */
+        fun compare(token: MsgPackToken?): Int? {
+            if (token == null || token.type == MsgPackType.NIL) {
+                return if (isNull) 0 else null
+            }
+            return when (token.type) {
+                MsgPackType.BOOLEAN -> boolean?.let { token.booleanValue.compareTo(it) }
+                MsgPackType.INTEGER -> long?.let { token.integerValue.compareTo(it) }
+                    ?: double?.let { token.integerValue.toDouble().compareTo(it) }
+                MsgPackType.FLOAT -> double?.let { token.floatValue.compareTo(it) }
+                MsgPackType.STRING -> string?.let { compareBytes(token.valueBuffer, it) }
+                else -> null
+            }
+        }
+
+        private fun compareBytes(actual: DirectBuffer, expected: ByteArray): Int {
+            val length = minOf(actual.capacity(), expected.size)
+            for (i in 0 until length) {
+                val comparison = (actual.getByte(i).toInt() and 0xFF).compareTo(expected[i].toInt() and 0xFF)
+                if (comparison != 0) {
+                    return comparison
+                }
+            }
+            return actual.capacity().compareTo(expected.size)
+        }
+    }
+
+    private class ValueComparison(
+        private val path: List<ByteArray>,
+        private val operator: Operator,
+        private val literals: List<Literal>
+    ) : Predicate() {
+
+        override val cost = 2
+
+        override fun test(record: RecordView): Boolean {
+            val token = record.readValue(path)
+            return literals.any {
+                val comparison = it.compare(token)
+                // values of different types are never equal
+                if (comparison == null) operator == Operator.NOT_EQUALS else operator.matches(comparison)
+            }
+        }
+
+        override fun mightMatch(summary: SegmentSummary): Boolean {
+            // the summary contains the process instance keys of all records
+            val isInstanceKey = path.size == 1 && path[0].contentEquals(PROCESS_INSTANCE_KEY)
+            if (!isInstanceKey || (operator != Operator.EQUALS && operator != Operator.IN)) {
+                return true
+            }
+            return literals.any { literal -> literal.long == null || summary.mightContainKey(literal.long) }
+        }
+
+        companion object {
+            private val PROCESS_INSTANCE_KEY = "processInstanceKey".toByteArray()
+        }
+    }
+}
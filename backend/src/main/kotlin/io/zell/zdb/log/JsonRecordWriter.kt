@@ -0,0 +1,160 @@
+/*
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.log
+
+import io.camunda.zeebe.protocol.record.RejectionType
+import io.zell.zdb.MsgPackJsonTranscoder
+import io.zell.zdb.log.records.ApplicationRecord
+import io.zell.zdb.log.records.PersistedRecord
+import io.zell.zdb.log.records.RaftRecord
+import io.zell.zdb.log.records.RecordView
+import org.agrona.ExpandableArrayBuffer
+import java.io.Flushable
+import java.nio.channels.WritableByteChannel
+
+/**
+ * Writes records as JSON directly into a reusable byte buffer, which is flushed to the given
+ * channel whenever it is full. The output is the same as the one of [PersistedRecord.toString],
+ * but the records are written from their [RecordView]s, without materializing them or building
+ * intermediate strings. The record values are transcoded from MsgPack via [MsgPackJsonTranscoder],
+ * the only difference is that control characters in values are escaped with upper case hex digits.
+ *
+ * The writer is not thread safe and doesn't close the channel.
+ */
+class JsonRecordWriter @JvmOverloads constructor(
+    channel: WritableByteChannel,
+    bufferSize: Int = DEFAULT_BUFFER_SIZE
+) : Flushable {
+
+    companion object {
+        const val DEFAULT_BUFFER_SIZE = 1024 * 1024
+    }
+
+    private val output = ChannelOutput(channel, bufferSize)
+    private val view = RecordView()
+    private val transcoder = MsgPackJsonTranscoder()
+    private val valueJson = ExpandableArrayBuffer()
+
+    fun write(record: PersistedRecord) {
+        when (record) {
+            is ApplicationRecord -> writeApplicationRecord(record)
+            is RaftRecord -> writeRaftRecord(record)
+            else -> output.writeUtf8(record.toString(), false)
+        }
+    }
+
+    /**
+     * Writes the given ASCII text as it is, e.g. to separate records.
+     */
+    fun writeAscii(text: String) {
+        output.writeAscii(text)
+    }
+
+    /**
+     * Writes the buffered bytes to the channel.
+     */
+    override fun flush() {
+        output.flush()
+    }
+
+    private fun writeRaftRecord(record: RaftRecord) {
+        output.writeAscii("{\"index\":")
+        output.writeLong(record.index)
+        output.writeAscii(",\"term\":")
+        output.writeLong(record.term)
+        output.writeByte('}'.code)
+    }
+
+    private fun writeApplicationRecord(record: ApplicationRecord) {
+        output.writeAscii("{\"index\":")
+        output.writeLong(record.index)
+        output.writeAscii(", \"term\":")
+        output.writeLong(record.term)
+        output.writeAscii(",\"highestPosition\":")
+        output.writeLong(record.highestPosition)
+        output.writeAscii(",\"lowestPosition\":")
+        output.writeLong(record.lowestPosition)
+        output.writeAscii(",\"entries\":[")
+        var first = true
+        record.forEachRecordView(view) {
+            if (!first) {
+                output.writeAscii(", ")
+            }
+            writeRecord(it)
+            first = false
+        }
+        output.writeAscii("]}")
+    }
+
+    private fun writeRecord(record: RecordView) {
+        // same fields and order as the serialized Record, properties which have their default
+        // value are omitted
+        output.writeAscii("{\"position\":")
+        output.writeLong(record.position)
+        output.writeAscii(",\"sourceRecordPosition\":")
+        output.writeLong(record.sourceRecordPosition)
+        output.writeAscii(",\"timestamp\":")
+        output.writeLong(record.timestamp)
+        output.writeAscii(",\"key\":")
+        output.writeLong(record.key)
+        output.writeAscii(",\"recordType\":")
+        output.writeJsonString(record.recordType.name)
+        output.writeAscii(",\"valueType\":")
+        output.writeJsonString(record.valueType.name)
+        output.writeAscii(",\"intent\":")
+        output.writeJsonString(record.intent.name())
+
+        val rejectionType = record.rejectionType
+        if (rejectionType != RejectionType.NULL_VAL) {
+            output.writeAscii(",\"rejectionType\":")
+            output.writeJsonString(rejectionType.name)
+        }
+        val rejectionReason = record.rejectionReason
+        if (rejectionReason.isNotEmpty()) {
+            output.writeAscii(",\"rejectionReason\":")
+            output.writeJsonString(rejectionReason)
+        }
+        val requestId = record.requestId
+        if (requestId != 0L) {
+            output.writeAscii(",\"requestId\":")
+            output.writeLong(requestId)
+        }
+        val requestStreamId = record.requestStreamId
+        if (requestStreamId != 0) {
+            output.writeAscii(",\"requestStreamId\":")
+            output.writeLong(requestStreamId.toLong())
+        }
+        output.writeAscii(",\"protocolVersion\":")
+        output.writeLong(record.protocolVersion.toLong())
+        output.writeAscii(",\"brokerVersion\":")
+        output.writeJsonString(record.brokerVersion)
+        val recordVersion = record.recordVersion
+        if (recordVersion != 0) {
+            output.writeAscii(",\"recordVersion\":")
+            output.writeLong(recordVersion.toLong())
+        }
+        val authData = record.authData
+        if (authData.isNotEmpty()) {
+            output.writeAscii(",\"authData\":")
+            output.writeJsonString(authData)
+        }
+
+        output.writeAscii(",\"recordValue\":")
+        val length = transcoder.transcode(record.valueBuffer, record.valueOffset, record.valueLength, valueJson, 0)
+        output.writeBytes(valueJson, 0, length)
+        output.writeByte('}'.code)
+    }
+}
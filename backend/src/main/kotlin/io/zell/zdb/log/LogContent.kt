@@ -18,7 +18,7 @@ package io.zell.zdb.log
 import io.camunda.zeebe.protocol.record.ValueType
 import io.zell.zdb.log.records.ApplicationRecord
 import io.zell.zdb.log.records.PersistedRecord
-import io.zell.zdb.log.records.Record
+import io.zell.zdb.log.records.RecordView
 
 class LogContent {
     val records = mutableListOf<PersistedRecord>()
@@ -28,61 +28,69 @@ class LogContent {
     }
 
     fun asDotFile(): String {
-        val content = StringBuilder("digraph log {")
-            .append(System.lineSeparator())
-            .append("rankdir=\"RL\"")
-            .append(";")
-            .append(System.lineSeparator())
-
+        val content = StringBuilder()
+        appendDotHeader(content)
+        val view = RecordView()
         records
             .filterIsInstance<ApplicationRecord>()
-            .flatMap { it.entries }
-            .forEach{
-                addEventAsDotNode(it, content)
+            .forEach { record ->
+                record.forEachRecordView(view) { appendDotNode(it, content) }
             }
-        content.append(System.lineSeparator())
-            .append("}")
+        appendDotFooter(content)
         return content.toString()
     }
 
-    private fun addEventAsDotNode(
-        entry: Record,
-        content: java.lang.StringBuilder
-    ) {
-        content.append(entry.position)
-            .append(" [label=\"")
-            .append("\\n").append(entry.recordType)
-            .append("\\n").append(entry.valueType.name)
-            .append("\\n").append(entry.intent.name())
+    companion object {
+        fun appendDotHeader(content: Appendable) {
+            content.append("digraph log {")
+                .append(System.lineSeparator())
+                .append("rankdir=\"RL\"")
+                .append(";")
+                .append(System.lineSeparator())
+        }
+
+        fun appendDotFooter(content: Appendable) {
+            content.append(System.lineSeparator())
+                .append("}")
+        }
+
+        /**
+         * Appends the given record as DOT node, together with an edge to its source record. Only
+         * the metadata and a few value properties are read, the value is not converted to JSON.
+         */
+        fun appendDotNode(entry: RecordView, content: Appendable) {
+            content.append(entry.position.toString())
+                .append(" [label=\"")
+                .append("\\n").append(entry.recordType.name)
+                .append("\\n").append(entry.valueType.name)
+                .append("\\n").append(entry.intent.name())
 
-        if (entry.valueType == ValueType.PROCESS_INSTANCE) {
-            val piRelatedValue = entry.piRelatedValue
-            piRelatedValue?.let {
-                piRelatedValue.bpmnElementType?.let {
-                    content.append("\\n").append(it)
+            if (entry.valueType == ValueType.PROCESS_INSTANCE) {
+                entry.bpmnElementType?.let {
+                    content.append("\\n").append(it.name)
                 }
 
-                piRelatedValue.processInstanceKey?.let {
-                    content.append("\\nPI Key: ").append(it)
+                entry.processInstanceKey?.let {
+                    content.append("\\nPI Key: ").append(it.toString())
                 }
 
-                piRelatedValue.processDefinitionKey?.let {
-                    content.append("\\nPD Key: ").append(it)
+                entry.processDefinitionKey?.let {
+                    content.append("\\nPD Key: ").append(it.toString())
                 }
             }
-        }
 
-        content
-            .append("\\nKey: ").append(entry.key)
-            .append("\"]")
-            .append(";")
-            .append(System.lineSeparator())
-        if (entry.sourceRecordPosition != -1L) {
-            content.append(entry.position)
-                .append(" -> ")
-                .append(entry.sourceRecordPosition)
+            content
+                .append("\\nKey: ").append(entry.key.toString())
+                .append("\"]")
                 .append(";")
                 .append(System.lineSeparator())
+            if (entry.sourceRecordPosition != -1L) {
+                content.append(entry.position.toString())
+                    .append(" -> ")
+                    .append(entry.sourceRecordPosition.toString())
+                    .append(";")
+                    .append(System.lineSeparator())
+            }
         }
     }
 }
@@ -16,165 +16,356 @@
 package io.zell.zdb.log
 
 import io.atomix.raft.storage.log.entry.SerializedApplicationEntry
-import io.camunda.zeebe.logstreams.impl.log.LoggedEventImpl
-import io.camunda.zeebe.protocol.impl.encoding.MsgPackConverter
-import io.camunda.zeebe.protocol.impl.record.RecordMetadata
-import io.camunda.zeebe.protocol.record.RecordType
+import io.camunda.zeebe.journal.CorruptedJournalException
+import io.camunda.zeebe.protocol.record.ValueType
+import io.camunda.zeebe.util.buffer.BufferUtil
+import io.zell.zdb.journal.file.SegmentedReadOnlyJournal
 import io.zell.zdb.log.records.*
-import io.zell.zdb.log.records.old.RecordMetadataBefore83
-import kotlinx.serialization.json.Json
-import kotlinx.serialization.json.JsonElement
-import org.agrona.concurrent.UnsafeBuffer
 import java.nio.file.Path
-import kotlin.streams.asStream
 
-private const val PROTOCOL_VERSION_83 = 4
+/**
+ * Reads the records of a log. If index files are given, filters use them to only read the entries,
+ * or segments, which might match.
+ */
+class LogContentReader @JvmOverloads constructor(
+    private val journal: SegmentedReadOnlyJournal,
+    private val indexFiles: LogIndexFiles? = null
+) : Iterator<PersistedRecord>, AutoCloseable {
 
-class LogContentReader(logPath: Path) : Iterator<PersistedRecord> {
+    @JvmOverloads
+    constructor(
+        logPath: Path,
+        verifyChecksums: Boolean = true,
+        streamingReads: Boolean = false,
+        indexDirectory: Path? = null
+    ) : this(
+        LogFactory.newJournal(logPath, verifyChecksums, streamingReads, indexDirectory),
+        LogFactory.indexFiles(logPath, indexDirectory)
+    )
 
-    private val json = Json { ignoreUnknownKeys = true }
-    private val reader: RaftLogReader = LogFactory.newReader(logPath)
-    private var isInLimit: (PersistedRecord) -> Boolean = { true }
-    private var applicationRecordFilter: ((ApplicationRecord) -> Boolean)? = null
+    private val reader: RaftLogReader = RaftLogUncommittedReader(journal.openReader())
+    private var fromIndex = Long.MIN_VALUE
+    private var fromPosition = Long.MIN_VALUE
+    private var toPosition = Long.MAX_VALUE
+    private var fromTimestamp = Long.MIN_VALUE
+    private var toTimestamp = Long.MAX_VALUE
+    private var isFromTimestampReached = false
+    private var recordFilter: RecordFilter? = null
+    private var processInstanceKey = 0L
+    // reused to apply the filter on the raw records, before anything is materialized
+    private val filterView = RecordView()
+    private var isReversed = false
+    private var tailCount = 0
+    private var countLimit = Long.MAX_VALUE
+    private var returnedCount = 0L
+    private var reverseReader: RaftLogReverseReader? = null
+    private var isFollowing = false
+    private var watcher: LogWatcher? = null
+    // when following the tail, the forward reader continues after the newest entry of the tail
+    private var followFromIndex: Long? = null
+    // set on first access, if the log is not read sequentially, e.g. scanned concurrently or backwards
+    private var records: Iterator<PersistedRecord>? = null
+    private var isStarted = false
     private lateinit var next: PersistedRecord
 
     override fun hasNext(): Boolean {
-        val hasNext = reader.hasNext()
+        if (!isStarted) {
+            isStarted = true
+            check(!(isReversed && isFollowing)) { "Expected to either read the log backwards or follow it, but both were set" }
+            if (tailCount > 0) {
+                records = readTail()
+            } else if (isReversed) {
+                records = readReversed()
+            } else if (processInstanceKey > 0 && indexFiles != null && !isFollowing) {
+                records = readProcessInstanceEntries(processInstanceKey, indexFiles.processInstanceIndex)
+            } else if (recordFilter != null && !isFollowing && journal.segmentIndexes.size > 1) {
+                // a filter often skips most of the log, in that case scanning the segments concurrently pays off
+                records = scanConcurrently(recordFilter!!)
+            }
+        }
 
-        if (!hasNext) {
+        if (returnedCount >= countLimit || !readNext()) {
             return false
         }
+        returnedCount++
+        return true
+    }
 
-        next = convertToPersistedRecord(reader.next())
-        if (!isInLimit(next)) {
-            return false
+    private fun readNext(): Boolean {
+        records?.let {
+            if (it.hasNext()) {
+                next = it.next()
+                return true
+            }
+            if (!isFollowing) {
+                return false
+            }
+            // continue with the entries which are appended to the log
+            records = null
+            followFromIndex?.let { index -> reader.seek(index) }
+        }
+
+        while (true) {
+            while (reader.hasNext()) {
+                // skipped entries are never copied, only matching ones are converted
+                val entry = nextFlyweight() ?: break
+                if (!isInLimit(entry, filterView)) {
+                    return false
+                }
+
+                if (isFromPosition(entry) && isFromTimestampReached(entry) && matchesFilter(entry, filterView)) {
+                    next = convertToPersistedRecord(entry)
+                    return true
+                }
+                // we want to skip this entry, since it doesn't apply to our filter
+            }
+
+            if (!isFollowing) {
+                return false
+            }
+            val watcher = this.watcher ?: LogWatcher(journal).also { this.watcher = it }
+            watcher.await()
         }
+    }
 
-        if (applicationRecordFilter == null) {
-            return true
+    /**
+     * Reads the next entry, or returns null if it can't be read yet: while following, the newest
+     * entry of the last segment might still be written by the broker, it is read again after waiting
+     * for appends. Everywhere else the entry is corrupted.
+     */
+    private fun nextFlyweight(): IndexedRaftLogEntry? {
+        return try {
+            reader.nextFlyweight()
+        } catch (e: CorruptedJournalException) {
+            if (!isFollowing || reader.nextIndex < journal.segmentIndexes.last()) {
+                throw e
+            }
+            null
         }
+    }
+
+    private fun isInLimit(entry: IndexedRaftLogEntry, view: RecordView): Boolean {
+        return !entry.isApplicationEntry
+                || (entry.applicationEntry.lowestPosition() < toPosition
+                    // only wrap the entry for its timestamp if there is a limit
+                    && (toTimestamp == Long.MAX_VALUE || timestamp(entry, view) <= toTimestamp))
+    }
 
-        return applyFiltering()
+    /**
+     * A seek to a timestamp might move the reader before the seek to a position, the entries before
+     * the position are skipped here.
+     */
+    private fun isFromPosition(entry: IndexedRaftLogEntry): Boolean {
+        return !entry.isApplicationEntry || entry.applicationEntry.highestPosition() >= fromPosition
     }
 
-    private fun applyFiltering(): Boolean {
-        // when application record filter is given, we don't want to see RaftLogRecords
+    /**
+     * The seek to a timestamp only finds the segment, all entries of the segment before the
+     * timestamp are skipped here.
+     */
+    private fun isFromTimestampReached(entry: IndexedRaftLogEntry): Boolean {
+        if (!isFromTimestampReached && entry.isApplicationEntry) {
+            isFromTimestampReached = timestamp(entry, filterView) >= fromTimestamp
+        }
+        return isFromTimestampReached
+    }
+
+    /**
+     * Returns the timestamp of the first record of the application entry. All records of an entry
+     * are written together, so they share the timestamp.
+     */
+    private fun timestamp(entry: IndexedRaftLogEntry, view: RecordView): Long {
+        val data = (entry.applicationEntry as SerializedApplicationEntry).data()
+        return view.wrap(data, 0).timestamp
+    }
+
+    private fun matchesFilter(entry: IndexedRaftLogEntry, view: RecordView): Boolean {
+        val filter = recordFilter ?: return true
+
+        // when a filter is given, we don't want to see RaftLogRecords
         // they are filtered out implicitly here as well
-        val filterMatches = next is ApplicationRecord && applicationRecordFilter!!(next as ApplicationRecord)
+        if (!entry.isApplicationEntry) {
+            return false
+        }
+
+        val data = (entry.applicationEntry as SerializedApplicationEntry).data()
+        var offset = 0
+        while (offset < data.capacity()) {
+            view.wrap(data, offset)
+            if (filter.test(view)) {
+                return true
+            }
+            offset += view.length
+        }
+        return false
+    }
+
+    /**
+     * Scans the segments concurrently and returns the matching records in log order. The seek and
+     * limit are applied per entry, since every segment is read from its beginning.
+     */
+    private fun scanConcurrently(filter: RecordFilter): Iterator<PersistedRecord> {
+        val results = ParallelLogScan(journal).scanSegments(segmentsToScan(filter)) { segmentIndex ->
+            RaftLogUncommittedReader(journal.openSegmentReader(segmentIndex)).use { scanSegment(it) }
+        }
+        return iterator {
+            for (segment in results) {
+                yieldAll(segment.records)
+                if (segment.isLimitReached) {
+                    // all following segments are out of the limit as well
+                    results.close()
+                    return@iterator
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the segments which might contain matching records. Segments before the seek are
+     * skipped, as are segments which can't match according to their [SegmentSummary], if the
+     * summaries are persisted.
+     */
+    private fun segmentsToScan(filter: RecordFilter): List<Long> {
+        val segmentIndexes = journal.segmentIndexes
+        val firstSegment = segmentIndexes.indexOfLast { it <= fromIndex }.coerceAtLeast(0)
+        val candidates = segmentIndexes.subList(firstSegment, segmentIndexes.size)
+        val summariesFile = indexFiles?.segmentSummaries ?: return candidates
+
+        val summaries = SegmentSummary.loadAll(journal, summariesFile).associateBy { it.info.firstIndex }
+        return candidates.filter { segmentIndex ->
+            val summary = summaries.getValue(segmentIndex)
+            summary.maxPosition >= fromPosition && summary.minPosition < toPosition
+                    && summary.maxTimestamp >= fromTimestamp && summary.minTimestamp <= toTimestamp
+                    && filter.mightMatch(summary)
+        }
+    }
 
-        if (filterMatches) {
-            return true
+    private fun scanSegment(segmentReader: RaftLogReader): SegmentRecords {
+        // the view is not thread safe, every segment needs its own
+        val view = RecordView()
+        val records = mutableListOf<PersistedRecord>()
+        while (segmentReader.hasNext()) {
+            val entry = segmentReader.nextFlyweight()
+            if (entry.index() < fromIndex || !entry.isApplicationEntry
+                || entry.applicationEntry.highestPosition() < fromPosition
+                || timestamp(entry, view) < fromTimestamp) {
+                continue
+            }
+
+            if (!isInLimit(entry, view)) {
+                return SegmentRecords(records, true)
+            }
+
+            if (matchesFilter(entry, view)) {
+                records.add(convertToPersistedRecord(entry))
+            }
         }
+        return SegmentRecords(records, false)
+    }
+
+    /**
+     * Reads only the entries which contain records of the given process instance, they are found
+     * via the [ProcessInstanceIndex]. All filters, the seek and the limits are still applied per
+     * entry.
+     */
+    private fun readProcessInstanceEntries(instanceKey: Long, indexFile: Path): Iterator<PersistedRecord> {
+        val indexes = ProcessInstanceIndex.open(journal, indexFile).lookup(instanceKey)
+        return iterator {
+            for (index in indexes) {
+                if (index < fromIndex) {
+                    continue
+                }
+
+                reader.seek(index)
+                if (!reader.hasNext()) {
+                    return@iterator
+                }
+                val entry = reader.nextFlyweight()
+                if (!entry.isApplicationEntry || entry.applicationEntry.highestPosition() < fromPosition
+                    || timestamp(entry, filterView) < fromTimestamp) {
+                    continue
+                }
 
-        // we want to skip this record, since it doesn't apply to our filter
-        // we need to find the next matching record
-        var foundNext = false
-        while (!foundNext && reader.hasNext()) {
-            next = convertToPersistedRecord(reader.next())
-            if (!isInLimit(next)) {
-                break
+                if (!isInLimit(entry, filterView)) {
+                    return@iterator
+                }
+                if (matchesFilter(entry, filterView)) {
+                    yield(convertToPersistedRecord(entry))
+                }
             }
+        }
+    }
 
-            if (next is ApplicationRecord) {
-                foundNext = applicationRecordFilter!!(next as ApplicationRecord)
+    /**
+     * Reads the log backwards, starting at the last entry. The seek and limit are applied per entry,
+     * reading stops as soon as the entries are before the seek.
+     */
+    private fun readReversed(): Iterator<PersistedRecord> {
+        val reverseReader = RaftLogReverseReader(journal.openReverseReader())
+        this.reverseReader = reverseReader
+        return iterator {
+            while (reverseReader.hasNext()) {
+                val entry = reverseReader.nextFlyweight()
+                if (followFromIndex == null) {
+                    followFromIndex = entry.index() + 1
+                }
+                if (entry.index() < fromIndex
+                    || (entry.isApplicationEntry && (entry.applicationEntry.highestPosition() < fromPosition
+                            || timestamp(entry, filterView) < fromTimestamp))) {
+                    // all following entries are before the seek as well
+                    return@iterator
+                }
+
+                if (isInLimit(entry, filterView) && matchesFilter(entry, filterView)) {
+                    yield(convertToPersistedRecord(entry))
+                }
             }
         }
-        return foundNext;
     }
 
+    /**
+     * Reads the newest entries backwards and returns them in log order.
+     */
+    private fun readTail(): Iterator<PersistedRecord> {
+        val newestRecords = mutableListOf<PersistedRecord>()
+        val reversedRecords = readReversed()
+        while (newestRecords.size < tailCount && reversedRecords.hasNext()) {
+            newestRecords.add(reversedRecords.next())
+        }
+        return newestRecords.asReversed().iterator()
+    }
+
+    private class SegmentRecords(val records: List<PersistedRecord>, val isLimitReached: Boolean)
+
     override fun next(): PersistedRecord {
         return next
     }
 
 
     private fun convertToPersistedRecord(
-        entry: IndexedRaftLogEntryImpl,
+        entry: IndexedRaftLogEntry,
     ) : PersistedRecord {
         if (entry.isApplicationEntry) {
             val applicationEntry = entry.applicationEntry as SerializedApplicationEntry
-            val applicationRecord = ApplicationRecord(entry.index(), entry.term(),
-                applicationEntry.highestPosition, applicationEntry.lowestPosition)
-
-            val readBuffer = UnsafeBuffer(applicationEntry.data());
-
-            var offset = 0;
-            do {
-                val loggedEvent = LoggedEventImpl();
-                val metadata = RecordMetadata();
-                metadata.reset()
-
-                loggedEvent.wrap(readBuffer, offset)
-                loggedEvent.readMetadata(metadata)
-
-                val parsedRecord: Record = readRecord(loggedEvent, metadata)
-                applicationRecord.entries.add(parsedRecord)
-
-                offset += loggedEvent.getLength();
-            } while (offset < readBuffer.capacity());
-            return applicationRecord
+            // records are decoded lazily, only when they are accessed. The data is copied, since the
+            // entry is a flyweight and the segment might be unmapped while the record is still used
+            return ApplicationRecord(entry.index(), entry.term(),
+                applicationEntry.highestPosition, applicationEntry.lowestPosition,
+                BufferUtil.cloneBuffer(applicationEntry.data()))
         } else {
             return RaftRecord(entry.index(), entry.term())
         }
     }
 
-    private fun readRecord(
-        loggedEvent: LoggedEventImpl,
-        metadata: RecordMetadata
-    ): Record {
-        val valueJson = MsgPackConverter.convertToJson(
-            UnsafeBuffer(loggedEvent.valueBuffer, loggedEvent.valueOffset, loggedEvent.valueLength)
-        )
-        val recordValue: JsonElement =
-            Json.decodeFromString(valueJson)
-        val pInstanceRelatedValue =
-            json.decodeFromString<ProcessInstanceRelatedValue>(valueJson)
-
-        val parsedRecord: Record;
-        if (metadata.protocolVersion >= PROTOCOL_VERSION_83) {
-            parsedRecord = Record(
-                loggedEvent.position,
-                loggedEvent.sourceEventPosition,
-                loggedEvent.timestamp,
-                loggedEvent.key,
-                metadata.recordType,
-                metadata.valueType,
-                metadata.intent,
-                metadata.rejectionType,
-                metadata.rejectionReason,
-                metadata.requestId,
-                metadata.requestStreamId,
-                metadata.protocolVersion,
-                metadata.brokerVersion.toString(),
-                metadata.recordVersion,
-                metadata.authorization.authData.toString(),
-                recordValue,
-                pInstanceRelatedValue
-            )
-        } else {
-            val recordMetadataBefore83 = RecordMetadataBefore83()
-            loggedEvent.readMetadata(recordMetadataBefore83)
-
-            parsedRecord = Record(
-                loggedEvent.position,
-                loggedEvent.sourceEventPosition,
-                loggedEvent.timestamp,
-                loggedEvent.key,
-                recordMetadataBefore83.recordType,
-                recordMetadataBefore83.valueType,
-                recordMetadataBefore83.intent,
-                recordMetadataBefore83.rejectionType,
-                recordMetadataBefore83.rejectionReason,
-                recordMetadataBefore83.requestId,
-                recordMetadataBefore83.requestStreamId,
-                recordMetadataBefore83.protocolVersion,
-                recordMetadataBefore83.brokerVersion.toString(),
-                0,
-                "",
-                recordValue,
-                pInstanceRelatedValue
-            )
-        }
-        return parsedRecord
+    /**
+     * Closes the log, this persists everything which was indexed while reading. Records which
+     * have been returned must not be used afterwards.
+     */
+    override fun close() {
+        reader.close()
+        reverseReader?.close()
+        watcher?.close()
+        journal.close()
     }
 
     fun readAll(): LogContent {
@@ -186,40 +377,94 @@ class LogContentReader(logPath: Path) : Iterator<PersistedRecord> {
     }
 
     fun seekToPosition(position: Long) {
+        fromPosition = position
         reader.seekToAsqn(position);
     }
 
     fun seekToIndex(index: Long) {
+        fromIndex = index
         reader.seek(index)
     }
 
     fun limitToPosition(toPosition: Long) {
-        isInLimit = { record: PersistedRecord ->
-            record is RaftRecord || (record is ApplicationRecord && record.lowestPosition < toPosition)
+        this.toPosition = toPosition
+    }
+
+    /**
+     * Skips all records which have been written before the given timestamp, in epoch millis. Only
+     * the segment which contains the timestamp is read from its beginning, the segment is found via
+     * the timestamps of the first records of the segments. If the reader was already moved further
+     * ahead, e.g. via [seekToPosition], it stays there.
+     */
+    fun seekToTimestamp(timestamp: Long) {
+        fromTimestamp = timestamp
+        val index = LogTimeIndex(journal).lookup(timestamp)
+        if (index > reader.nextIndex) {
+            seekToIndex(index)
         }
     }
 
+    /**
+     * Limits the log to records which have been written until the given timestamp (inclusive), in
+     * epoch millis.
+     */
+    fun limitToTimestamp(timestamp: Long) {
+        toTimestamp = timestamp
+    }
+
+    /**
+     * Limits the amount of returned records, e.g. to only see the newest records when the log is
+     * read in [reverse].
+     */
+    fun limitToCount(count: Long) {
+        countLimit = count
+    }
+
+    /**
+     * Reads the log backwards, the newest records are returned first. Only the read records are
+     * read from the log, the last entry is found via the segment descriptors.
+     */
+    fun reverse() {
+        isReversed = true
+    }
+
+    /**
+     * Returns only the given amount of newest records, in log order. Like with [reverse], only
+     * these records are read from the log.
+     */
+    fun tail(count: Int) {
+        tailCount = count
+    }
+
+    /**
+     * Keeps reading the log after the last entry and returns new entries as soon as they are
+     * written, like `tail -f`. Reading only ends when the limit is reached, or the reader is
+     * closed. Together with [tail], following starts after the newest records.
+     */
+    fun follow() {
+        isFollowing = true
+    }
+
+    /**
+     * Adds a filter which is applied on the raw records, before they are materialized. Only
+     * application entries which contain at least one matching record are returned. If there was
+     * already a filter set, records have to match both.
+     */
+    fun filter(filter: RecordFilter) {
+        recordFilter = recordFilter?.let { RecordFilter.allOf(it, filter) } ?: filter
+    }
+
     fun filterForProcessInstance(instanceKey : Long) {
-        applicationRecordFilter = {
-            record : ApplicationRecord ->
-                record.entries.asSequence()
-                    .map { it.piRelatedValue }
-                    .filter { it != null }
-                    .map { it!! }
-                    .filter { it.processInstanceKey != null }
-                    .asStream()
-                    .map { it.processInstanceKey }
-                    .anyMatch(instanceKey::equals)
-        }
+        processInstanceKey = instanceKey
+        filter(RecordFilter.processInstance(instanceKey))
     }
 
     fun filterForRejections() {
-        applicationRecordFilter = {
-                record : ApplicationRecord ->
-            record.entries.asSequence()
-                .map { it.recordType }
-                .any { it == RecordType.COMMAND_REJECTION }
-        }
+        filter(RecordFilter.rejections())
+    }
+
+    fun filterForValueType(valueType: ValueType) {
+        filter(RecordFilter.valueType(valueType))
     }
 
 }
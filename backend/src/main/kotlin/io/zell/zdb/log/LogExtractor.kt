@@ -0,0 +1,54 @@
+/*
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.log
+
+import io.zell.zdb.journal.file.JournalExtraction
+import io.zell.zdb.journal.file.SegmentedReadOnlyJournal
+import java.nio.file.Path
+
+/**
+ * Extracts a range of the log into a new partition directory, which can be inspected like any
+ * other log. The records are copied without decoding them.
+ */
+class LogExtractor(logPath: Path) : AutoCloseable {
+
+    private val journal: SegmentedReadOnlyJournal = LogFactory.newJournal(logPath)
+
+    /**
+     * Extracts the entries between the given indexes, inclusive. The last element of the target
+     * path should be the partition id, e.g. `out/1`.
+     */
+    fun extract(target: Path, fromIndex: Long, toIndex: Long): JournalExtraction {
+        // the partition of the extracted log is derived from the target, like for any other log
+        return journal.extract(target, LogFactory.extractPartitionNameFromPath(target), fromIndex, toIndex)
+    }
+
+    /**
+     * Extracts the entries which contain the records between the given positions, inclusive.
+     * Since entries are copied as a whole, the extracted log might contain a few more records.
+     */
+    fun extractPositions(target: Path, fromPosition: Long, toPosition: Long): JournalExtraction {
+        return extract(target, indexOf(fromPosition), indexOf(toPosition))
+    }
+
+    private fun indexOf(position: Long): Long {
+        return RaftLogUncommittedReader(journal.openReader()).use { it.seekToAsqn(position) }
+    }
+
+    override fun close() {
+        journal.close()
+    }
+}
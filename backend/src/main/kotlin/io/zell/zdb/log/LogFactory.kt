@@ -29,19 +29,71 @@ class LogFactory {
         private const val MAX_SEGMENT_SIZE = 128 * 1024 * 1024
 
         fun newReader(logPath: Path): RaftLogReader {
+            return RaftLogUncommittedReader(newJournal(logPath).openReader());
+        }
+
+        /**
+         * @param verifyChecksums whether the checksum of every record is verified on read, can be
+         * turned off for trusted logs, to make reading cheaper
+         * @param streamingReads whether segments are streamed through reusable buffers instead of
+         * mapped, which suits full scans of large logs
+         * @param indexDirectory the directory to persist the index of the log in, such that later
+         * runs don't need to read the log again, or null to keep the index only in memory
+         */
+        @JvmOverloads
+        fun newJournal(
+            logPath: Path,
+            verifyChecksums: Boolean = true,
+            streamingReads: Boolean = false,
+            indexDirectory: Path? = null
+        ): SegmentedReadOnlyJournal {
             val partitionName = extractPartitionNameFromPath(logPath)
 
             val builder = SegmentedReadOnlyJournal.builder()
-            val readOnlyJournal = builder
+            return builder
                 .withDirectory(logPath.toFile())
                 .withName(partitionName)
                 .withMaxSegmentSize(MAX_SEGMENT_SIZE)
+                .withIndexFile(indexDirectory?.let { indexFile(it, logPath, "idx") })
+                .withChecksumVerification(verifyChecksums)
+                .withStreamingReads(streamingReads)
                 .build()
+        }
+
+        /**
+         * The directory in which indexes are persisted, if they are enabled without a directory.
+         */
+        fun defaultIndexDirectory(): Path {
+            return Path.of(System.getProperty("user.home"), ".cache", "zdb")
+        }
 
-            return RaftLogUncommittedReader(readOnlyJournal.openReader());
+        /**
+         * The files in which the indexes of the log are persisted, like the [ProcessInstanceIndex].
+         * Returns null if no index directory is given, filters scan the log instead.
+         */
+        @JvmOverloads
+        fun indexFiles(logPath: Path, indexDirectory: Path? = null): LogIndexFiles? {
+            if (indexDirectory == null) {
+                return null
+            }
+
+            return LogIndexFiles(
+                indexFile(indexDirectory, logPath, "instances"),
+                indexFile(indexDirectory, logPath, "summaries"))
+        }
+
+        /**
+         * Indexes are never persisted next to the segments, since the log might belong to a running
+         * broker. The file name contains a hash of the log path, such that the indexes of different
+         * logs with the same partition id don't collide.
+         */
+        private fun indexFile(indexDirectory: Path, logPath: Path, extension: String): Path {
+            val partitionName = extractPartitionNameFromPath(logPath)
+            val absolutePath = logPath.toAbsolutePath().normalize().toString()
+            return indexDirectory.resolve("$partitionName-${Integer.toHexString(absolutePath.hashCode())}.$extension")
         }
 
-        private fun extractPartitionNameFromPath(logPath: Path): String {
+        internal fun extractPartitionNameFromPath(logPath: Path): String {
             return try {
                 val partitionId = logPath.fileName.toString().toInt()
                 String.format(PARTITION_NAME_FORMAT, partitionId)
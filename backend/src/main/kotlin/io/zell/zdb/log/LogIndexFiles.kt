@@ -0,0 +1,27 @@
+/*
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.log
+
+import java.nio.file.Path
+
+/**
+ * Files in which the indexes of a log are persisted, such that later runs don't need to read the
+ * complete log again, see [LogFactory.indexFiles].
+ *
+ * @param processInstanceIndex the file of the [ProcessInstanceIndex]
+ * @param segmentSummaries the file of the [SegmentSummary]s
+ */
+data class LogIndexFiles(val processInstanceIndex: Path, val segmentSummaries: Path)
@@ -18,19 +18,26 @@ package io.zell.zdb.log
 import io.zell.zdb.log.records.ApplicationRecord
 import io.zell.zdb.log.records.PersistedRecord
 import io.zell.zdb.log.records.Record
+import io.zell.zdb.log.records.RecordView
 import java.nio.file.Path
 
-class LogSearch(logPath: Path) {
+class LogSearch @JvmOverloads constructor(
+    logPath: Path,
+    verifyChecksums: Boolean = true,
+    indexDirectory: Path? = null
+) : AutoCloseable {
 
-
-    private val reader: LogContentReader = LogContentReader(logPath)
+    private val reader: LogContentReader = LogContentReader(logPath, verifyChecksums, indexDirectory = indexDirectory)
+    // reused for all records which are compared during a search
+    private val view = RecordView()
 
     fun searchPosition(position: Long): Record? {
         if (position <= 0) {
             return null
         }
 
-        reader.seekToPosition(position);
+        // the seek finds the segment via binary search, only that segment is read
+        reader.seekToPosition(position)
 
         while (reader.hasNext()) {
             val entry = reader.next()
@@ -38,16 +45,16 @@ class LogSearch(logPath: Path) {
             if (entry is ApplicationRecord) {
                 if (entry.lowestPosition > position) {
                     // nothing can be found in this entry and the entries afterwards
-                    return null;
+                    return null
                 } else if (entry.highestPosition < position) {
                     // nothing in this batch will match with the search position, check the next
                     continue
                 } else {
-                    // here there might be the position
-                    entry.entries.forEach {
+                    // here there might be the position, only the found record is materialized
+                    entry.forEachRecordView(view) {
                         if (it.position == position) {
                             // found!
-                            return it;
+                            return it.toRecord()
                         }
                     }
                 }
@@ -75,4 +82,10 @@ class LogSearch(logPath: Path) {
         return null
     }
 
+    /**
+     * Closes the log, this persists everything which was indexed while searching.
+     */
+    override fun close() {
+        reader.close()
+    }
 }
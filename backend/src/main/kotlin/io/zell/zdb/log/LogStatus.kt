@@ -15,24 +15,109 @@
  */
 package io.zell.zdb.log
 
+import io.zell.zdb.journal.file.SegmentedReadOnlyJournal
 import java.nio.file.Path
 
 
-class LogStatus(logPath: Path) {
+class LogStatus @JvmOverloads constructor(
+    logPath: Path,
+    verifyChecksums: Boolean = true,
+    streamingReads: Boolean = false,
+    indexDirectory: Path? = null
+) : AutoCloseable {
 
-    private val reader: RaftLogReader = LogFactory.newReader(logPath)
+    private val journal: SegmentedReadOnlyJournal =
+        LogFactory.newJournal(logPath, verifyChecksums, streamingReads, indexDirectory)
 
-    fun status(): LogStatusDetails {
+    /**
+     * Returns the status of the log. Per default only the head and tail of the log are read: the
+     * lowest values from the first entries and the highest values from the last entry, which is
+     * found via the descriptor of the last segment. With [exact] all entries are read instead.
+     */
+    @JvmOverloads
+    fun status(exact: Boolean = false): LogStatusDetails {
+        return if (exact) exactStatus() else descriptorStatus()
+    }
+
+    private fun exactStatus(): LogStatusDetails {
+        val logStatusDetails = LogStatusDetails()
+
+        // segments are scanned concurrently, each segment produces its own details which are merged
+        ParallelLogScan(journal).scan { segmentStatus(it) }.forEach { logStatusDetails.merge(it) }
+
+        return logStatusDetails
+    }
+
+    private fun descriptorStatus(): LogStatusDetails {
+        val logStatusDetails = LogStatusDetails()
+        val segmentIndexes = journal.segmentIndexes
+
+        // the lowest values are found at the head of the log
+        for (segmentIndex in segmentIndexes) {
+            if (readHead(segmentIndex, logStatusDetails)) {
+                break
+            }
+        }
+
+        // the highest values are found at the tail of the log, which the last descriptor points to
+        val lastSegmentReader = journal.openSegmentReader(segmentIndexes.last())
+        lastSegmentReader.seekToLast()
+        val tail = RaftLogUncommittedReader(lastSegmentReader).use { segmentStatus(it) }
+
+        // the tail might contain no application entry, then the segments are read completely, from
+        // the last one backwards, until one is found
+        for (segmentIndex in segmentIndexes.asReversed()) {
+            if (tail.highestIndex != Long.MIN_VALUE && tail.highestRecordPosition != Long.MIN_VALUE) {
+                break
+            }
+            RaftLogUncommittedReader(journal.openSegmentReader(segmentIndex)).use { tail.merge(segmentStatus(it)) }
+        }
+
+        logStatusDetails.highestIndex = tail.highestIndex
+        logStatusDetails.highestTerm = tail.highestTerm
+        logStatusDetails.highestRecordPosition = tail.highestRecordPosition
+        return logStatusDetails
+    }
+
+    /**
+     * Reads the given segment until the first application entry is found.
+     *
+     * @return true if an application entry was found
+     */
+    private fun readHead(segmentIndex: Long, logStatusDetails: LogStatusDetails): Boolean {
+        RaftLogUncommittedReader(journal.openSegmentReader(segmentIndex)).use { reader ->
+            while (reader.hasNext()) {
+                val entry = reader.nextFlyweight()
+                logStatusDetails.lowestIndex = minOf(logStatusDetails.lowestIndex, entry.index())
+
+                if (entry.isApplicationEntry) {
+                    logStatusDetails.lowestRecordPosition = entry.applicationEntry.lowestPosition()
+                    return true
+                }
+            }
+        }
+        return false
+    }
+
+    /**
+     * Closes the log, this persists everything which was indexed while reading.
+     */
+    override fun close() {
+        journal.close()
+    }
+
+    private fun segmentStatus(reader: RaftLogReader): LogStatusDetails {
         val logStatusDetails = LogStatusDetails()
 
-        reader.forEachRemaining {
-            val persistedRaftRecord = it.persistedRaftRecord
+        while (reader.hasNext()) {
+            // the entry is only used to collect the details, it doesn't need to be copied
+            val entry = reader.nextFlyweight()
 
-            if (logStatusDetails.highestTerm < persistedRaftRecord.term()) {
-                logStatusDetails.highestTerm = persistedRaftRecord.term()
+            if (logStatusDetails.highestTerm < entry.term()) {
+                logStatusDetails.highestTerm = entry.term()
             }
 
-            val currentEntryIndex = persistedRaftRecord.index()
+            val currentEntryIndex = entry.index()
             if (logStatusDetails.highestIndex < currentEntryIndex) {
                 logStatusDetails.highestIndex = currentEntryIndex
             }
@@ -41,8 +126,8 @@ class LogStatus(logPath: Path) {
                 logStatusDetails.lowestIndex = currentEntryIndex
             }
 
-            if (it.isApplicationEntry) {
-                val applicationEntry = it.applicationEntry
+            if (entry.isApplicationEntry) {
+                val applicationEntry = entry.applicationEntry
                 if (logStatusDetails.highestRecordPosition < applicationEntry.highestPosition()) {
                     logStatusDetails.highestRecordPosition = applicationEntry.highestPosition()
                 }
@@ -27,6 +27,17 @@ class LogStatusDetails constructor() {
     var highestIndex = Long.MIN_VALUE
     var highestTerm = Long.MIN_VALUE
 
+    /**
+     * Merges the details of another part of the log, e.g. of a single segment, into this one.
+     */
+    fun merge(other: LogStatusDetails) {
+        lowestRecordPosition = minOf(lowestRecordPosition, other.lowestRecordPosition)
+        highestRecordPosition = maxOf(highestRecordPosition, other.highestRecordPosition)
+        lowestIndex = minOf(lowestIndex, other.lowestIndex)
+        highestIndex = maxOf(highestIndex, other.highestIndex)
+        highestTerm = maxOf(highestTerm, other.highestTerm)
+    }
+
     override fun toString(): String {
         return Json.encodeToString(this)
     }
@@ -0,0 +1,80 @@
+/*
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.log
+
+import io.atomix.raft.storage.log.entry.SerializedApplicationEntry
+import io.zell.zdb.journal.file.SegmentedReadOnlyJournal
+import io.zell.zdb.log.records.RecordView
+
+/**
+ * Finds the segment in which a given point in time starts, such that a time range can be read
+ * without reading the log before it.
+ *
+ * The index is built on demand from the timestamp of the first record of each segment. Records
+ * are written in time order, so the segments can be searched via binary search, which only reads
+ * the head of a few segments.
+ */
+internal class LogTimeIndex(private val journal: SegmentedReadOnlyJournal) {
+
+    private val segmentIndexes = journal.segmentIndexes
+    private val firstTimestamps = LongArray(segmentIndexes.size) { UNKNOWN }
+    private val view = RecordView()
+
+    /**
+     * Returns the first index of the last segment, which starts before or at the given timestamp.
+     * If all segments start after it, the first segment is returned.
+     */
+    fun lookup(timestamp: Long): Long {
+        var low = 0
+        var high = segmentIndexes.size - 1
+        var result = 0
+        while (low <= high) {
+            val mid = (low + high) ushr 1
+            if (firstTimestamp(mid) <= timestamp) {
+                result = mid
+                low = mid + 1
+            } else {
+                high = mid - 1
+            }
+        }
+        return segmentIndexes[result]
+    }
+
+    private fun firstTimestamp(segment: Int): Long {
+        if (firstTimestamps[segment] == UNKNOWN) {
+            firstTimestamps[segment] = readFirstTimestamp(segmentIndexes[segment])
+        }
+        return firstTimestamps[segment]
+    }
+
+    private fun readFirstTimestamp(segmentIndex: Long): Long {
+        RaftLogUncommittedReader(journal.openSegmentReader(segmentIndex)).use { reader ->
+            while (reader.hasNext()) {
+                val entry = reader.nextFlyweight()
+                if (entry.isApplicationEntry) {
+                    val data = (entry.applicationEntry as SerializedApplicationEntry).data()
+                    return view.wrap(data, 0).timestamp
+                }
+            }
+        }
+        // without records the segment can't be placed, searching before it is always safe
+        return Long.MAX_VALUE
+    }
+
+    companion object {
+        private const val UNKNOWN = Long.MIN_VALUE
+    }
+}
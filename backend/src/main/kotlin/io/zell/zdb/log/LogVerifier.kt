@@ -0,0 +1,41 @@
+/*
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.log
+
+import io.zell.zdb.journal.file.SegmentVerification
+import io.zell.zdb.journal.file.SegmentedReadOnlyJournal
+import java.nio.file.Path
+
+/**
+ * Verifies the checksums of all records in the log, the segments are verified concurrently.
+ */
+class LogVerifier @JvmOverloads constructor(logPath: Path, streamingReads: Boolean = false) : AutoCloseable {
+
+    private val journal: SegmentedReadOnlyJournal = LogFactory.newJournal(logPath, streamingReads = streamingReads)
+
+    /**
+     * Returns the verification result of every segment, in index order.
+     */
+    fun verify(): List<SegmentVerification> {
+        val verifications = mutableListOf<SegmentVerification>()
+        ParallelLogScan(journal).scanSegments { journal.verifySegment(it) }.forEach { verifications.add(it) }
+        return verifications
+    }
+
+    override fun close() {
+        journal.close()
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.log
+
+import io.zell.zdb.journal.file.SegmentedReadOnlyJournal
+import java.nio.file.StandardWatchEventKinds
+import java.nio.file.WatchService
+import java.util.concurrent.TimeUnit
+
+/**
+ * Waits for new entries of a log which is still written, e.g. by a running broker.
+ *
+ * New entries in existing segments are visible right away, since the segments are mapped
+ * completely, so waiting only means polling them again after a short interval. New segments are
+ * found via a [WatchService] on the log directory. Since file events are not reliable on every file
+ * system, e.g. on network or container mounts, the directory is checked regularly as well.
+ */
+internal class LogWatcher(
+    private val journal: SegmentedReadOnlyJournal,
+    private val pollIntervalMs: Long = POLL_INTERVAL_MS
+) : AutoCloseable {
+
+    private val watchService: WatchService = journal.directory.fileSystem.newWatchService()
+    private var pollsSinceRefresh = 0
+
+    init {
+        journal.directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE)
+    }
+
+    /**
+     * Waits at most one poll interval, afterwards new segments are loaded if there are any.
+     */
+    fun await() {
+        val key = watchService.poll(pollIntervalMs, TimeUnit.MILLISECONDS)
+        if (key != null) {
+            key.pollEvents()
+            key.reset()
+        }
+
+        pollsSinceRefresh++
+        if (key != null || pollsSinceRefresh >= POLLS_PER_REFRESH) {
+            pollsSinceRefresh = 0
+            journal.refreshSegments()
+        }
+    }
+
+    override fun close() {
+        watchService.close()
+    }
+
+    companion object {
+        private const val POLL_INTERVAL_MS = 100L
+        private const val POLLS_PER_REFRESH = 10
+    }
+}
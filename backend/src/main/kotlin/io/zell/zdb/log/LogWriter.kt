@@ -15,18 +15,32 @@
  */
 package io.zell.zdb.log
 
+import io.zell.zdb.log.records.ApplicationRecord
 import io.zell.zdb.log.records.PersistedRecord
+import io.zell.zdb.log.records.RecordView
+import java.io.BufferedWriter
+import java.io.FileOutputStream
 import java.io.OutputStream
+import java.io.OutputStreamWriter
 import java.io.PrintWriter
+import java.nio.channels.Channels
+import java.nio.channels.WritableByteChannel
 
 class LogWriter(val out: OutputStream, val reader: LogContentReader) {
 
     companion object {
         const val COLUMN_TITLE =
             "Index Term Position SourceRecordPosition Timestamp Key RecordType ValueType Intent ProcessInstanceKey BPMNElementType "
+
+        private const val DOT_BUFFER_SIZE = 64 * 1024
     }
 
-    fun writeAsTable() {
+    /**
+     * Writes all records of the reader as table. If the reader follows a live log, each record
+     * should be flushed, such that it is visible right away.
+     */
+    @JvmOverloads
+    fun writeAsTable(flushEachRecord: Boolean = false) {
         val printWriter = PrintWriter(out, true)
         printWriter.println(COLUMN_TITLE)
         var separator = ""
@@ -34,7 +48,79 @@ class LogWriter(val out: OutputStream, val reader: LogContentReader) {
             val record: PersistedRecord = reader.next()
             printWriter.print(separator + record.asColumnString())
             separator = ""
+            if (flushEachRecord) {
+                printWriter.flush()
+            }
         }
         printWriter.flush();
     }
+
+    /**
+     * Writes all records of the reader as JSON array, via a [JsonRecordWriter]. File streams, like
+     * standard out, are written through their channel, bypassing any stream buffers. If the reader
+     * follows a live log, each record should be flushed, such that it is visible right away.
+     */
+    @JvmOverloads
+    fun writeAsJson(flushEachRecord: Boolean = false) {
+        val writer = JsonRecordWriter(channel())
+        writer.writeAscii("[" + System.lineSeparator())
+        var separator = ""
+        while (reader.hasNext()) {
+            writer.writeAscii(separator)
+            writer.write(reader.next())
+            separator = ","
+            if (flushEachRecord) {
+                writer.flush()
+            }
+        }
+        writer.writeAscii("]" + System.lineSeparator())
+        writer.flush()
+    }
+
+    /**
+     * Writes only the fields of the given projection for all records of the reader, see
+     * [ProjectedRecordWriter]. If the reader follows a live log, each record should be flushed,
+     * such that it is visible right away.
+     */
+    @JvmOverloads
+    fun writeProjected(
+        projection: RecordProjection,
+        format: ProjectedRecordWriter.Format,
+        flushEachRecord: Boolean = false
+    ) {
+        val writer = ProjectedRecordWriter(channel(), projection, format)
+        writer.writeHeader()
+        while (reader.hasNext()) {
+            writer.write(reader.next())
+            if (flushEachRecord) {
+                writer.flush()
+            }
+        }
+        writer.writeFooter()
+        writer.flush()
+    }
+
+    /**
+     * Writes all records of the reader as DOT graph. Each record is written as soon as it is read,
+     * nothing is collected, such that the memory usage doesn't depend on the size of the log.
+     */
+    fun writeAsDot() {
+        val writer = BufferedWriter(OutputStreamWriter(out, Charsets.UTF_8), DOT_BUFFER_SIZE)
+        LogContent.appendDotHeader(writer)
+        val view = RecordView()
+        while (reader.hasNext()) {
+            val record = reader.next()
+            if (record is ApplicationRecord) {
+                record.forEachRecordView(view) { LogContent.appendDotNode(it, writer) }
+            }
+        }
+        LogContent.appendDotFooter(writer)
+        writer.newLine()
+        writer.flush()
+    }
+
+    private fun channel(): WritableByteChannel {
+        val stream = out
+        return if (stream is FileOutputStream) stream.channel else Channels.newChannel(stream)
+    }
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.log
+
+import io.zell.zdb.journal.file.SegmentedReadOnlyJournal
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.Future
+
+/**
+ * Scans the segments of a log concurrently. Each segment is read by its own [RaftLogReader] on a
+ * shared pool, the results of the segments are returned in index order.
+ *
+ * Only a bounded number of segments is scanned ahead, such that the results don't pile up if the
+ * consumer is slower than the scan.
+ */
+class ParallelLogScan(
+    private val journal: SegmentedReadOnlyJournal,
+    private val parallelism: Int = POOL.parallelism
+) {
+
+    /**
+     * Runs the given task for each segment, the reader passed to the task only reads the records
+     * of a single segment. Tasks run concurrently, so they must not share any mutable state.
+     */
+    fun <T> scan(task: (RaftLogReader) -> T): Results<T> {
+        return scanSegments { segmentIndex ->
+            RaftLogUncommittedReader(journal.openSegmentReader(segmentIndex)).use(task)
+        }
+    }
+
+    /**
+     * Runs the given task for each segment, identified by its first index. Useful for tasks which
+     * don't read the records via a [RaftLogReader], like verifying a segment. By default all
+     * segments are scanned.
+     */
+    @JvmOverloads
+    fun <T> scanSegments(segmentIndexes: List<Long> = journal.segmentIndexes, task: (Long) -> T): Results<T> {
+        return Results(segmentIndexes, task)
+    }
+
+    inner class Results<T> internal constructor(
+        private val segmentIndexes: List<Long>,
+        private val task: (Long) -> T
+    ) : Iterator<T>, AutoCloseable {
+
+        private val pending = ArrayDeque<Future<T>>()
+        private var nextSegment = 0
+
+        override fun hasNext(): Boolean {
+            submitTasks()
+            return pending.isNotEmpty()
+        }
+
+        override fun next(): T {
+            submitTasks()
+            val result = pending.removeFirstOrNull() ?: throw NoSuchElementException()
+            try {
+                return result.get()
+            } catch (e: ExecutionException) {
+                close()
+                throw e.cause ?: e
+            }
+        }
+
+        /**
+         * Cancels the scan of all segments, which have not been consumed yet.
+         */
+        override fun close() {
+            pending.forEach { it.cancel(true) }
+            pending.clear()
+            nextSegment = segmentIndexes.size
+        }
+
+        private fun submitTasks() {
+            while (nextSegment < segmentIndexes.size && pending.size < parallelism * 2) {
+                val segmentIndex = segmentIndexes[nextSegment++]
+                pending.addLast(POOL.submit(Callable { task(segmentIndex) }))
+            }
+        }
+    }
+
+    companion object {
+        private val POOL = ForkJoinPool(Runtime.getRuntime().availableProcessors())
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.log
+
+import io.atomix.raft.storage.log.entry.SerializedApplicationEntry
+import io.zell.zdb.journal.file.SegmentInfo
+import io.zell.zdb.journal.file.SegmentedReadOnlyJournal
+import io.zell.zdb.log.records.RecordView
+import org.agrona.collections.Long2ObjectHashMap
+import org.agrona.collections.LongArrayList
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.nio.file.Path
+
+/**
+ * Inverted index from process instance key to the indexes of the application entries, which
+ * contain records of the process instance. Allows to read only the entries of a process instance,
+ * instead of decoding the complete log.
+ *
+ * The index is kept per segment in sorted primitive arrays and persisted via a [SegmentIndexFile],
+ * such that only new or changed segments are read when the index is opened again.
+ */
+class ProcessInstanceIndex private constructor(private val segments: List<SegmentEntries>) {
+
+    /**
+     * Returns the indexes of all application entries which contain records of the given process
+     * instance, in ascending order.
+     */
+    fun lookup(processInstanceKey: Long): LongArray {
+        val indexes = LongArrayList()
+        segments.forEach { it.collect(processInstanceKey, indexes) }
+        return indexes.toLongArray()
+    }
+
+    /**
+     * Entries of a single segment, sorted by key and index. Keys and indexes share their slots.
+     */
+    private class SegmentEntries(val info: SegmentInfo, val keys: LongArray, val indexes: LongArray) {
+
+        fun collect(key: Long, result: LongArrayList) {
+            var slot = firstSlot(key)
+            while (slot < keys.size && keys[slot] == key) {
+                result.addLong(indexes[slot++])
+            }
+        }
+
+        private fun firstSlot(key: Long): Int {
+            var low = 0
+            var high = keys.size
+            while (low < high) {
+                val mid = (low + high) ushr 1
+                if (keys[mid] < key) {
+                    low = mid + 1
+                } else {
+                    high = mid
+                }
+            }
+            return low
+        }
+    }
+
+    companion object {
+        private const val MAGIC = 0x5a444250 // ZDBP
+        private const val VERSION = 1
+
+        /**
+         * Opens the index of the given journal. Segments which are not part of the given file, or
+         * changed since they were stored, are read concurrently and the file is updated afterwards.
+         */
+        fun open(journal: SegmentedReadOnlyJournal, file: Path): ProcessInstanceIndex {
+            val indexFile = SegmentIndexFile(file, MAGIC, VERSION, SegmentEntries::info, ::readEntries, ::writeEntries)
+            return ProcessInstanceIndex(indexFile.load(journal) { indexSegment(journal, it) })
+        }
+
+        private fun indexSegment(journal: SegmentedReadOnlyJournal, segmentIndex: Long): SegmentEntries {
+            val info = journal.getSegmentInfo(segmentIndex)
+            val entriesPerKey = Long2ObjectHashMap<LongArrayList>()
+            val view = RecordView()
+            RaftLogUncommittedReader(journal.openSegmentReader(segmentIndex)).use { reader ->
+                while (reader.hasNext()) {
+                    val entry = reader.nextFlyweight()
+                    if (!entry.isApplicationEntry) {
+                        continue
+                    }
+
+                    val data = (entry.applicationEntry as SerializedApplicationEntry).data()
+                    var offset = 0
+                    while (offset < data.capacity()) {
+                        view.wrap(data, offset)
+                        val key = view.processInstanceKey
+                        if (key != null && key > 0) {
+                            var indexes = entriesPerKey.get(key)
+                            if (indexes == null) {
+                                indexes = LongArrayList()
+                                entriesPerKey.put(key, indexes)
+                            }
+                            // most records of a batch belong to the same instance, each entry is added once
+                            if (indexes.isEmpty() || indexes.getLong(indexes.size - 1) != entry.index()) {
+                                indexes.addLong(entry.index())
+                            }
+                        }
+                        offset += view.length
+                    }
+                }
+            }
+
+            val size = entriesPerKey.values.sumOf { it.size }
+            val keys = LongArray(size)
+            val indexes = LongArray(size)
+            val sortedKeys = LongArray(entriesPerKey.size)
+            val keyIterator = entriesPerKey.keys.iterator()
+            for (i in sortedKeys.indices) {
+                sortedKeys[i] = keyIterator.nextLong()
+            }
+            sortedKeys.sort()
+
+            var slot = 0
+            for (key in sortedKeys) {
+                val keyIndexes = entriesPerKey.get(key)!!
+                for (i in 0 until keyIndexes.size) {
+                    keys[slot] = key
+                    indexes[slot++] = keyIndexes.getLong(i)
+                }
+            }
+            return SegmentEntries(info, keys, indexes)
+        }
+
+        private fun readEntries(input: DataInputStream, info: SegmentInfo): SegmentEntries {
+            val size = SegmentIndexFile.readCount(input, 2 * Long.SIZE_BYTES)
+            val keys = LongArray(size) { input.readLong() }
+            val indexes = LongArray(size) { input.readLong() }
+            return SegmentEntries(info, keys, indexes)
+        }
+
+        private fun writeEntries(output: DataOutputStream, entries: SegmentEntries) {
+            output.writeInt(entries.keys.size)
+            entries.keys.forEach { output.writeLong(it) }
+            entries.indexes.forEach { output.writeLong(it) }
+        }
+    }
+}
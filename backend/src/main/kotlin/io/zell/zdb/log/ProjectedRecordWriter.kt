@@ -0,0 +1,228 @@
+/*
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.log
+
+import io.camunda.zeebe.msgpack.spec.MsgPackReader
+import io.camunda.zeebe.msgpack.spec.MsgPackType
+import io.zell.zdb.MsgPackJsonTranscoder
+import io.zell.zdb.log.records.ApplicationRecord
+import io.zell.zdb.log.records.PersistedRecord
+import io.zell.zdb.log.records.RecordView
+import org.agrona.DirectBuffer
+import org.agrona.ExpandableArrayBuffer
+import java.io.Flushable
+import java.nio.channels.WritableByteChannel
+
+/**
+ * Writes only the fields of the given projection per record, as JSON objects, CSV or table rows.
+ *
+ * Fields which are not part of the projection are never read: the metadata is only decoded if a
+ * metadata field is requested, and instead of converting the complete record value only the
+ * requested properties are looked up and transcoded. Raft entries contain no records and are
+ * skipped.
+ *
+ * The writer is not thread safe and doesn't close the channel.
+ */
+class ProjectedRecordWriter @JvmOverloads constructor(
+    channel: WritableByteChannel,
+    private val projection: RecordProjection,
+    private val format: Format,
+    bufferSize: Int = JsonRecordWriter.DEFAULT_BUFFER_SIZE
+) : Flushable {
+
+    enum class Format {
+        JSON,
+        CSV,
+        TABLE
+    }
+
+    private val output = ChannelOutput(channel, bufferSize)
+    private val lineSeparator = System.lineSeparator()
+    private val view = RecordView()
+    private val transcoder = MsgPackJsonTranscoder()
+    private val valueJson = ExpandableArrayBuffer()
+    private val valueReader = MsgPackReader()
+    private var isFirstRecord = true
+
+    /**
+     * Writes the opening bracket of the JSON array, or the column names of a CSV or table.
+     */
+    fun writeHeader() {
+        if (format == Format.JSON) {
+            output.writeAscii("[" + lineSeparator)
+            return
+        }
+        projection.fields.forEachIndexed { i, field ->
+            if (i > 0) {
+                writeSeparator()
+            }
+            writeText(field.name)
+        }
+        output.writeAscii(lineSeparator)
+    }
+
+    fun write(record: PersistedRecord) {
+        if (record is ApplicationRecord) {
+            record.forEachRecordView(view) { writeRecord(record, it) }
+        }
+    }
+
+    /**
+     * Writes the closing bracket of the JSON array, CSV and tables have no footer.
+     */
+    fun writeFooter() {
+        if (format == Format.JSON) {
+            output.writeAscii("]" + lineSeparator)
+        }
+    }
+
+    override fun flush() {
+        output.flush()
+    }
+
+    private fun writeRecord(entry: ApplicationRecord, record: RecordView) {
+        if (format == Format.JSON) {
+            if (!isFirstRecord) {
+                output.writeByte(','.code)
+            }
+            output.writeByte('{'.code)
+        }
+        projection.fields.forEachIndexed { i, field ->
+            if (i > 0) {
+                writeSeparator()
+            }
+            if (format == Format.JSON) {
+                output.writeJsonString(field.name)
+                output.writeByte(':'.code)
+            }
+            val metadata = field.metadata
+            if (metadata != null) {
+                writeMetadata(entry, record, metadata)
+            } else {
+                writeValue(record, field.valuePath)
+            }
+        }
+        if (format == Format.JSON) {
+            output.writeByte('}'.code)
+        } else {
+            output.writeAscii(lineSeparator)
+        }
+        isFirstRecord = false
+    }
+
+    private fun writeMetadata(entry: ApplicationRecord, record: RecordView, metadata: RecordProjection.Metadata) {
+        when (metadata) {
+            RecordProjection.Metadata.INDEX -> output.writeLong(entry.index)
+            RecordProjection.Metadata.TERM -> output.writeLong(entry.term)
+            RecordProjection.Metadata.POSITION -> output.writeLong(record.position)
+            RecordProjection.Metadata.SOURCE_RECORD_POSITION -> output.writeLong(record.sourceRecordPosition)
+            RecordProjection.Metadata.TIMESTAMP -> output.writeLong(record.timestamp)
+            RecordProjection.Metadata.KEY -> output.writeLong(record.key)
+            RecordProjection.Metadata.RECORD_TYPE -> writeText(record.recordType.name)
+            RecordProjection.Metadata.VALUE_TYPE -> writeText(record.valueType.name)
+            RecordProjection.Metadata.INTENT -> writeText(record.intent.name())
+            RecordProjection.Metadata.REJECTION_TYPE -> writeText(record.rejectionType.name)
+            RecordProjection.Metadata.REJECTION_REASON -> writeText(record.rejectionReason)
+            RecordProjection.Metadata.REQUEST_ID -> output.writeLong(record.requestId)
+            RecordProjection.Metadata.REQUEST_STREAM_ID -> output.writeLong(record.requestStreamId.toLong())
+            RecordProjection.Metadata.PROTOCOL_VERSION -> output.writeLong(record.protocolVersion.toLong())
+            RecordProjection.Metadata.BROKER_VERSION -> writeText(record.brokerVersion)
+            RecordProjection.Metadata.RECORD_VERSION -> output.writeLong(record.recordVersion.toLong())
+            RecordProjection.Metadata.AUTH_DATA -> writeText(record.authData)
+        }
+    }
+
+    private fun writeValue(record: RecordView, path: List<ByteArray>) {
+        val offset = record.findValue(path)
+        if (offset < 0) {
+            // missing values are empty in CSV and tables
+            if (format == Format.JSON) {
+                output.writeAscii("null")
+            }
+            return
+        }
+        val length = record.foundValueLength
+
+        if (format != Format.JSON) {
+            valueReader.wrap(record.valueBuffer, offset, length)
+            val token = valueReader.readToken()
+            if (token.type == MsgPackType.STRING) {
+                // plain strings, like in the table format
+                val string = token.valueBuffer
+                writeBytes(string, 0, string.capacity())
+                return
+            }
+        }
+        val jsonLength = transcoder.transcode(record.valueBuffer, offset, length, valueJson, 0)
+        writeBytes(valueJson, 0, jsonLength)
+    }
+
+    private fun writeSeparator() {
+        output.writeByte(if (format == Format.TABLE) ' '.code else ','.code)
+    }
+
+    private fun writeText(text: String) {
+        when (format) {
+            Format.JSON -> output.writeJsonString(text)
+            Format.CSV -> {
+                if (needsQuotes(text)) {
+                    output.writeByte('"'.code)
+                    output.writeUtf8(text.replace("\"", "\"\""), false)
+                    output.writeByte('"'.code)
+                } else {
+                    output.writeUtf8(text, false)
+                }
+            }
+            Format.TABLE -> output.writeUtf8(text, false)
+        }
+    }
+
+    /**
+     * Writes the given UTF-8 encoded bytes, which are quoted for CSV if necessary.
+     */
+    private fun writeBytes(buffer: DirectBuffer, offset: Int, length: Int) {
+        if (format != Format.CSV || !needsQuotes(buffer, offset, length)) {
+            output.writeBytes(buffer, offset, length)
+            return
+        }
+        output.writeByte('"'.code)
+        for (i in offset until offset + length) {
+            val byte = buffer.getByte(i).toInt()
+            if (byte == '"'.code) {
+                output.writeByte('"'.code)
+            }
+            output.writeByte(byte)
+        }
+        output.writeByte('"'.code)
+    }
+
+    private fun needsQuotes(text: String): Boolean {
+        return text.any { isCsvSpecial(it.code) }
+    }
+
+    private fun needsQuotes(buffer: DirectBuffer, offset: Int, length: Int): Boolean {
+        for (i in offset until offset + length) {
+            if (isCsvSpecial(buffer.getByte(i).toInt())) {
+                return true
+            }
+        }
+        return false
+    }
+
+    private fun isCsvSpecial(char: Int): Boolean {
+        return char == ','.code || char == '"'.code || char == '\n'.code || char == '\r'.code
+    }
+}
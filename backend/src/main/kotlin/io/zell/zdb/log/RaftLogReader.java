@@ -17,15 +17,29 @@
 package io.zell.zdb.log;
 
 
+import io.zell.zdb.log.records.IndexedRaftLogEntry;
 import io.zell.zdb.log.records.IndexedRaftLogEntryImpl;
 
 import java.util.Iterator;
 
 public interface RaftLogReader extends Iterator<IndexedRaftLogEntryImpl>, AutoCloseable {
 
+    /**
+     * Same as {@link #next()}, but the returned entry and its journal record are reused by the
+     * reader and point directly into the log. They are only valid until the next entry is read and
+     * have to be copied if they should be kept.
+     */
+    IndexedRaftLogEntry nextFlyweight();
+
     long seek(long index);
 
     long seekToAsqn(final long asqn);
 
+    /**
+     * Returns the index of the entry which would be returned by {@link #next()}, regardless of
+     * whether it exists yet.
+     */
+    long getNextIndex();
+
     void close();
 }
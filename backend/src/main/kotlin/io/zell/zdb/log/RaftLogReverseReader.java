@@ -0,0 +1,71 @@
+/*
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.log;
+
+import io.atomix.raft.storage.log.entry.RaftLogEntry;
+import io.atomix.raft.storage.serializer.RaftEntrySBESerializer;
+import io.atomix.raft.storage.serializer.RaftEntrySerializer;
+import io.zell.zdb.journal.ReverseJournalReader;
+import io.zell.zdb.log.records.IndexedRaftLogEntry;
+import io.zell.zdb.log.records.IndexedRaftLogEntryImpl;
+import io.zell.zdb.log.records.MutableIndexedRaftLogEntry;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/** Raft log reader which returns the newest entries first, see {@link ReverseJournalReader}. */
+public class RaftLogReverseReader implements Iterator<IndexedRaftLogEntryImpl>, AutoCloseable {
+    private final ReverseJournalReader journalReader;
+    private final RaftEntrySerializer serializer = new RaftEntrySBESerializer();
+    private final MutableIndexedRaftLogEntry flyweight = new MutableIndexedRaftLogEntry();
+
+    public RaftLogReverseReader(final ReverseJournalReader journalReader) {
+        this.journalReader = journalReader;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return journalReader.hasNext();
+    }
+
+    @Override
+    public IndexedRaftLogEntryImpl next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        final var journalRecord = journalReader.next();
+        final RaftLogEntry entry = serializer.readRaftLogEntry(journalRecord.data());
+
+        return new IndexedRaftLogEntryImpl(entry.term(), entry.entry(), journalRecord);
+    }
+
+    /** See {@link RaftLogReader#nextFlyweight()}. */
+    public IndexedRaftLogEntry nextFlyweight() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        final var journalRecord = journalReader.nextFlyweight();
+        final RaftLogEntry entry = serializer.readRaftLogEntry(journalRecord.data());
+
+        return flyweight.wrap(entry.term(), entry.entry(), journalRecord);
+    }
+
+    @Override
+    public void close() {
+        journalReader.close();
+    }
+}
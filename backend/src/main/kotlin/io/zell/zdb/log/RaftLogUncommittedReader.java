@@ -21,7 +21,9 @@ import io.atomix.raft.storage.log.entry.RaftLogEntry;
 import io.atomix.raft.storage.serializer.RaftEntrySBESerializer;
 import io.atomix.raft.storage.serializer.RaftEntrySerializer;
 import io.zell.zdb.journal.JournalReader;
+import io.zell.zdb.log.records.IndexedRaftLogEntry;
 import io.zell.zdb.log.records.IndexedRaftLogEntryImpl;
+import io.zell.zdb.log.records.MutableIndexedRaftLogEntry;
 
 import java.util.NoSuchElementException;
 
@@ -32,6 +34,7 @@ import java.util.NoSuchElementException;
 public class RaftLogUncommittedReader implements RaftLogReader {
     private final JournalReader journalReader;
     private final RaftEntrySerializer serializer = new RaftEntrySBESerializer();
+    private final MutableIndexedRaftLogEntry flyweight = new MutableIndexedRaftLogEntry();
 
     public RaftLogUncommittedReader(final JournalReader journalReader) {
         this.journalReader = journalReader;
@@ -54,6 +57,19 @@ public class RaftLogUncommittedReader implements RaftLogReader {
         return new IndexedRaftLogEntryImpl(entry.term(), entry.entry(), journalRecord);
     }
 
+    @Override
+    public IndexedRaftLogEntry nextFlyweight() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        final var journalRecord = journalReader.nextFlyweight();
+        // the raft entry itself is still decoded by the atomix serializer, it only wraps the data
+        final RaftLogEntry entry = serializer.readRaftLogEntry(journalRecord.data());
+
+        return flyweight.wrap(entry.term(), entry.entry(), journalRecord);
+    }
+
     @Override
     public long seek(final long index) {
         return journalReader.seek(index);
@@ -64,6 +80,11 @@ public class RaftLogUncommittedReader implements RaftLogReader {
         return journalReader.seekToAsqn(asqn);
     }
 
+    @Override
+    public long getNextIndex() {
+        return journalReader.getNextIndex();
+    }
+
     @Override
     public void close() {
         journalReader.close();
@@ -0,0 +1,74 @@
+/*
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.log
+
+import io.camunda.zeebe.protocol.record.RecordType
+import io.camunda.zeebe.protocol.record.ValueType
+import io.zell.zdb.log.records.RecordView
+
+/**
+ * Filter which is applied on the raw records of an application entry, before anything is
+ * materialized. The given view is reused for all records of the log, it is only valid during the
+ * call and must not be kept.
+ *
+ * An application entry (batch of records) is accepted, if at least one of its records matches.
+ */
+fun interface RecordFilter {
+
+    fun test(record: RecordView): Boolean
+
+    /**
+     * Returns whether records of the segment with the given summary might match the filter.
+     * Segments which can't match are skipped without reading them, by default every segment is
+     * read.
+     */
+    fun mightMatch(summary: SegmentSummary): Boolean = true
+
+    companion object {
+        /**
+         * Combines the given filters, a record has to match all of them.
+         */
+        fun allOf(first: RecordFilter, second: RecordFilter): RecordFilter {
+            return object : RecordFilter {
+                override fun test(record: RecordView) = first.test(record) && second.test(record)
+                override fun mightMatch(summary: SegmentSummary) =
+                    first.mightMatch(summary) && second.mightMatch(summary)
+            }
+        }
+
+        fun processInstance(instanceKey: Long): RecordFilter {
+            return object : RecordFilter {
+                override fun test(record: RecordView) = record.processInstanceKey == instanceKey
+                override fun mightMatch(summary: SegmentSummary) = summary.mightContainKey(instanceKey)
+            }
+        }
+
+        fun rejections(): RecordFilter {
+            return object : RecordFilter {
+                override fun test(record: RecordView) = record.recordType == RecordType.COMMAND_REJECTION
+                override fun mightMatch(summary: SegmentSummary) =
+                    summary.containsRecordType(RecordType.COMMAND_REJECTION)
+            }
+        }
+
+        fun valueType(valueType: ValueType): RecordFilter {
+            return object : RecordFilter {
+                override fun test(record: RecordView) = record.valueType == valueType
+                override fun mightMatch(summary: SegmentSummary) = summary.containsValueType(valueType)
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.log
+
+/**
+ * The fields which should be written per record, e.g. `position,key,valueType,intent,processInstanceKey`.
+ *
+ * Metadata fields are named like in the JSON format, in addition the `index` and `term` of the
+ * entry are available. Every other field is a path into the record value, nested properties are
+ * separated by dots, e.g. `variables.foo`. The variables are a MsgPack document embedded as binary,
+ * their properties are read like nested properties.
+ */
+class RecordProjection(fieldNames: List<String>) {
+
+    enum class Metadata(val fieldName: String) {
+        INDEX("index"),
+        TERM("term"),
+        POSITION("position"),
+        SOURCE_RECORD_POSITION("sourceRecordPosition"),
+        TIMESTAMP("timestamp"),
+        KEY("key"),
+        RECORD_TYPE("recordType"),
+        VALUE_TYPE("valueType"),
+        INTENT("intent"),
+        REJECTION_TYPE("rejectionType"),
+        REJECTION_REASON("rejectionReason"),
+        REQUEST_ID("requestId"),
+        REQUEST_STREAM_ID("requestStreamId"),
+        PROTOCOL_VERSION("protocolVersion"),
+        BROKER_VERSION("brokerVersion"),
+        RECORD_VERSION("recordVersion"),
+        AUTH_DATA("authData")
+    }
+
+    /**
+     * A single field, either a metadata field or a path into the record value.
+     */
+    class Field(val name: String, val metadata: Metadata?, val valuePath: List<ByteArray>)
+
+    val fields: List<Field> = fieldNames
+        .map { it.trim() }
+        .filter { it.isNotEmpty() }
+        .map { name ->
+            val metadata = Metadata.values().firstOrNull { it.fieldName == name }
+            val valuePath = if (metadata == null) name.split('.').map { it.toByteArray() } else emptyList()
+            Field(name, metadata, valuePath)
+        }
+
+    init {
+        require(fields.isNotEmpty()) { "Expected at least one field to project, but got $fieldNames" }
+    }
+
+    companion object {
+        /**
+         * The fields of the table format, which are used if no fields are given.
+         */
+        val DEFAULT_FIELDS = listOf(
+            "index", "term", "position", "sourceRecordPosition", "timestamp", "key",
+            "recordType", "valueType", "intent", "processInstanceKey", "bpmnElementType")
+    }
+}
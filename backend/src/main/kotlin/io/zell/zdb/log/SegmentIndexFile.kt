@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.log
+
+import io.zell.zdb.journal.file.SegmentInfo
+import io.zell.zdb.journal.file.SegmentedReadOnlyJournal
+import java.io.BufferedInputStream
+import java.io.BufferedOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.IOException
+import java.nio.file.AtomicMoveNotSupportedException
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+
+/**
+ * Persists data which is derived from the segments of a log, like the [ProcessInstanceIndex]. The
+ * data is stored per segment, together with the file state of the segment. When it is loaded again,
+ * only segments which changed since, e.g. the last segment of a running broker, and new segments are
+ * read again.
+ *
+ * The file is only a cache, if it can't be read or written the data is built again.
+ */
+internal class SegmentIndexFile<T>(
+    private val file: Path,
+    private val magic: Int,
+    private val version: Int,
+    private val infoOf: (T) -> SegmentInfo,
+    private val readEntry: (DataInputStream, SegmentInfo) -> T,
+    private val writeEntry: (DataOutputStream, T) -> Unit
+) {
+
+    /**
+     * Returns the entries of all segments, in segment order. Entries of segments which are not
+     * stored, or changed since, are built concurrently and the file is updated afterwards.
+     */
+    fun load(journal: SegmentedReadOnlyJournal, build: (Long) -> T): List<T> {
+        val storedEntries = read()
+        val segmentInfos = journal.segmentIndexes.map { journal.getSegmentInfo(it) }
+        val changedSegments = segmentInfos
+            .filter { storedEntries[it.fileName]?.let(infoOf) != it }
+            .map { it.firstIndex }
+
+        val builtEntries = mutableMapOf<Long, T>()
+        ParallelLogScan(journal).scanSegments(changedSegments, build)
+            .forEach { builtEntries[infoOf(it).firstIndex] = it }
+
+        val entries = segmentInfos.map { builtEntries[it.firstIndex] ?: storedEntries.getValue(it.fileName) }
+        if (changedSegments.isNotEmpty()) {
+            write(entries)
+        }
+        return entries
+    }
+
+    private fun read(): Map<String, T> {
+        if (!Files.isReadable(file)) {
+            return emptyMap()
+        }
+
+        try {
+            DataInputStream(BufferedInputStream(Files.newInputStream(file))).use { input ->
+                if (input.readInt() != magic || input.readInt() != version) {
+                    return emptyMap()
+                }
+
+                val entries = mutableMapOf<String, T>()
+                repeat(readCount(input, SEGMENT_INFO_BYTES)) {
+                    val info = SegmentInfo(input.readUTF(), input.readLong(), input.readLong(), input.readLong())
+                    entries[info.fileName] = readEntry(input, info)
+                }
+                return entries
+            }
+        } catch (e: IOException) {
+            // the file is corrupt or truncated, the entries are built again
+            return emptyMap()
+        }
+    }
+
+    private fun write(entries: List<T>) {
+        val tempFile = file.resolveSibling("${file.fileName}.tmp")
+        try {
+            Files.createDirectories(file.toAbsolutePath().parent)
+            DataOutputStream(BufferedOutputStream(Files.newOutputStream(tempFile))).use { output ->
+                output.writeInt(magic)
+                output.writeInt(version)
+                output.writeInt(entries.size)
+                for (entry in entries) {
+                    val info = infoOf(entry)
+                    output.writeUTF(info.fileName)
+                    output.writeLong(info.firstIndex)
+                    output.writeLong(info.fileSize)
+                    output.writeLong(info.lastModified)
+                    writeEntry(output, entry)
+                }
+            }
+
+            try {
+                Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING)
+            } catch (e: AtomicMoveNotSupportedException) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING)
+            }
+        } catch (e: IOException) {
+            // the entries are built again on the next run
+        }
+    }
+
+    companion object {
+        // file name length, first index, file size and last modified
+        private const val SEGMENT_INFO_BYTES = Short.SIZE_BYTES + 3 * Long.SIZE_BYTES
+
+        /**
+         * Reads the count of the following elements, which have at least the given size. A count
+         * which doesn't fit into the rest of the file is corrupt and fails the read, instead of
+         * allocating an array of that size.
+         */
+        fun readCount(input: DataInputStream, elementBytes: Int): Int {
+            val count = input.readInt()
+            val remainingBytes = input.available()
+            if (count < 0 || count.toLong() * elementBytes > remainingBytes) {
+                throw IOException(
+                    "Expected $count elements of $elementBytes bytes, but only $remainingBytes bytes remain")
+            }
+            return count
+        }
+    }
+}
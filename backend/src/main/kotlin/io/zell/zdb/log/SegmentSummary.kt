@@ -0,0 +1,194 @@
+/*
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.log
+
+import io.atomix.raft.storage.log.entry.SerializedApplicationEntry
+import io.camunda.zeebe.protocol.record.RecordType
+import io.camunda.zeebe.protocol.record.ValueType
+import io.camunda.zeebe.protocol.record.intent.Intent
+import io.zell.zdb.journal.file.SegmentInfo
+import io.zell.zdb.journal.file.SegmentedReadOnlyJournal
+import io.zell.zdb.log.records.RecordView
+import org.agrona.collections.LongArrayList
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.IOException
+import java.nio.file.Path
+import java.util.BitSet
+
+/**
+ * Summary of the records of a single segment, which allows to skip segments that can't contain
+ * records matching a [RecordFilter], without reading them.
+ *
+ * Contains the position and timestamp range of the records, which record types, value types and
+ * intents occur, and a bloom filter of the record keys and process instance keys. Segments without
+ * application entries have an empty summary, which matches no filter. Types are identified by their
+ * protocol value, which stays the same across Zeebe versions, unlike the enum ordinal.
+ */
+class SegmentSummary internal constructor(
+    val info: SegmentInfo,
+    val minPosition: Long,
+    val maxPosition: Long,
+    val minTimestamp: Long,
+    val maxTimestamp: Long,
+    private val recordTypes: BitSet,
+    private val valueTypes: BitSet,
+    private val intents: BitSet,
+    private val keys: BloomFilter
+) {
+
+    fun containsRecordType(recordType: RecordType): Boolean {
+        return recordTypes.get(recordType.value().toInt())
+    }
+
+    fun containsValueType(valueType: ValueType): Boolean {
+        return valueTypes.get(valueType.value().toInt())
+    }
+
+    fun containsIntent(valueType: ValueType, intent: Intent): Boolean {
+        val bit = intentBit(valueType, intent)
+        return if (bit < 0) containsValueType(valueType) else intents.get(bit)
+    }
+
+    /**
+     * Returns whether a record with the given key or process instance key might be part of the
+     * segment. False positives are possible, so the segment still has to be read.
+     */
+    fun mightContainKey(key: Long): Boolean {
+        return keys.mightContain(key)
+    }
+
+    companion object {
+        private const val MAGIC = 0x5a444253 // ZDBS
+        // version 1 identified the types by their enum ordinal
+        private const val VERSION = 2
+        private const val INTENTS_PER_VALUE_TYPE = 64
+
+        /**
+         * Returns the summaries of all segments of the journal, in segment order. The summaries are
+         * persisted in the given file, only segments which are new or changed since, are read again.
+         */
+        fun loadAll(journal: SegmentedReadOnlyJournal, file: Path): List<SegmentSummary> {
+            val summaryFile = SegmentIndexFile(file, MAGIC, VERSION, SegmentSummary::info, ::read, ::write)
+            return summaryFile.load(journal) { summarize(journal, it) }
+        }
+
+        private fun intentBit(valueType: ValueType, intent: Intent): Int {
+            val value = intent.value().toInt()
+            if (value < 0 || value >= INTENTS_PER_VALUE_TYPE) {
+                return -1
+            }
+            return valueType.value() * INTENTS_PER_VALUE_TYPE + value
+        }
+
+        private fun summarize(journal: SegmentedReadOnlyJournal, segmentIndex: Long): SegmentSummary {
+            var minPosition = Long.MAX_VALUE
+            var maxPosition = Long.MIN_VALUE
+            var minTimestamp = Long.MAX_VALUE
+            var maxTimestamp = Long.MIN_VALUE
+            val recordTypes = BitSet()
+            val valueTypes = BitSet()
+            val intents = BitSet()
+            // might contain duplicates, which only makes the bloom filter a bit larger
+            val keys = LongArrayList()
+            var lastProcessInstanceKey: Long? = null
+            val view = RecordView()
+
+            RaftLogUncommittedReader(journal.openSegmentReader(segmentIndex)).use { reader ->
+                while (reader.hasNext()) {
+                    val entry = reader.nextFlyweight()
+                    if (!entry.isApplicationEntry) {
+                        continue
+                    }
+
+                    val applicationEntry = entry.applicationEntry as SerializedApplicationEntry
+                    minPosition = minOf(minPosition, applicationEntry.lowestPosition())
+                    maxPosition = maxOf(maxPosition, applicationEntry.highestPosition())
+                    val data = applicationEntry.data()
+                    var offset = 0
+                    while (offset < data.capacity()) {
+                        view.wrap(data, offset)
+                        minTimestamp = minOf(minTimestamp, view.timestamp)
+                        maxTimestamp = maxOf(maxTimestamp, view.timestamp)
+                        recordTypes.set(view.recordType.value().toInt())
+                        valueTypes.set(view.valueType.value().toInt())
+                        val intentBit = intentBit(view.valueType, view.intent)
+                        if (intentBit >= 0) {
+                            intents.set(intentBit)
+                        }
+                        keys.addLong(view.key)
+                        val processInstanceKey = view.processInstanceKey
+                        // consecutive records mostly belong to the same instance
+                        if (processInstanceKey != null && processInstanceKey != lastProcessInstanceKey) {
+                            keys.addLong(processInstanceKey)
+                            lastProcessInstanceKey = processInstanceKey
+                        }
+                        offset += view.length
+                    }
+                }
+            }
+
+            val bloomFilter = BloomFilter.create(keys.size)
+            for (i in 0 until keys.size) {
+                bloomFilter.put(keys.getLong(i))
+            }
+            return SegmentSummary(
+                journal.getSegmentInfo(segmentIndex),
+                minPosition, maxPosition, minTimestamp, maxTimestamp,
+                recordTypes, valueTypes, intents, bloomFilter)
+        }
+
+        private fun read(input: DataInputStream, info: SegmentInfo): SegmentSummary {
+            return SegmentSummary(
+                info,
+                input.readLong(), input.readLong(), input.readLong(), input.readLong(),
+                readBitSet(input), readBitSet(input), readBitSet(input),
+                readBloomFilter(input))
+        }
+
+        private fun write(output: DataOutputStream, summary: SegmentSummary) {
+            output.writeLong(summary.minPosition)
+            output.writeLong(summary.maxPosition)
+            output.writeLong(summary.minTimestamp)
+            output.writeLong(summary.maxTimestamp)
+            writeLongs(output, summary.recordTypes.toLongArray())
+            writeLongs(output, summary.valueTypes.toLongArray())
+            writeLongs(output, summary.intents.toLongArray())
+            writeLongs(output, summary.keys.bits)
+        }
+
+        private fun readBitSet(input: DataInputStream): BitSet {
+            return BitSet.valueOf(readLongs(input))
+        }
+
+        private fun readBloomFilter(input: DataInputStream): BloomFilter {
+            val bits = readLongs(input)
+            if (bits.isEmpty()) {
+                throw IOException("Expected a bloom filter with at least one word, but it was empty")
+            }
+            return BloomFilter(bits)
+        }
+
+        private fun readLongs(input: DataInputStream): LongArray {
+            return LongArray(SegmentIndexFile.readCount(input, Long.SIZE_BYTES)) { input.readLong() }
+        }
+
+        private fun writeLongs(output: DataOutputStream, values: LongArray) {
+            output.writeInt(values.size)
+            values.forEach { output.writeLong(it) }
+        }
+    }
+}
@@ -15,9 +15,34 @@
  */
 package io.zell.zdb.log.records
 
-class ApplicationRecord(val index: Long, val term: Long, val highestPosition: Long, val lowestPosition: Long) :
+import org.agrona.DirectBuffer
+
+class ApplicationRecord(val index: Long, val term: Long, val highestPosition: Long, val lowestPosition: Long,
+                        @PublishedApi internal val data: DirectBuffer) :
     PersistedRecord {
-    val entries = mutableListOf<Record>()
+
+    /**
+     * Lazy views on the records of this entry, nothing is decoded until a property is accessed.
+     */
+    val recordViews: List<RecordView> by lazy { RecordView.readAll(data) }
+
+    /**
+     * Wraps the given view around each record of this entry, one after another. Contrary to
+     * [recordViews] no view is allocated per record, the view is only valid during the call.
+     */
+    inline fun forEachRecordView(view: RecordView = RecordView(), action: (RecordView) -> Unit) {
+        var offset = 0
+        while (offset < data.capacity()) {
+            view.wrap(data, offset)
+            action(view)
+            offset += view.length
+        }
+    }
+
+    /**
+     * Materialized records of this entry, the record values are converted to JSON on first access.
+     */
+    val entries: List<Record> by lazy { recordViews.map { it.toRecord() } }
 
     override fun index(): Long {
         return index;
@@ -39,8 +64,9 @@ class ApplicationRecord(val index: Long, val term: Long, val highestPosition: Lo
     }
 
 
-    fun entryAsColumn(record: Record): String {
-//        val record = Json{ignoreUnknownKeys = true}.decodeFromString<Record>(recordAsJson)
+    fun entryAsColumn(record: RecordView): String {
+        // the column format only contains metadata and a few value properties, so we don't need to
+        // convert the value to json
         val stringBuilder = StringBuilder()
         val separator = " "
         stringBuilder
@@ -58,20 +84,17 @@ class ApplicationRecord(val index: Long, val term: Long, val highestPosition: Lo
             .append(separator)
             .append(record.intent)
 
-        val piRelatedValue = record.piRelatedValue
-        piRelatedValue?.let {
-            piRelatedValue.processInstanceKey?.let {
-                stringBuilder
-                    .append(separator)
-                    .append(it)
-                    .append(separator)
-            }
+        record.processInstanceKey?.let {
+            stringBuilder
+                .append(separator)
+                .append(it)
+                .append(separator)
+        }
 
-            piRelatedValue.bpmnElementType?.let {
-                stringBuilder
-                    .append(it)
-                    .append(separator)
-            }
+        record.bpmnElementType?.let {
+            stringBuilder
+                .append(it)
+                .append(separator)
         }
         return stringBuilder.toString()
     }
@@ -79,7 +102,7 @@ class ApplicationRecord(val index: Long, val term: Long, val highestPosition: Lo
     override fun asColumnString(): String {
         val prefix = """$index $term """
         val stringBuilder = StringBuilder()
-        entries.forEach {
+        forEachRecordView {
             stringBuilder.append(prefix).append(entryAsColumn(it)).appendLine()
         }
         return stringBuilder.toString()
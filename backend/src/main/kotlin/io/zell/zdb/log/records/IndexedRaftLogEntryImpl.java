@@ -17,14 +17,12 @@
  */
 package io.zell.zdb.log.records;
 
-import io.atomix.raft.protocol.PersistedRaftRecord;
-import io.atomix.raft.storage.log.entry.ApplicationEntry;
 import io.atomix.raft.storage.log.entry.RaftEntry;
 import io.zell.zdb.journal.ReadOnlyJournalRecord;
 
 /** Indexed journal entry. */
 public record IndexedRaftLogEntryImpl(long index, long term, RaftEntry entry, ReadOnlyJournalRecord record)
-         {
+        implements IndexedRaftLogEntry {
     public IndexedRaftLogEntryImpl(final long term, final RaftEntry entry, final ReadOnlyJournalRecord record) {
         this(record.index(), term, entry, record);
     }
@@ -36,20 +34,6 @@ public record IndexedRaftLogEntryImpl(long index, long term, RaftEntry entry, Re
         this.record = record;
     }
 
-    public boolean isApplicationEntry() {
-        return this.entry instanceof ApplicationEntry;
-    }
-
-    public ApplicationEntry getApplicationEntry() {
-        return (ApplicationEntry)this.entry;
-    }
-
-    public PersistedRaftRecord getPersistedRaftRecord() {
-        byte[] serializedRaftLogEntry = new byte[this.record.data().capacity()];
-        this.record.data().getBytes(0, serializedRaftLogEntry);
-        return new PersistedRaftRecord(this.term, this.index, this.record.asqn(), this.record.checksum(), serializedRaftLogEntry);
-    }
-
     public long index() {
         return this.index;
     }
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2017-present Open Networking Foundation
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.log.records;
+
+import io.atomix.raft.storage.log.entry.RaftEntry;
+import io.zell.zdb.journal.ReadOnlyJournalRecord;
+
+/**
+ * Indexed raft entry which is reused by a reader for every entry it reads. It is only valid until
+ * the next entry is read, see {@link io.zell.zdb.log.RaftLogReader#nextFlyweight()}.
+ */
+public final class MutableIndexedRaftLogEntry implements IndexedRaftLogEntry {
+
+    private long term;
+    private RaftEntry entry;
+    private ReadOnlyJournalRecord record;
+
+    public MutableIndexedRaftLogEntry wrap(
+        final long term, final RaftEntry entry, final ReadOnlyJournalRecord record) {
+        this.term = term;
+        this.entry = entry;
+        this.record = record;
+        return this;
+    }
+
+    @Override
+    public long index() {
+        return record.index();
+    }
+
+    @Override
+    public long term() {
+        return term;
+    }
+
+    @Override
+    public RaftEntry entry() {
+        return entry;
+    }
+
+    @Override
+    public ReadOnlyJournalRecord record() {
+        return record;
+    }
+}
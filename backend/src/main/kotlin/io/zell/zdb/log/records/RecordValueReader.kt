@@ -0,0 +1,151 @@
+/*
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.log.records
+
+import io.camunda.zeebe.msgpack.spec.MsgPackReader
+import io.camunda.zeebe.msgpack.spec.MsgPackToken
+import io.camunda.zeebe.msgpack.spec.MsgPackType
+import org.agrona.DirectBuffer
+
+/**
+ * Reads single top level properties of a MsgPack encoded record value, without
+ * converting the complete value to JSON. The reader is not thread safe and is meant
+ * to be reused per record view.
+ */
+class RecordValueReader {
+
+    private val reader = MsgPackReader()
+
+    fun readLong(buffer: DirectBuffer, offset: Int, length: Int, property: ByteArray): Long? {
+        val token = readProperty(buffer, offset, length, property) ?: return null
+        return if (token.type == MsgPackType.INTEGER) token.integerValue else null
+    }
+
+    fun readString(buffer: DirectBuffer, offset: Int, length: Int, property: ByteArray): String? {
+        val token = readProperty(buffer, offset, length, property) ?: return null
+        if (token.type != MsgPackType.STRING) {
+            return null
+        }
+        val valueBuffer = token.valueBuffer
+        return valueBuffer.getStringWithoutLengthUtf8(0, valueBuffer.capacity())
+    }
+
+    /**
+     * Length of the value found by the last call of [findValue].
+     */
+    var foundLength = 0
+        private set
+
+    /**
+     * Finds the value of the given property path, e.g. `variables`, `foo` for a nested property,
+     * and returns its offset in the buffer, or -1 if there is no such value. The value itself is not
+     * read, its length is available via [foundLength] afterwards. Documents which are embedded as
+     * binary, like the variables, are searched like nested maps.
+     */
+    fun findValue(buffer: DirectBuffer, offset: Int, length: Int, path: List<ByteArray>): Int {
+        if (length <= 0 || path.isEmpty()) {
+            return -1
+        }
+
+        var documentOffset = offset
+        reader.wrap(buffer, offset, length)
+        for ((depth, property) in path.withIndex()) {
+            var mapToken = reader.readToken()
+            if (mapToken.type == MsgPackType.BINARY) {
+                // the binary is a MsgPack document on its own, its content ends at the reader offset
+                val documentLength = mapToken.valueBuffer.capacity()
+                documentOffset += reader.offset - documentLength
+                reader.wrap(buffer, documentOffset, documentLength)
+                mapToken = reader.readToken()
+            }
+            if (mapToken.type != MsgPackType.MAP) {
+                return -1
+            }
+
+            var found = false
+            for (i in 0 until mapToken.size) {
+                val keyToken = reader.readToken()
+                if (keyToken.type == MsgPackType.STRING && nameEquals(keyToken.valueBuffer, property)) {
+                    found = true
+                    break
+                }
+                reader.skipValue()
+            }
+            if (!found) {
+                return -1
+            }
+            if (depth == path.size - 1) {
+                val valueOffset = reader.offset
+                reader.skipValue()
+                foundLength = reader.offset - valueOffset
+                return documentOffset + valueOffset
+            }
+        }
+        return -1
+    }
+
+    /**
+     * Reads the value of the given property path, see [findValue]. Returns null if there is no
+     * such value, the token is only valid until the next read.
+     */
+    fun readValue(buffer: DirectBuffer, offset: Int, length: Int, path: List<ByteArray>): MsgPackToken? {
+        val valueOffset = findValue(buffer, offset, length, path)
+        if (valueOffset < 0) {
+            return null
+        }
+        reader.wrap(buffer, valueOffset, foundLength)
+        return reader.readToken()
+    }
+
+    private fun readProperty(buffer: DirectBuffer, offset: Int, length: Int, property: ByteArray): MsgPackToken? {
+        if (length <= 0) {
+            return null
+        }
+
+        reader.wrap(buffer, offset, length)
+        val mapToken = reader.readToken()
+        if (mapToken.type != MsgPackType.MAP) {
+            return null
+        }
+
+        for (i in 0 until mapToken.size) {
+            val keyToken = reader.readToken()
+            if (keyToken.type == MsgPackType.STRING && nameEquals(keyToken.valueBuffer, property)) {
+                return reader.readToken()
+            }
+            reader.skipValue()
+        }
+        return null
+    }
+
+    private fun nameEquals(name: DirectBuffer, property: ByteArray): Boolean {
+        if (name.capacity() != property.size) {
+            return false
+        }
+        for (i in property.indices) {
+            if (name.getByte(i) != property[i]) {
+                return false
+            }
+        }
+        return true
+    }
+
+    companion object {
+        val PROCESS_INSTANCE_KEY = "processInstanceKey".toByteArray()
+        val PROCESS_DEFINITION_KEY = "processDefinitionKey".toByteArray()
+        val BPMN_ELEMENT_TYPE = "bpmnElementType".toByteArray()
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.log.records
+
+import io.camunda.zeebe.logstreams.impl.log.LoggedEventImpl
+import io.camunda.zeebe.msgpack.spec.MsgPackToken
+import io.camunda.zeebe.protocol.impl.encoding.MsgPackConverter
+import io.camunda.zeebe.protocol.impl.record.RecordMetadata
+import io.camunda.zeebe.protocol.record.RecordType
+import io.camunda.zeebe.protocol.record.RejectionType
+import io.camunda.zeebe.protocol.record.ValueType
+import io.camunda.zeebe.protocol.record.intent.Intent
+import io.camunda.zeebe.protocol.record.value.BpmnElementType
+import io.zell.zdb.log.records.old.RecordMetadataBefore83
+import kotlinx.serialization.json.Json
+import org.agrona.DirectBuffer
+import org.agrona.concurrent.UnsafeBuffer
+
+private const val PROTOCOL_VERSION_83 = 4
+
+/**
+ * Lazy view on a single logged event, which is part of an application entry.
+ *
+ * The view only keeps a reference to the underlying buffer, the metadata is decoded on first access
+ * and the record value is only converted to JSON when the record is materialized via [toRecord].
+ * Properties which are often used for filtering, like the process instance key, are read directly
+ * from the MsgPack encoded value.
+ */
+class RecordView {
+
+    private val loggedEvent = LoggedEventImpl()
+    private val metadata = RecordMetadata()
+    private val metadataBefore83 = RecordMetadataBefore83()
+    private val valueReader = RecordValueReader()
+    private var isMetadataRead = false
+
+    fun wrap(buffer: DirectBuffer, offset: Int): RecordView {
+        loggedEvent.wrap(buffer, offset)
+        isMetadataRead = false
+        return this
+    }
+
+    val length: Int
+        get() = loggedEvent.length
+
+    val position: Long
+        get() = loggedEvent.position
+
+    val sourceRecordPosition: Long
+        get() = loggedEvent.sourceEventPosition
+
+    val timestamp: Long
+        get() = loggedEvent.timestamp
+
+    val key: Long
+        get() = loggedEvent.key
+
+    val valueBuffer: DirectBuffer
+        get() = loggedEvent.valueBuffer
+
+    val valueOffset: Int
+        get() = loggedEvent.valueOffset
+
+    val valueLength: Int
+        get() = loggedEvent.valueLength
+
+    val protocolVersion: Int
+        get() = readMetadata().protocolVersion
+
+    val recordType: RecordType
+        get() = if (isBefore83()) metadataBefore83.recordType else metadata.recordType
+
+    val valueType: ValueType
+        get() = if (isBefore83()) metadataBefore83.valueType else metadata.valueType
+
+    val intent: Intent
+        get() = if (isBefore83()) metadataBefore83.intent else metadata.intent
+
+    val rejectionType: RejectionType
+        get() = if (isBefore83()) metadataBefore83.rejectionType else metadata.rejectionType
+
+    val rejectionReason: String
+        get() = if (isBefore83()) metadataBefore83.rejectionReason else metadata.rejectionReason
+
+    val requestId: Long
+        get() = if (isBefore83()) metadataBefore83.requestId else metadata.requestId
+
+    val requestStreamId: Int
+        get() = if (isBefore83()) metadataBefore83.requestStreamId else metadata.requestStreamId
+
+    val brokerVersion: String
+        get() = if (isBefore83()) metadataBefore83.brokerVersion.toString() else metadata.brokerVersion.toString()
+
+    /**
+     * The record version, records written before 8.3 have no version and return 0.
+     */
+    val recordVersion: Int
+        get() = if (isBefore83()) 0 else metadata.recordVersion
+
+    /**
+     * The authorization data, records written before 8.3 have none and return an empty string.
+     */
+    val authData: String
+        get() = if (isBefore83()) "" else metadata.authorization.authData.toString()
+
+    val processInstanceKey: Long?
+        get() = valueReader.readLong(valueBuffer, valueOffset, valueLength, RecordValueReader.PROCESS_INSTANCE_KEY)
+
+    val processDefinitionKey: Long?
+        get() = valueReader.readLong(valueBuffer, valueOffset, valueLength, RecordValueReader.PROCESS_DEFINITION_KEY)
+
+    val bpmnElementType: BpmnElementType?
+        get() {
+            val name = valueReader.readString(
+                valueBuffer, valueOffset, valueLength, RecordValueReader.BPMN_ELEMENT_TYPE) ?: return null
+            return BpmnElementType.values().firstOrNull { it.name == name }
+        }
+
+    /**
+     * Finds the value of the given property path in the record value, without converting it.
+     * Returns the offset of the value in the [valueBuffer], or -1 if there is no such value, the
+     * length of the value is available via [foundValueLength] afterwards.
+     */
+    fun findValue(path: List<ByteArray>): Int =
+        valueReader.findValue(valueBuffer, valueOffset, valueLength, path)
+
+    val foundValueLength: Int
+        get() = valueReader.foundLength
+
+    /**
+     * Reads the value of the given property path in the record value, or returns null if there is
+     * no such value. The token is only valid until the next value is read.
+     */
+    fun readValue(path: List<ByteArray>): MsgPackToken? =
+        valueReader.readValue(valueBuffer, valueOffset, valueLength, path)
+
+    private fun readMetadata(): RecordMetadata {
+        if (!isMetadataRead) {
+            metadata.reset()
+            loggedEvent.readMetadata(metadata)
+            if (metadata.protocolVersion < PROTOCOL_VERSION_83) {
+                loggedEvent.readMetadata(metadataBefore83)
+            }
+            isMetadataRead = true
+        }
+        return metadata
+    }
+
+    private fun isBefore83(): Boolean {
+        return readMetadata().protocolVersion < PROTOCOL_VERSION_83
+    }
+
+    /**
+     * Materializes the complete record, this includes converting the record value to JSON.
+     */
+    fun toRecord(): Record {
+        val valueJson = MsgPackConverter.convertToJson(UnsafeBuffer(valueBuffer, valueOffset, valueLength))
+        val recordValue = Json.parseToJsonElement(valueJson)
+        val piRelatedValue = ProcessInstanceRelatedValue(processInstanceKey, bpmnElementType, processDefinitionKey)
+
+        return if (isBefore83()) {
+            Record(
+                position,
+                sourceRecordPosition,
+                timestamp,
+                key,
+                metadataBefore83.recordType,
+                metadataBefore83.valueType,
+                metadataBefore83.intent,
+                metadataBefore83.rejectionType,
+                metadataBefore83.rejectionReason,
+                metadataBefore83.requestId,
+                metadataBefore83.requestStreamId,
+                metadataBefore83.protocolVersion,
+                metadataBefore83.brokerVersion.toString(),
+                0,
+                "",
+                recordValue,
+                piRelatedValue
+            )
+        } else {
+            Record(
+                position,
+                sourceRecordPosition,
+                timestamp,
+                key,
+                metadata.recordType,
+                metadata.valueType,
+                metadata.intent,
+                metadata.rejectionType,
+                metadata.rejectionReason,
+                metadata.requestId,
+                metadata.requestStreamId,
+                metadata.protocolVersion,
+                metadata.brokerVersion.toString(),
+                metadata.recordVersion,
+                metadata.authorization.authData.toString(),
+                recordValue,
+                piRelatedValue
+            )
+        }
+    }
+
+    companion object {
+        /**
+         * Creates a view for each logged event in the given application entry data. Only the frame
+         * lengths are read to find the events, nothing is decoded.
+         */
+        fun readAll(data: DirectBuffer): List<RecordView> {
+            val views = mutableListOf<RecordView>()
+            var offset = 0
+            while (offset < data.capacity()) {
+                val view = RecordView().wrap(data, offset)
+                views.add(view)
+                offset += view.length
+            }
+            return views
+        }
+    }
+}
@@ -17,15 +17,17 @@ package io.zell.zdb.state
 
 import io.camunda.zeebe.db.impl.ZeebeDbConstants
 import io.camunda.zeebe.protocol.ZbColumnFamilies
-import io.camunda.zeebe.protocol.impl.encoding.MsgPackConverter
+import io.zell.zdb.MsgPackJsonTranscoder
 import kotlinx.serialization.encodeToString
 import kotlinx.serialization.json.Json
+import org.agrona.DirectBuffer
+import org.agrona.ExpandableArrayBuffer
 import org.agrona.concurrent.UnsafeBuffer
 import org.rocksdb.*
 import java.io.FileNotFoundException
 import java.nio.file.Path
 
-class ZeebeDbReader(statePath: Path) {
+class ZeebeDbReader(statePath: Path) : AutoCloseable {
 
     private var rocksDb: RocksDB
 
@@ -74,6 +76,14 @@ class ZeebeDbReader(statePath: Path) {
         fun visit(cf: String, key: ByteArray, valueJson: String)
     }
 
+    /**
+     * Visitor to consume values transcoded to json, without creating a string per value. The buffer
+     * contains the UTF-8 encoded json and is reused for all values, it is only valid during the call.
+     */
+    fun interface JsonBufferVisitor {
+        fun visit(cf: String, key: ByteArray, valueJson: DirectBuffer)
+    }
+
     /**
      * Visitor to consume values already marshalled as json, keys are still plain bytes. Column families are
      * skipped, since this visitor is used for prefix iteration, where the prefix should be always the same.
@@ -82,6 +92,14 @@ class ZeebeDbReader(statePath: Path) {
         fun visit(key: ByteArray, valueJson: String)
     }
 
+    /**
+     * Like [JsonValueWithKeyPrefixVisitor], but the values are transcoded to json into a reused
+     * buffer, see [JsonBufferVisitor].
+     */
+    fun interface JsonBufferWithKeyPrefixVisitor {
+        fun visit(key: ByteArray, valueJson: DirectBuffer)
+    }
+
     private fun convertColumnFamilyToArray(cf: ZbColumnFamilies): ByteArray {
         val array = ByteArray(Long.SIZE_BYTES)
         val buffer = UnsafeBuffer(array)
@@ -93,10 +111,23 @@ class ZeebeDbReader(statePath: Path) {
      * Visit key-value pairs which start with the given column family as prefix.
      */
     fun visitDBWithPrefix(cf: ZbColumnFamilies, visitor: JsonValueWithKeyPrefixVisitor) {
+        visitDBWithPrefixAndJsonBuffers(cf) { key, valueJson ->
+            visitor.visit(key, valueJson.getStringWithoutLengthUtf8(0, valueJson.capacity()))
+        }
+    }
+
+    /**
+     * Visit key-value pairs which start with the given column family as prefix, the values are
+     * transcoded to json into a reused buffer.
+     */
+    fun visitDBWithPrefixAndJsonBuffers(cf: ZbColumnFamilies, visitor: JsonBufferWithKeyPrefixVisitor) {
         val prefixArray = convertColumnFamilyToArray(cf)
         val readOptions = ReadOptions()
             .setPrefixSameAsStart(true)
             .setTotalOrderSeek(false)
+        val transcoder = MsgPackJsonTranscoder()
+        val jsonBuffer = ExpandableArrayBuffer()
+        val valueJson = UnsafeBuffer(0, 0)
         rocksDb.newIterator(rocksDb.defaultColumnFamily, readOptions).use {
             it.seek(prefixArray)
             while (it.isValid) {
@@ -107,8 +138,9 @@ class ZeebeDbReader(statePath: Path) {
                 val kvCF = ZbColumnFamilies.values()[enumValue.toInt()]
 
                 if (cf == kvCF) {
-                    val jsonValue = MsgPackConverter.convertToJson(value)
-                    visitor.visit(key, jsonValue)
+                    val length = transcoder.transcode(value, jsonBuffer, 0)
+                    valueJson.wrap(jsonBuffer, 0, length)
+                    visitor.visit(key, valueJson)
                 }
                 it.next()
             }
@@ -139,10 +171,23 @@ class ZeebeDbReader(statePath: Path) {
         }
     }
 
-    fun visitDBWithJsonValues(visitor: JsonValueVisitor) {
+    /**
+     * Visits all key-value pairs, the values are transcoded to json into a reused buffer.
+     */
+    fun visitDBWithJsonBuffers(visitor: JsonBufferVisitor) {
+        val transcoder = MsgPackJsonTranscoder()
+        val jsonBuffer = ExpandableArrayBuffer()
+        val valueJson = UnsafeBuffer(0, 0)
         visitDB { cf, key, value ->
-            val jsonValue = MsgPackConverter.convertToJson(value)
-            visitor.visit(cf, key, jsonValue)
+            val length = transcoder.transcode(value, jsonBuffer, 0)
+            valueJson.wrap(jsonBuffer, 0, length)
+            visitor.visit(cf, key, valueJson)
+        }
+    }
+
+    fun visitDBWithJsonValues(visitor: JsonValueVisitor) {
+        visitDBWithJsonBuffers { cf, key, valueJson ->
+            visitor.visit(cf, key, valueJson.getStringWithoutLengthUtf8(0, valueJson.capacity()))
         }
     }
 
@@ -159,7 +204,9 @@ class ZeebeDbReader(statePath: Path) {
     fun getValueAsJson(cf: ZbColumnFamilies, key: Long): String {
         val bytes = getValue(cf, key)
         bytes?.let {
-            return MsgPackConverter.convertToJson(bytes)
+            val jsonBuffer = ExpandableArrayBuffer()
+            val length = MsgPackJsonTranscoder().transcode(bytes, jsonBuffer, 0)
+            return jsonBuffer.getStringWithoutLengthUtf8(0, length)
         }
         return "{}"
     }
@@ -179,4 +226,8 @@ class ZeebeDbReader(statePath: Path) {
         val stateStatistics = stateStatistics()
         return Json.encodeToString(stateStatistics)
     }
-}
\ No newline at end of file
+
+    override fun close() {
+        rocksDb.close()
+    }
+}
@@ -22,44 +22,78 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.atomix.raft.storage.log.entry.SerializedApplicationEntry;
 import io.camunda.zeebe.db.impl.ZeebeDbConstants;
+import io.camunda.zeebe.journal.util.ChecksumGenerator;
 import io.camunda.zeebe.model.bpmn.Bpmn;
 import io.camunda.zeebe.model.bpmn.BpmnModelInstance;
+import io.camunda.zeebe.msgpack.spec.MsgPackWriter;
 import io.camunda.zeebe.protocol.ZbColumnFamilies;
+import io.camunda.zeebe.protocol.impl.encoding.MsgPackConverter;
 import io.camunda.zeebe.protocol.record.RejectionType;
 import io.camunda.zeebe.protocol.record.ValueType;
 import io.camunda.zeebe.protocol.record.intent.ProcessInstanceIntent;
 import io.camunda.zeebe.protocol.record.value.BpmnElementType;
 import io.camunda.zeebe.protocol.record.value.ErrorType;
 import io.camunda.zeebe.util.FileUtil;
+import io.camunda.zeebe.util.buffer.BufferUtil;
 import io.zeebe.containers.ZeebeContainer;
+import io.zell.zdb.MsgPackJsonTranscoder;
 import io.zell.zdb.TestUtils;
 import io.zell.zdb.ZeebeContentCreator;
 import io.zell.zdb.ZeebePaths;
+import io.zell.zdb.journal.ReadOnlyJournalRecord;
+import io.zell.zdb.journal.file.JournalExtraction;
+import io.zell.zdb.journal.file.SegmentVerification;
+import io.zell.zdb.journal.file.SegmentedReadOnlyJournal;
+import io.zell.zdb.log.FilterExpression;
 import io.zell.zdb.log.LogContentReader;
+import io.zell.zdb.log.LogExtractor;
+import io.zell.zdb.log.LogFactory;
 import io.zell.zdb.log.LogSearch;
 import io.zell.zdb.log.LogStatus;
+import io.zell.zdb.log.LogStatusDetails;
+import io.zell.zdb.log.LogVerifier;
 import io.zell.zdb.log.LogWriter;
+import io.zell.zdb.log.ProjectedRecordWriter;
+import io.zell.zdb.log.RaftLogReverseReader;
+import io.zell.zdb.log.RaftLogUncommittedReader;
+import io.zell.zdb.log.RecordProjection;
+import io.zell.zdb.log.SegmentSummary;
 import io.zell.zdb.log.records.ApplicationRecord;
+import io.zell.zdb.log.records.IndexedRaftLogEntry;
 import io.zell.zdb.log.records.PersistedRecord;
 import io.zell.zdb.log.records.RaftRecord;
 import io.zell.zdb.log.records.Record;
+import io.zell.zdb.log.records.RecordValueReader;
+import io.zell.zdb.log.records.RecordView;
 import io.zell.zdb.state.ZeebeDbReader;
 import io.zell.zdb.state.incident.IncidentState;
 import io.zell.zdb.state.instance.InstanceState;
 import io.zell.zdb.state.process.ProcessState;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.StreamSupport;
+import org.agrona.ExpandableArrayBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
 import org.assertj.core.api.InstanceOfAssertFactories;
+import org.awaitility.Awaitility;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testcontainers.containers.BindMode;
@@ -144,6 +178,643 @@ public class VersionLatestTest {
                     .contains("highestIndex")
                     .contains("lowestIndex");
         }
+
+        @Test
+        public void shouldReadSameStatusAsExactScan() {
+            // given
+            final var logPath = ZeebePaths.Companion.getLogPath(TEMP_DIR, "1");
+            final LogStatusDetails exactStatus;
+            try (final var logStatus = new LogStatus(logPath)) {
+                exactStatus = logStatus.status(true);
+            }
+
+            // when
+            final LogStatusDetails status;
+            try (final var logStatus = new LogStatus(logPath)) {
+                status = logStatus.status();
+            }
+
+            // then
+            assertThat(status.toString()).isEqualTo(exactStatus.toString());
+            assertThat(status.getHighestIndex()).isEqualTo(213);
+            assertThat(status.getHighestRecordPosition()).isEqualTo(260);
+        }
+
+        @Test
+        public void shouldFilterLikeSequentialRead() {
+            // given
+            final var logPath = ZeebePaths.Companion.getLogPath(TEMP_DIR, "1");
+            final var expectedIndexes = new ArrayList<Long>();
+            new LogContentReader(logPath).forEachRemaining(record -> {
+                if (record instanceof ApplicationRecord applicationRecord
+                        && applicationRecord.getRecordViews().stream()
+                        .anyMatch(view -> view.getValueType() == ValueType.PROCESS_INSTANCE)) {
+                    expectedIndexes.add(record.index());
+                }
+            });
+            final var logContentReader = new LogContentReader(logPath);
+            logContentReader.filterForValueType(ValueType.PROCESS_INSTANCE);
+
+            // when
+            final var indexes = new ArrayList<Long>();
+            logContentReader.forEachRemaining(record -> indexes.add(record.index()));
+
+            // then - filtered records are returned in log order, regardless of whether segments are scanned concurrently
+            assertThat(indexes).isNotEmpty().containsExactlyElementsOf(expectedIndexes);
+        }
+
+        @Test
+        public void shouldPersistIndexForLaterSearches(@TempDir final Path indexDirectory) {
+            // given
+            final var logPath = ZeebePaths.Companion.getLogPath(TEMP_DIR, "1");
+            try (final var logStatus = new LogStatus(logPath, true, false, indexDirectory)) {
+                // reads and indexes all entries
+                logStatus.status(true);
+            }
+
+            // when
+            final Record record;
+            try (final var logSearch = new LogSearch(logPath, true, indexDirectory)) {
+                record = logSearch.searchPosition(250);
+            }
+
+            // then - the index is only persisted in the given directory, never next to the segments
+            assertThat(indexDirectory).isDirectoryContaining("glob:**.idx");
+            assertThat(logPath.resolve(".zdb-index")).doesNotExist();
+            assertThat(record).isNotNull();
+            assertThat(record.getPosition()).isEqualTo(250);
+        }
+
+        @Test
+        public void shouldSearchPositionsWithoutIndex() {
+            // given
+            final var logPath = ZeebePaths.Companion.getLogPath(TEMP_DIR, "1");
+
+            for (long position = 1; position <= 260; position += 13) {
+                // when - every search starts without in-memory index
+                final Record record;
+                try (final var logSearch = new LogSearch(logPath)) {
+                    record = logSearch.searchPosition(position);
+                }
+
+                // then
+                assertThat(record).isNotNull();
+                assertThat(record.getPosition()).isEqualTo(position);
+            }
+        }
+
+        @Test
+        public void shouldReadLogWithSmallMappingBudget() {
+            // given
+            final var logPath = ZeebePaths.Companion.getLogPath(TEMP_DIR, "1");
+            final var journal = SegmentedReadOnlyJournal.builder()
+                    .withDirectory(logPath.toFile())
+                    .withName("raft-partition-partition-1")
+                    .withMaxSegmentSize(128 * 1024 * 1024)
+                    // every segment is unmapped, as soon as the next one is read
+                    .withMaxMappedBytes(1)
+                    .build();
+
+            // when
+            final var indexes = new ArrayList<Long>();
+            try (final var reader = new RaftLogUncommittedReader(journal.openReader())) {
+                reader.forEachRemaining(entry -> indexes.add(entry.index()));
+            } finally {
+                journal.close();
+            }
+
+            // then
+            assertThat(indexes).hasSize(213).startsWith(1L).endsWith(213L);
+        }
+
+        @Test
+        public void shouldKeepRecordsAfterSegmentsAreUnmapped() {
+            // given
+            final var logPath = ZeebePaths.Companion.getLogPath(TEMP_DIR, "1");
+            final var journal = SegmentedReadOnlyJournal.builder()
+                    .withDirectory(logPath.toFile())
+                    .withName("raft-partition-partition-1")
+                    .withMaxSegmentSize(128 * 1024 * 1024)
+                    .withMaxMappedBytes(1)
+                    .build();
+            final var records = new ArrayList<ReadOnlyJournalRecord>();
+            try (final var reader = journal.openReader()) {
+                reader.forEachRemaining(records::add);
+            }
+
+            // when
+            journal.close();
+
+            // then
+            assertThat(records).hasSize(213);
+            final var checksumGenerator = new ChecksumGenerator();
+            for (final var record : records) {
+                // the records are copied, reading them doesn't touch the unmapped segments
+                final var bytes = new byte[record.serializedRecord().capacity()];
+                record.serializedRecord().getBytes(0, bytes);
+                assertThat(checksumGenerator.compute(ByteBuffer.wrap(bytes), 0, bytes.length))
+                        .isEqualTo(record.checksum());
+            }
+        }
+
+        @Test
+        public void shouldReadSameRecordsWhenStreamingSegments() {
+            // given
+            final var logPath = ZeebePaths.Companion.getLogPath(TEMP_DIR, "1");
+            final var mappedJournal = LogFactory.Companion.newJournal(logPath, true);
+            final var streamingJournal = SegmentedReadOnlyJournal.builder()
+                    .withDirectory(logPath.toFile())
+                    .withName("raft-partition-partition-1")
+                    .withMaxSegmentSize(128 * 1024 * 1024)
+                    .withStreamingReads(true)
+                    // the buffers are refilled often, larger records like deployments grow them
+                    .withReadBufferSize(4096)
+                    .build();
+
+            try (final var mappedReader = mappedJournal.openReader();
+                    final var streamingReader = streamingJournal.openReader()) {
+                // when
+                final var expectedRecords = new ArrayList<ReadOnlyJournalRecord>();
+                final var records = new ArrayList<ReadOnlyJournalRecord>();
+                mappedReader.forEachRemaining(expectedRecords::add);
+                streamingReader.forEachRemaining(records::add);
+                streamingReader.seek(150);
+                records.add(streamingReader.next());
+
+                // then
+                assertThat(records).hasSize(214);
+                assertThat(records.get(213).index()).isEqualTo(150);
+                for (int i = 0; i < expectedRecords.size(); i++) {
+                    final var expected = expectedRecords.get(i);
+                    final var record = records.get(i);
+                    assertThat(record.index()).isEqualTo(expected.index());
+                    assertThat(record.asqn()).isEqualTo(expected.asqn());
+                    assertThat(record.checksum()).isEqualTo(expected.checksum());
+                    // streamed records are copied, they stay valid after the buffer is refilled
+                    assertThat(record.data()).isEqualTo(expected.data());
+                }
+            } finally {
+                // the mapped records are only valid until the journal is closed
+                mappedJournal.close();
+                streamingJournal.close();
+            }
+        }
+
+        @Test
+        public void shouldSeekWithAnyIndexDensity() {
+            // given
+            final var logPath = ZeebePaths.Companion.getLogPath(TEMP_DIR, "1");
+
+            for (final int density : List.of(1, 7, 100)) {
+                final var journal = SegmentedReadOnlyJournal.builder()
+                        .withDirectory(logPath.toFile())
+                        .withName("raft-partition-partition-1")
+                        .withMaxSegmentSize(128 * 1024 * 1024)
+                        .withJournalIndexDensity(density)
+                        .build();
+
+                // when
+                final var indexes = new ArrayList<Long>();
+                try (final var reader = new RaftLogUncommittedReader(journal.openReader())) {
+                    // index all entries first, such that the seeks are answered via the index
+                    reader.forEachRemaining(entry -> {});
+                    for (final long index : List.of(1L, 99L, 150L, 213L)) {
+                        reader.seek(index);
+                        indexes.add(reader.next().index());
+                    }
+                } finally {
+                    journal.close();
+                }
+
+                // then
+                assertThat(indexes).containsExactly(1L, 99L, 150L, 213L);
+            }
+        }
+
+        @Test
+        public void shouldReadSameEntriesWithFlyweight() {
+            // given
+            final var logPath = ZeebePaths.Companion.getLogPath(TEMP_DIR, "1");
+            final var journal = SegmentedReadOnlyJournal.builder()
+                    .withDirectory(logPath.toFile())
+                    .withName("raft-partition-partition-1")
+                    .withMaxSegmentSize(128 * 1024 * 1024)
+                    .build();
+            final var expected = new ArrayList<String>();
+            try (final var reader = new RaftLogUncommittedReader(journal.openReader())) {
+                reader.forEachRemaining(entry -> expected.add(
+                        entry.index() + ":" + entry.term() + ":" + entry.record().checksum()));
+            }
+
+            // when
+            final var actual = new ArrayList<String>();
+            IndexedRaftLogEntry previous = null;
+            try (final var reader = new RaftLogUncommittedReader(journal.openReader())) {
+                while (reader.hasNext()) {
+                    final var entry = reader.nextFlyweight();
+                    if (previous != null) {
+                        // the same entry is reused for every read
+                        assertThat(entry).isSameAs(previous);
+                    }
+                    previous = entry;
+                    actual.add(entry.index() + ":" + entry.term() + ":" + entry.record().checksum());
+                }
+            } finally {
+                journal.close();
+            }
+
+            // then
+            assertThat(actual).hasSize(213).isEqualTo(expected);
+        }
+
+        @Test
+        public void shouldReadLogBackwards() {
+            // given
+            final var logPath = ZeebePaths.Companion.getLogPath(TEMP_DIR, "1");
+            final var journal = SegmentedReadOnlyJournal.builder()
+                    .withDirectory(logPath.toFile())
+                    .withName("raft-partition-partition-1")
+                    .withMaxSegmentSize(128 * 1024 * 1024)
+                    .build();
+
+            // when
+            final var indexes = new ArrayList<Long>();
+            try (final var reader = new RaftLogReverseReader(journal.openReverseReader())) {
+                reader.forEachRemaining(entry -> indexes.add(entry.index()));
+            } finally {
+                journal.close();
+            }
+
+            // then
+            assertThat(indexes).hasSize(213).startsWith(213L).endsWith(1L).isSortedAccordingTo(Comparator.reverseOrder());
+        }
+
+        @Test
+        public void shouldPrintTailOfLog() {
+            // given
+            final var logPath = ZeebePaths.Companion.getLogPath(TEMP_DIR, "1");
+            final var expectedIndexes = new ArrayList<Long>();
+            try (final var logContentReader = new LogContentReader(logPath)) {
+                logContentReader.forEachRemaining(record -> expectedIndexes.add(record.index()));
+            }
+
+            // when
+            final var indexes = new ArrayList<Long>();
+            final var reversedIndexes = new ArrayList<Long>();
+            try (final var logContentReader = new LogContentReader(logPath)) {
+                logContentReader.tail(5);
+                logContentReader.forEachRemaining(record -> indexes.add(record.index()));
+            }
+            try (final var logContentReader = new LogContentReader(logPath)) {
+                logContentReader.reverse();
+                logContentReader.limitToCount(5);
+                logContentReader.forEachRemaining(record -> reversedIndexes.add(record.index()));
+            }
+
+            // then
+            final var newestIndexes = expectedIndexes.subList(expectedIndexes.size() - 5, expectedIndexes.size());
+            assertThat(indexes).containsExactlyElementsOf(newestIndexes);
+            assertThat(reversedIndexes).containsExactlyElementsOf(newestIndexes.reversed());
+        }
+
+        @Test
+        public void shouldFollowEntriesWhichAreStillWritten(@TempDir final Path tempDir) throws Exception {
+            // given - a copy of the log, its last segment is written while the copy is followed
+            final var logPath = ZeebePaths.Companion.getLogPath(TEMP_DIR, "1");
+            final var fullPath = Files.createDirectories(tempDir.resolve("full").resolve("1"));
+            try (final var files = Files.list(logPath)) {
+                for (final var file : files.filter(path -> path.getFileName().toString().endsWith(".log")).toList()) {
+                    Files.copy(file, fullPath.resolve(file.getFileName()));
+                }
+            }
+            final List<String> segmentNames;
+            try (final var journal = LogFactory.Companion.newJournal(fullPath)) {
+                segmentNames = journal.getSegmentIndexes().stream()
+                        .map(segmentIndex -> journal.getSegmentInfo(segmentIndex).fileName())
+                        .toList();
+            }
+            final var expectedIndexes = new ArrayList<Long>();
+            try (final var logContentReader = new LogContentReader(fullPath)) {
+                logContentReader.forEachRemaining(record -> expectedIndexes.add(record.index()));
+            }
+
+            final var followPath = Files.createDirectories(tempDir.resolve("follow").resolve("1"));
+            for (final var segmentName : segmentNames.subList(0, segmentNames.size() - 1)) {
+                Files.copy(fullPath.resolve(segmentName), followPath.resolve(segmentName));
+            }
+            // the end of the last entry is not written yet
+            final var lastSegmentName = segmentNames.get(segmentNames.size() - 1);
+            final var lastSegment = Files.readAllBytes(fullPath.resolve(lastSegmentName));
+            var end = lastSegment.length;
+            while (lastSegment[end - 1] == 0) {
+                end--;
+            }
+            final var missingFrom = end - 16;
+            final var incompleteSegment = Arrays.copyOf(lastSegment, lastSegment.length);
+            Arrays.fill(incompleteSegment, missingFrom, end, (byte) 0);
+
+            final var indexes = Collections.synchronizedList(new ArrayList<Long>());
+            final var logContentReader = new LogContentReader(followPath);
+            logContentReader.follow();
+            logContentReader.limitToCount(expectedIndexes.size());
+            final var following = CompletableFuture.runAsync(
+                    () -> logContentReader.forEachRemaining(record -> indexes.add(record.index())));
+
+            // when - the last segment is created, but its last entry is only completed later
+            Files.write(tempDir.resolve(lastSegmentName), incompleteSegment);
+            Files.move(tempDir.resolve(lastSegmentName), followPath.resolve(lastSegmentName),
+                    StandardCopyOption.ATOMIC_MOVE);
+            Awaitility.await().atMost(Duration.ofSeconds(30))
+                    .until(() -> indexes.size() == expectedIndexes.size() - 1);
+            try (final var channel = FileChannel.open(followPath.resolve(lastSegmentName), StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(lastSegment, missingFrom, end - missingFrom), missingFrom);
+            }
+            following.get(30, TimeUnit.SECONDS);
+            logContentReader.close();
+
+            // then - the incomplete entry is read again, instead of failing
+            assertThat(indexes).containsExactlyElementsOf(expectedIndexes);
+        }
+
+        @Test
+        public void shouldPrintTimeRangeOfLog() {
+            // given
+            final var logPath = ZeebePaths.Companion.getLogPath(TEMP_DIR, "1");
+            final var timestamps = new ArrayList<Long>();
+            try (final var logContentReader = new LogContentReader(logPath)) {
+                logContentReader.forEachRemaining(record -> {
+                    if (record instanceof ApplicationRecord applicationRecord) {
+                        timestamps.add(applicationRecord.getRecordViews().get(0).getTimestamp());
+                    }
+                });
+            }
+            final var fromTime = timestamps.get(timestamps.size() / 3);
+            final var toTime = timestamps.get(timestamps.size() * 2 / 3);
+            final var expectedTimestamps = timestamps.stream()
+                    .filter(timestamp -> timestamp >= fromTime && timestamp <= toTime)
+                    .toList();
+
+            // when
+            final var actualTimestamps = new ArrayList<Long>();
+            try (final var logContentReader = new LogContentReader(logPath)) {
+                logContentReader.seekToTimestamp(fromTime);
+                logContentReader.limitToTimestamp(toTime);
+                logContentReader.forEachRemaining(record -> {
+                    if (record instanceof ApplicationRecord applicationRecord) {
+                        actualTimestamps.add(applicationRecord.getRecordViews().get(0).getTimestamp());
+                    }
+                });
+            }
+
+            // then
+            assertThat(actualTimestamps).isNotEmpty().containsExactlyElementsOf(expectedTimestamps);
+        }
+
+        @Test
+        public void shouldSeekToPositionAfterTimestamp() {
+            // given
+            final var logPath = ZeebePaths.Companion.getLogPath(TEMP_DIR, "1");
+            final var timestamps = new ArrayList<Long>();
+            try (final var logContentReader = new LogContentReader(logPath)) {
+                logContentReader.forEachRemaining(record -> {
+                    if (record instanceof ApplicationRecord applicationRecord) {
+                        timestamps.add(applicationRecord.getRecordViews().get(0).getTimestamp());
+                    }
+                });
+            }
+            final var fromPosition = 250L;
+
+            // when - the timestamp is before the position
+            final var lowestPositions = new ArrayList<Long>();
+            final var highestPositions = new ArrayList<Long>();
+            try (final var logContentReader = new LogContentReader(logPath)) {
+                logContentReader.seekToPosition(fromPosition);
+                logContentReader.seekToTimestamp(timestamps.get(0));
+                logContentReader.forEachRemaining(record -> {
+                    if (record instanceof ApplicationRecord applicationRecord) {
+                        lowestPositions.add(applicationRecord.getLowestPosition());
+                        highestPositions.add(applicationRecord.getHighestPosition());
+                    }
+                });
+            }
+
+            // then - both seeks apply, nothing before the position is returned
+            assertThat(lowestPositions).isNotEmpty();
+            assertThat(lowestPositions.get(0)).isLessThanOrEqualTo(fromPosition);
+            assertThat(highestPositions).allMatch(position -> position >= fromPosition);
+        }
+
+        @Test
+        public void shouldSkipSegmentsViaSummaries(@TempDir final Path indexDirectory) {
+            // given
+            final var logPath = ZeebePaths.Companion.getLogPath(TEMP_DIR, "1");
+            final var expectedIndexes = new ArrayList<Long>();
+            // without index files every segment is scanned
+            try (final var logContentReader = new LogContentReader(LogFactory.Companion.newJournal(logPath, true))) {
+                logContentReader.filterForValueType(ValueType.DEPLOYMENT);
+                logContentReader.forEachRemaining(record -> expectedIndexes.add(record.index()));
+            }
+
+            // when
+            final var indexes = new ArrayList<Long>();
+            try (final var logContentReader = new LogContentReader(logPath, true, false, indexDirectory)) {
+                logContentReader.filterForValueType(ValueType.DEPLOYMENT);
+                logContentReader.forEachRemaining(record -> indexes.add(record.index()));
+            }
+
+            // then
+            assertThat(indexDirectory).isDirectoryContaining("glob:**.summaries");
+            assertThat(logPath.resolve(".zdb-summaries")).doesNotExist();
+            assertThat(expectedIndexes).isNotEmpty();
+            assertThat(indexes).isEqualTo(expectedIndexes);
+        }
+
+        @Test
+        public void shouldRebuildCorruptSummaries(@TempDir final Path indexDirectory) throws Exception {
+            // given
+            final var logPath = ZeebePaths.Companion.getLogPath(TEMP_DIR, "1");
+            final var expectedIndexes = new ArrayList<Long>();
+            try (final var logContentReader = new LogContentReader(logPath, true, false, indexDirectory)) {
+                logContentReader.filterForValueType(ValueType.DEPLOYMENT);
+                logContentReader.forEachRemaining(record -> expectedIndexes.add(record.index()));
+            }
+            final Path summaries;
+            try (final var files = Files.list(indexDirectory)) {
+                summaries = files.filter(file -> file.toString().endsWith(".summaries")).findFirst().orElseThrow();
+            }
+            // magic, version and segment count, followed by the first segment and its summary
+            final var bytes = Files.readAllBytes(summaries);
+            final var buffer = ByteBuffer.wrap(bytes);
+            final var fileNameLength = buffer.getShort(3 * Integer.BYTES);
+            final var recordTypesCount = 3 * Integer.BYTES + Short.BYTES + fileNameLength + 7 * Long.BYTES;
+            buffer.putInt(recordTypesCount, -1);
+            Files.write(summaries, bytes);
+
+            // when
+            final var indexes = new ArrayList<Long>();
+            try (final var logContentReader = new LogContentReader(logPath, true, false, indexDirectory)) {
+                logContentReader.filterForValueType(ValueType.DEPLOYMENT);
+                logContentReader.forEachRemaining(record -> indexes.add(record.index()));
+            }
+
+            // then - the summaries are built again and the file is rewritten
+            assertThat(expectedIndexes).isNotEmpty();
+            assertThat(indexes).isEqualTo(expectedIndexes);
+            assertThat(ByteBuffer.wrap(Files.readAllBytes(summaries)).getInt(recordTypesCount)).isNotNegative();
+        }
+
+        @Test
+        public void shouldFilterViaExpression() {
+            // given
+            final var logPath = ZeebePaths.Companion.getLogPath(TEMP_DIR, "1");
+            final var expectedIndexes = new ArrayList<Long>();
+            try (final var logContentReader = new LogContentReader(logPath)) {
+                logContentReader.forEachRemaining(record -> {
+                    if (record instanceof ApplicationRecord applicationRecord
+                            && applicationRecord.getRecordViews().stream()
+                            .anyMatch(view -> view.getValueType() == ValueType.PROCESS_INSTANCE
+                                    && (view.getIntent() == ProcessInstanceIntent.ELEMENT_ACTIVATING
+                                        || view.getIntent() == ProcessInstanceIntent.ELEMENT_ACTIVATED)
+                                    && view.getBpmnElementType() == BpmnElementType.START_EVENT
+                                    && view.getPosition() > 10)) {
+                        expectedIndexes.add(record.index());
+                    }
+                });
+            }
+            final var filter = FilterExpression.Companion.compile(
+                    "value.bpmnElementType == \"START_EVENT\" && valueType == PROCESS_INSTANCE"
+                            + " && intent in (ELEMENT_ACTIVATING, ELEMENT_ACTIVATED) && !(position <= 10)");
+
+            // when
+            final var indexes = new ArrayList<Long>();
+            try (final var logContentReader = new LogContentReader(logPath)) {
+                logContentReader.filter(filter);
+                logContentReader.forEachRemaining(record -> indexes.add(record.index()));
+            }
+
+            // then
+            assertThat(indexes).isNotEmpty().containsExactlyElementsOf(expectedIndexes);
+        }
+
+        @Test
+        public void shouldRejectInvalidFilterExpressions() {
+            assertThatThrownBy(() -> FilterExpression.Companion.compile("valueType == UNKNOWN_TYPE"))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("at position 13: Unknown ValueType 'UNKNOWN_TYPE'");
+            assertThatThrownBy(() -> FilterExpression.Companion.compile("valueType > JOB"))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("'valueType' can only be compared with ==, != or in");
+            assertThatThrownBy(() -> FilterExpression.Companion.compile("position > 10 &&"))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("Expected a field at the end");
+            assertThatThrownBy(() -> FilterExpression.Companion.compile("(key == 1"))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("Expected ')' at the end");
+            assertThatThrownBy(() -> FilterExpression.Companion.compile("timestamp > \"yesterday\""))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("Expected an ISO-8601 instant");
+        }
+
+        @Test
+        public void shouldSummarizeSegments() {
+            // given
+            final var logPath = ZeebePaths.Companion.getLogPath(TEMP_DIR, "1");
+            final var journal = LogFactory.Companion.newJournal(logPath, true);
+
+            try (final var reader = new RaftLogUncommittedReader(journal.openReader())) {
+                // when
+                final var summaries = SegmentSummary.Companion.loadAll(journal, TEMP_DIR.toPath().resolve("summaries"));
+
+                // then
+                assertThat(summaries).hasSameSizeAs(journal.getSegmentIndexes());
+                var segment = 0;
+                while (reader.hasNext()) {
+                    final var entry = reader.next();
+                    while (segment + 1 < summaries.size()
+                            && summaries.get(segment + 1).getInfo().firstIndex() <= entry.index()) {
+                        segment++;
+                    }
+                    if (!entry.isApplicationEntry()) {
+                        continue;
+                    }
+
+                    final var summary = summaries.get(segment);
+                    final var applicationEntry = entry.getApplicationEntry();
+                    assertThat(summary.getMinPosition()).isLessThanOrEqualTo(applicationEntry.lowestPosition());
+                    assertThat(summary.getMaxPosition()).isGreaterThanOrEqualTo(applicationEntry.highestPosition());
+                    for (final var view : RecordView.Companion.readAll(((SerializedApplicationEntry) applicationEntry).data())) {
+                        assertThat(summary.containsValueType(view.getValueType())).isTrue();
+                        assertThat(summary.containsIntent(view.getValueType(), view.getIntent())).isTrue();
+                        assertThat(summary.mightContainKey(view.getKey())).isTrue();
+                    }
+                }
+            } finally {
+                journal.close();
+            }
+        }
+
+        @Test
+        public void shouldExtractIndexRange() {
+            // given
+            final var logPath = ZeebePaths.Companion.getLogPath(TEMP_DIR, "1");
+            final var target = TEMP_DIR.toPath().resolve("extracted").resolve("1");
+            final var expectedIndexes = new ArrayList<Long>();
+            try (final var logContentReader = new LogContentReader(logPath)) {
+                logContentReader.forEachRemaining(record -> {
+                    if (record.index() >= 50 && record.index() <= 150) {
+                        expectedIndexes.add(record.index());
+                    }
+                });
+            }
+
+            // when
+            final JournalExtraction extraction;
+            try (final var logExtractor = new LogExtractor(logPath)) {
+                extraction = logExtractor.extract(target, 50, 150);
+            }
+
+            // then
+            assertThat(extraction.firstIndex()).isEqualTo(50);
+            assertThat(extraction.lastIndex()).isEqualTo(150);
+            final var indexes = new ArrayList<Long>();
+            try (final var logContentReader = new LogContentReader(target)) {
+                logContentReader.forEachRemaining(record -> indexes.add(record.index()));
+            }
+            assertThat(indexes).isEqualTo(expectedIndexes);
+        }
+
+        @Test
+        public void shouldExtractIntoOtherPartition() {
+            // given
+            final var logPath = ZeebePaths.Companion.getLogPath(TEMP_DIR, "1");
+            final var target = TEMP_DIR.toPath().resolve("extracted-other").resolve("2");
+
+            // when
+            try (final var logExtractor = new LogExtractor(logPath)) {
+                logExtractor.extract(target, 50, 150);
+            }
+
+            // then - the segments are named after the partition of the target
+            final var indexes = new ArrayList<Long>();
+            try (final var logContentReader = new LogContentReader(target)) {
+                logContentReader.forEachRemaining(record -> indexes.add(record.index()));
+            }
+            assertThat(indexes).isNotEmpty().startsWith(50L).endsWith(150L);
+        }
+
+        @Test
+        public void shouldSearchPositionInLargeLog() {
+            // given
+            final var logPath = ZeebePaths.Companion.getLogPath(TEMP_DIR, "1");
+            final var logSearch = new LogSearch(logPath);
+
+            // when
+            final var record = logSearch.searchPosition(250);
+
+            // then
+            assertThat(record).isNotNull();
+            assertThat(record.getPosition()).isEqualTo(250);
+        }
     }
     @Nested
     public class ZeebeLogTest {
@@ -200,6 +871,39 @@ public class VersionLatestTest {
                     .contains("lowestIndex");
         }
 
+        @Test
+        public void shouldReadStatusWithoutVerifyingChecksums() {
+            // given
+            final var logPath = ZeebePaths.Companion.getLogPath(TEMP_DIR, "1");
+            final var logStatus = new LogStatus(logPath, false);
+
+            // when
+            final var status = logStatus.status();
+
+            // then
+            assertThat(status.getHighestIndex()).isEqualTo(15);
+            assertThat(status.getHighestRecordPosition()).isEqualTo(62);
+            assertThat(status.getLowestIndex()).isEqualTo(1);
+            assertThat(status.getLowestRecordPosition()).isEqualTo(1);
+        }
+
+        @Test
+        public void shouldVerifyLog() {
+            // given
+            final var logPath = ZeebePaths.Companion.getLogPath(TEMP_DIR, "1");
+
+            // when
+            final List<SegmentVerification> verifications;
+            try (final var logVerifier = new LogVerifier(logPath)) {
+                verifications = logVerifier.verify();
+            }
+
+            // then
+            assertThat(verifications).isNotEmpty().allMatch(SegmentVerification::isValid);
+            assertThat(verifications.stream().mapToLong(SegmentVerification::recordCount).sum())
+                    .isEqualTo(15);
+        }
+
         @Test
         public void shouldThrowWhenReadStatusFromNonExistingLog() {
             // given
@@ -209,6 +913,8 @@ public class VersionLatestTest {
             assertThatThrownBy(() -> new LogStatus(logPath))
                     .isInstanceOf(IllegalStateException.class)
                     .hasMessageContaining("Expected to read segments, but there was nothing to read");
+            // the log is only read, nothing is created
+            assertThat(logPath).doesNotExist();
         }
 
         @Test
@@ -528,6 +1234,101 @@ public class VersionLatestTest {
             assertThat(elements).containsSubsequence("-1", "COMMAND", "DEPLOYMENT", "CREATE");
         }
 
+        @Test
+        public void shouldFilterProcessInstanceViaIndex(@TempDir final Path indexDirectory) {
+            // given
+            final var logPath = ZeebePaths.Companion.getLogPath(TEMP_DIR, "1");
+            final var processInstanceKey = zeebeContentCreator.processInstanceEvent.getProcessInstanceKey();
+            final var expectedIndexes = new ArrayList<Long>();
+            // without index file every entry is decoded
+            try (final var logContentReader = new LogContentReader(LogFactory.Companion.newJournal(logPath, true))) {
+                logContentReader.filterForProcessInstance(processInstanceKey);
+                logContentReader.forEachRemaining(record -> expectedIndexes.add(record.index()));
+            }
+
+            // when
+            final var indexes = new ArrayList<Long>();
+            final var restoredIndexes = new ArrayList<Long>();
+            try (final var logContentReader = new LogContentReader(logPath, true, false, indexDirectory)) {
+                logContentReader.filterForProcessInstance(processInstanceKey);
+                logContentReader.forEachRemaining(record -> indexes.add(record.index()));
+            }
+            try (final var logContentReader = new LogContentReader(logPath, true, false, indexDirectory)) {
+                logContentReader.filterForProcessInstance(processInstanceKey);
+                logContentReader.forEachRemaining(record -> restoredIndexes.add(record.index()));
+            }
+
+            // then
+            assertThat(indexDirectory).isDirectoryContaining("glob:**.instances");
+            assertThat(logPath.resolve(".zdb-instances")).doesNotExist();
+            assertThat(expectedIndexes).isNotEmpty();
+            assertThat(indexes).isEqualTo(expectedIndexes);
+            assertThat(restoredIndexes).isEqualTo(expectedIndexes);
+        }
+
+        @Test
+        public void shouldReadValuePropertiesFromRecordView() throws JsonProcessingException {
+            // given
+            final var logPath = ZeebePaths.Companion.getLogPath(TEMP_DIR, "1");
+            final var logContentReader = new LogContentReader(logPath);
+            logContentReader.filterForProcessInstance(zeebeContentCreator.processInstanceEvent.getProcessInstanceKey());
+
+            // when
+            assertThat(logContentReader.hasNext()).isTrue();
+            final var applicationRecord = (ApplicationRecord) logContentReader.next();
+
+            // then
+            final var views = applicationRecord.getRecordViews();
+            final var entries = applicationRecord.getEntries();
+            assertThat(views).hasSameSizeAs(entries);
+            for (int i = 0; i < views.size(); i++) {
+                final var view = views.get(i);
+                final var json = OBJECT_MAPPER.readTree(entries.get(i).toString());
+                assertThat(view.getPosition()).isEqualTo(json.get("position").asLong());
+                assertThat(view.getValueType().name()).isEqualTo(json.get("valueType").asText());
+                assertThat(view.getIntent().name()).isEqualTo(json.get("intent").asText());
+
+                final var processInstanceKey = json.at("/recordValue/processInstanceKey");
+                if (processInstanceKey.isMissingNode()) {
+                    assertThat(view.getProcessInstanceKey()).isNull();
+                } else {
+                    assertThat(view.getProcessInstanceKey()).isEqualTo(processInstanceKey.asLong());
+                }
+            }
+        }
+
+        @Test
+        public void shouldFindPropertiesOfBinaryDocuments() {
+            // given - variables are a MsgPack document embedded as binary
+            final var writer = new MsgPackWriter();
+            final var variables = new ExpandableArrayBuffer();
+            writer.wrap(variables, 0);
+            writer.writeMapHeader(1);
+            writer.writeString(BufferUtil.wrapString("foo"));
+            writer.writeInteger(42);
+            final var variablesLength = writer.getOffset();
+
+            final var value = new ExpandableArrayBuffer();
+            writer.wrap(value, 0);
+            writer.writeMapHeader(2);
+            writer.writeString(BufferUtil.wrapString("processInstanceKey"));
+            writer.writeInteger(1);
+            writer.writeString(BufferUtil.wrapString("variables"));
+            writer.writeBinary(new UnsafeBuffer(variables, 0, variablesLength));
+            final var valueLength = writer.getOffset();
+            final var valueReader = new RecordValueReader();
+
+            // when
+            final var token = valueReader.readValue(
+                    value, 0, valueLength, List.of("variables".getBytes(), "foo".getBytes()));
+
+            // then
+            assertThat(token).isNotNull();
+            assertThat(token.getIntegerValue()).isEqualTo(42);
+            assertThat(valueReader.readValue(
+                    value, 0, valueLength, List.of("variables".getBytes(), "bar".getBytes()))).isNull();
+        }
+
         @Test
         public void shouldWriteTableHeaderToStreamWhenNoDataFound() {
             // given
@@ -570,6 +1371,73 @@ public class VersionLatestTest {
                     .contains("EVENT PROCESS_INSTANCE ELEMENT_ACTIVATING 2251799813685252 START_EVENT");
         }
 
+        @Test
+        public void shouldWriteProjectedFieldsAsCsv() {
+            // given
+            final var logPath = ZeebePaths.Companion.getLogPath(TEMP_DIR, "1");
+            final var outputStream = new ByteArrayOutputStream();
+            final var projection = new RecordProjection(
+                    List.of("position", "valueType", "intent", "processInstanceKey", "bpmnElementType"));
+
+            // when
+            try (final var logContentReader = new LogContentReader(logPath)) {
+                logContentReader.filterForProcessInstance(2251799813685252L);
+                new LogWriter(outputStream, logContentReader)
+                        .writeProjected(projection, ProjectedRecordWriter.Format.CSV);
+            }
+
+            // then
+            assertThat(outputStream.toString(StandardCharsets.UTF_8))
+                    .startsWith("position,valueType,intent,processInstanceKey,bpmnElementType" + System.lineSeparator())
+                    .contains(",PROCESS_INSTANCE,ELEMENT_ACTIVATING,2251799813685252,START_EVENT" + System.lineSeparator())
+                    .doesNotContain("brokerVersion");
+        }
+
+        @Test
+        public void shouldWriteProjectedFieldsAsJson() {
+            // given
+            final var logPath = ZeebePaths.Companion.getLogPath(TEMP_DIR, "1");
+            final var outputStream = new ByteArrayOutputStream();
+            final var projection = new RecordProjection(List.of("valueType", "intent", "processInstanceKey", "unknown.path"));
+
+            // when
+            try (final var logContentReader = new LogContentReader(logPath)) {
+                logContentReader.filterForProcessInstance(2251799813685252L);
+                new LogWriter(outputStream, logContentReader)
+                        .writeProjected(projection, ProjectedRecordWriter.Format.JSON);
+            }
+
+            // then
+            assertThat(outputStream.toString(StandardCharsets.UTF_8))
+                    .startsWith("[")
+                    .contains("{\"valueType\":\"PROCESS_INSTANCE\",\"intent\":\"ELEMENT_ACTIVATING\",\"processInstanceKey\":2251799813685252,\"unknown.path\":null}")
+                    .doesNotContain("recordValue");
+        }
+
+        @Test
+        public void shouldWriteJsonLikeRecordsToString() {
+            // given
+            final var logPath = ZeebePaths.Companion.getLogPath(TEMP_DIR, "1");
+            final var expected = new StringBuilder("[").append(System.lineSeparator());
+            try (final var logContentReader = new LogContentReader(logPath)) {
+                var separator = "";
+                while (logContentReader.hasNext()) {
+                    expected.append(separator).append(logContentReader.next());
+                    separator = ",";
+                }
+            }
+            expected.append("]").append(System.lineSeparator());
+            final var outputStream = new ByteArrayOutputStream();
+
+            // when
+            try (final var logContentReader = new LogContentReader(logPath)) {
+                new LogWriter(outputStream, logContentReader).writeAsJson();
+            }
+
+            // then
+            assertThat(outputStream.toString(StandardCharsets.UTF_8)).isEqualTo(expected.toString());
+        }
+
         @Test
         public void shouldSeekAndLimitLogWithPosition() {
             // given
@@ -645,6 +1513,25 @@ public class VersionLatestTest {
             assertThat(minPosition).isEqualTo(6);
         }
 
+        @Test
+        public void shouldFilterWithValueType() {
+            // given
+            final var logPath = ZeebePaths.Companion.getLogPath(TEMP_DIR, "1");
+            final var logContentReader = new LogContentReader(logPath);
+            final var records = new ArrayList<PersistedRecord>();
+            logContentReader.filterForValueType(ValueType.DEPLOYMENT);
+
+            // when
+            logContentReader.forEachRemaining(records::add);
+
+            // then
+            assertThat(records).isNotEmpty().allMatch(ApplicationRecord.class::isInstance);
+            assertThat(records)
+                    .map(ApplicationRecord.class::cast)
+                    .allMatch(applicationRecord -> applicationRecord.getRecordViews().stream()
+                            .anyMatch(view -> view.getValueType() == ValueType.DEPLOYMENT));
+        }
+
         @Test
         public void shouldFilterWithNoExistingProcessInstanceKey() {
             // given
@@ -739,6 +1626,27 @@ public class VersionLatestTest {
             assertThat(dotFileContent).startsWith("digraph log {").endsWith("}");
         }
 
+        @Test
+        public void shouldWriteDotFileToStream() {
+            // given
+            final var logPath = ZeebePaths.Companion.getLogPath(TEMP_DIR, "1");
+            final String expected;
+            try (final var logContentReader = new LogContentReader(logPath)) {
+                expected = logContentReader.readAll().asDotFile();
+            }
+            final var outputStream = new ByteArrayOutputStream();
+
+            // when
+            try (final var logContentReader = new LogContentReader(logPath)) {
+                new LogWriter(outputStream, logContentReader).writeAsDot();
+            }
+
+            // then
+            assertThat(outputStream.toString(StandardCharsets.UTF_8))
+                    .isEqualTo(expected + System.lineSeparator())
+                    .contains("ELEMENT_ACTIVATING");
+        }
+
         @Test
         public void shouldContainNoDuplicatesInLogContent() throws JsonProcessingException {
             // given
@@ -925,6 +1833,26 @@ public class VersionLatestTest {
             assertThat(incidentMap).containsValue("{\"incidentRecord\":{\"errorType\":\"EXTRACT_VALUE_ERROR\",\"errorMessage\":\"Expected result of the expression 'foo' to be 'NUMBER', but was 'NULL'.\",\"bpmnProcessId\":\"process\",\"processDefinitionKey\":2251799813685249,\"processInstanceKey\":2251799813685252,\"elementId\":\"incidentTask\",\"elementInstanceKey\":2251799813685261,\"jobKey\":-1,\"variableScopeKey\":2251799813685261,\"tenantId\":\"<default>\"}}");
         }
 
+        @Test
+        public void shouldTranscodeValuesLikeMsgPackConverter() {
+            // given
+            final var experimental = new ZeebeDbReader(ZeebePaths.Companion.getRuntimePath(TEMP_DIR, "1"));
+            final var transcoder = new MsgPackJsonTranscoder();
+            final var jsonBuffer = new ExpandableArrayBuffer();
+            final var transcoded = new ArrayList<String>();
+            final var converted = new ArrayList<String>();
+
+            // when
+            experimental.visitDB((cf, key, value) -> {
+                final var length = transcoder.transcode(value, jsonBuffer, 0);
+                transcoded.add(jsonBuffer.getStringWithoutLengthUtf8(0, length));
+                converted.add(MsgPackConverter.convertToJson(value));
+            });
+
+            // then
+            assertThat(transcoded).isNotEmpty().isEqualTo(converted);
+        }
+
         @Test
         public void shouldListProcesses() {
             // given
@@ -0,0 +1,119 @@
+/*
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.log;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.camunda.zeebe.protocol.record.RecordType;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.zell.zdb.journal.file.SegmentInfo;
+import java.util.BitSet;
+import org.junit.jupiter.api.Test;
+
+final class FilterExpressionTest {
+
+  @Test
+  void shouldBindAndStrongerThanOr() {
+    // given -- a segment with jobs at low positions
+    final var summary = summary(ValueType.JOB, 1, 10);
+
+    // when
+    final var filter =
+        FilterExpression.Companion.compile(
+            "valueType == JOB || valueType == DEPLOYMENT && position > 1000");
+
+    // then -- parsed as JOB || (DEPLOYMENT && position > 1000)
+    assertThat(filter.mightMatch(summary)).isTrue();
+  }
+
+  @Test
+  void shouldGroupWithParentheses() {
+    // given
+    final var summary = summary(ValueType.JOB, 1, 10);
+
+    // when
+    final var filter =
+        FilterExpression.Companion.compile(
+            "(valueType == JOB || valueType == DEPLOYMENT) && position > 1000");
+
+    // then
+    assertThat(filter.mightMatch(summary)).isFalse();
+  }
+
+  @Test
+  void shouldRejectMalformedExpressions() {
+    assertThatThrownBy(() -> FilterExpression.Companion.compile(""))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("at position 0: Expected a comparison");
+    assertThatThrownBy(() -> FilterExpression.Companion.compile("(position > 10"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("Expected ')' at the end");
+    assertThatThrownBy(() -> FilterExpression.Companion.compile("position > 10)"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("at position 13: Unexpected ')'");
+    assertThatThrownBy(() -> FilterExpression.Companion.compile("position 10"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("Expected an operator, but got '10'");
+    assertThatThrownBy(() -> FilterExpression.Companion.compile("&& position > 10"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("Expected a field, but got '&&'");
+    assertThatThrownBy(() -> FilterExpression.Companion.compile("value.type == \"payment"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("at position 14: Unterminated string");
+  }
+
+  @Test
+  void shouldRejectUnknownIntents() {
+    assertThatThrownBy(() -> FilterExpression.Companion.compile("intent == NO_INTENT"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("at position 10: Unknown intent 'NO_INTENT' of any value type");
+    assertThatThrownBy(
+            () ->
+                FilterExpression.Companion.compile(
+                    "valueType == JOB && intent in (CREATED, ELEMENT_ACTIVATED)"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("Unknown intent 'ELEMENT_ACTIVATED' of JOB");
+  }
+
+  @Test
+  void shouldResolveIntentsOfAllValueTypesOutsideOfConjunction() {
+    assertThatCode(
+            () ->
+                FilterExpression.Companion.compile(
+                    "valueType == JOB || intent == ELEMENT_ACTIVATED"))
+        .doesNotThrowAnyException();
+  }
+
+  private static SegmentSummary summary(
+      final ValueType valueType, final long minPosition, final long maxPosition) {
+    final var recordTypes = new BitSet();
+    recordTypes.set(RecordType.EVENT.value());
+    final var valueTypes = new BitSet();
+    valueTypes.set(valueType.value());
+    return new SegmentSummary(
+        new SegmentInfo("zeebe-1.log", 1, 0, 0),
+        minPosition,
+        maxPosition,
+        0,
+        0,
+        recordTypes,
+        valueTypes,
+        new BitSet(),
+        BloomFilter.Companion.create(1));
+  }
+}
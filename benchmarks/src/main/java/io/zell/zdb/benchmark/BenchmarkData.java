@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.benchmark;
+
+import io.camunda.zeebe.model.bpmn.Bpmn;
+import io.camunda.zeebe.model.bpmn.BpmnModelInstance;
+import io.zeebe.containers.ZeebeContainer;
+import io.zell.zdb.TestUtils;
+import io.zell.zdb.ZeebeContentCreator;
+import io.zell.zdb.ZeebePaths;
+import java.io.File;
+import java.nio.file.Path;
+import org.testcontainers.containers.BindMode;
+import org.testcontainers.utility.DockerImageName;
+
+/**
+ * Provides the Zeebe data the benchmarks run against. Either an existing data directory is given
+ * via {@code -Dzdb.benchmark.data=<path>}, or the data is generated once with a Zeebe container and
+ * the content creator of the backend tests. Generated data is kept in {@code
+ * target/benchmark-data} and reused by all following runs and forks.
+ */
+final class BenchmarkData {
+
+  static final String DATA_PROPERTY = "zdb.benchmark.data";
+  static final String MESSAGES_PROPERTY = "zdb.benchmark.messages";
+  private static final int DEFAULT_MESSAGES = 100;
+  private static final String PARTITION = "1";
+  private static final Path GENERATED_DATA = Path.of("target", "benchmark-data");
+  private static final DockerImageName DOCKER_IMAGE =
+      DockerImageName.parse("camunda/zeebe:SNAPSHOT");
+  private static final BpmnModelInstance PROCESS =
+      Bpmn.createExecutableProcess("process")
+          .startEvent()
+          .serviceTask("task")
+          .zeebeJobType("type")
+          .endEvent()
+          .done();
+
+  private BenchmarkData() {}
+
+  static Path logPath() {
+    return ZeebePaths.Companion.getLogPath(dataDirectory(), PARTITION);
+  }
+
+  static Path runtimePath() {
+    return ZeebePaths.Companion.getRuntimePath(dataDirectory(), PARTITION);
+  }
+
+  private static synchronized File dataDirectory() {
+    final var configured = System.getProperty(DATA_PROPERTY);
+    if (configured != null) {
+      return new File(configured);
+    }
+
+    final var dataDirectory = GENERATED_DATA.toAbsolutePath().toFile();
+    if (!ZeebePaths.Companion.getLogPath(dataDirectory, PARTITION).toFile().exists()) {
+      generate(dataDirectory);
+    }
+    return dataDirectory;
+  }
+
+  private static void generate(final File dataDirectory) {
+    dataDirectory.mkdirs();
+    final var messages = Integer.getInteger(MESSAGES_PROPERTY, DEFAULT_MESSAGES);
+    try (final var zeebe =
+        new ZeebeContainer(DOCKER_IMAGE)
+            // run the container with the current user, in order to access the data afterwards
+            .withCreateContainerCmdModifier(cmd -> cmd.withUser(TestUtils.getRunAsUser()))
+            // the WAL is needed to read the state from RocksDB
+            .withEnv("ZEEBE_BROKER_EXPERIMENTAL_ROCKSDB_DISABLEWAL", "false")
+            .withFileSystemBind(
+                dataDirectory.getPath(), TestUtils.CONTAINER_PATH, BindMode.READ_WRITE)) {
+      zeebe.start();
+      new ZeebeContentCreator(PROCESS).createContent(zeebe.getExternalGatewayAddress(), messages);
+    }
+  }
+}
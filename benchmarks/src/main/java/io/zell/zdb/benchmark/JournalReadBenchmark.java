@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.benchmark;
+
+import io.zell.zdb.journal.file.SegmentedReadOnlyJournal;
+import io.zell.zdb.log.LogFactory;
+import io.zell.zdb.log.RaftLogUncommittedReader;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Iterates the complete journal, every invocation reads all records of the log once. The segments
+ * are either mapped or streamed through reusable buffers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JournalReadBenchmark {
+
+  @Param({"false", "true"})
+  public boolean streamingReads;
+
+  private SegmentedReadOnlyJournal journal;
+
+  @Setup
+  public void setup() {
+    journal = LogFactory.Companion.newJournal(BenchmarkData.logPath(), true, streamingReads);
+  }
+
+  @TearDown
+  public void tearDown() {
+    journal.close();
+  }
+
+  @Benchmark
+  public void iterateRecords(final Blackhole blackhole) {
+    try (final var reader = journal.openReader()) {
+      while (reader.hasNext()) {
+        blackhole.consume(reader.next());
+      }
+    }
+  }
+
+  @Benchmark
+  public void iterateFlyweightRecords(final Blackhole blackhole) {
+    try (final var reader = journal.openReader()) {
+      while (reader.hasNext()) {
+        blackhole.consume(reader.nextFlyweight().index());
+      }
+    }
+  }
+
+  @Benchmark
+  public void iterateRaftEntries(final Blackhole blackhole) {
+    try (final var reader = new RaftLogUncommittedReader(journal.openReader())) {
+      while (reader.hasNext()) {
+        blackhole.consume(reader.nextFlyweight().term());
+      }
+    }
+  }
+}
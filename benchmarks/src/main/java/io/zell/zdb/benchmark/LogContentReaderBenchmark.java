@@ -0,0 +1,80 @@
+/*
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.benchmark;
+
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.zell.zdb.log.LogContentReader;
+import io.zell.zdb.log.records.ApplicationRecord;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Reads the log like {@code zdb log print}, every invocation opens the log and reads it completely.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LogContentReaderBenchmark {
+
+  private Path logPath;
+
+  @Setup
+  public void setup() {
+    logPath = BenchmarkData.logPath();
+  }
+
+  @Benchmark
+  public void readRecords(final Blackhole blackhole) {
+    try (final var reader = new LogContentReader(logPath)) {
+      reader.forEachRemaining(blackhole::consume);
+    }
+  }
+
+  @Benchmark
+  public void decodeRecords(final Blackhole blackhole) {
+    try (final var reader = new LogContentReader(logPath)) {
+      reader.forEachRemaining(
+          record -> {
+            if (record instanceof ApplicationRecord applicationRecord) {
+              // materializes all records, including the conversion of their values to JSON
+              blackhole.consume(applicationRecord.getEntries());
+            }
+          });
+    }
+  }
+
+  @Benchmark
+  public void filterRecords(final Blackhole blackhole) {
+    try (final var reader = new LogContentReader(logPath)) {
+      reader.filterForValueType(ValueType.PROCESS_INSTANCE);
+      reader.forEachRemaining(blackhole::consume);
+    }
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.benchmark;
+
+import io.zell.zdb.log.LogSearch;
+import io.zell.zdb.log.LogStatus;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Searches random positions and indexes in the log. The search is kept open over all invocations,
+ * like a user searching the same log repeatedly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LogSearchBenchmark {
+
+  private LogSearch logSearch;
+  private long highestPosition;
+  private long highestIndex;
+
+  @Setup
+  public void setup() {
+    final var logPath = BenchmarkData.logPath();
+    try (final var logStatus = new LogStatus(logPath)) {
+      final var status = logStatus.status();
+      highestPosition = status.getHighestRecordPosition();
+      highestIndex = status.getHighestIndex();
+    }
+    logSearch = new LogSearch(logPath);
+  }
+
+  @TearDown
+  public void tearDown() {
+    logSearch.close();
+  }
+
+  @Benchmark
+  public Object searchPosition() {
+    return logSearch.searchPosition(ThreadLocalRandom.current().nextLong(1, highestPosition + 1));
+  }
+
+  @Benchmark
+  public Object searchIndex() {
+    return logSearch.searchIndex(ThreadLocalRandom.current().nextLong(1, highestIndex + 1));
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2021 Christopher Kujawa (zelldon91@gmail.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zell.zdb.benchmark;
+
+import io.camunda.zeebe.protocol.ZbColumnFamilies;
+import io.zell.zdb.state.ZeebeDbReader;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Visits all key-value pairs of a column family, like {@code zdb state list -cf <cf>}. */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ZeebeDbReaderBenchmark {
+
+  @Param({"VARIABLES", "JOBS", "ELEMENT_INSTANCE_KEY"})
+  public ZbColumnFamilies columnFamily;
+
+  private ZeebeDbReader reader;
+
+  @Setup
+  public void setup() {
+    reader = new ZeebeDbReader(BenchmarkData.runtimePath());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    reader.close();
+  }
+
+  @Benchmark
+  public void visitDBWithPrefix(final Blackhole blackhole) {
+    reader.visitDBWithPrefix(
+        columnFamily,
+        (key, valueJson) -> {
+          blackhole.consume(key);
+          blackhole.consume(valueJson);
+        });
+  }
+}
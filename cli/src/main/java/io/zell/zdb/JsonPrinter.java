@@ -17,6 +17,7 @@ package io.zell.zdb;
 
 import java.io.PrintStream;
 import java.util.function.Consumer;
+import org.agrona.DirectBuffer;
 
 /**
  * Utility class used by several commands to print valid json. It will surround json object, with c
@@ -27,6 +28,9 @@ public class JsonPrinter {
 
   private final PrintStream stream;
 
+  // UTF-8 encoded json elements are copied into this array to write them, it grows as needed
+  private byte[] elementBytes = new byte[0];
+
   public JsonPrinter() {
     this(System.out);
   }
@@ -51,6 +55,25 @@ public class JsonPrinter {
     moreThanOneElement = true;
   }
 
+  /**
+   * Prints an element which contains the given UTF-8 encoded json, e.g. a transcoded value, between
+   * the prefix and the suffix. The json is written as it is, without converting it to a string.
+   */
+  public void printElement(final String prefix, final DirectBuffer json, final String suffix) {
+    if (moreThanOneElement) {
+      printSeparator();
+    }
+    stream.print(prefix);
+    final int length = json.capacity();
+    if (elementBytes.length < length) {
+      elementBytes = new byte[length];
+    }
+    json.getBytes(0, elementBytes, 0, length);
+    stream.write(elementBytes, 0, length);
+    stream.print(suffix);
+    moreThanOneElement = true;
+  }
+
   private void printEnd() {
     stream.print("]}");
   }
@@ -15,12 +15,18 @@
  */
 package io.zell.zdb.journal;
 
+import io.zell.zdb.journal.file.JournalExtraction;
+import io.zell.zdb.journal.file.SegmentVerification;
+import io.zell.zdb.log.LogExtractor;
+import io.zell.zdb.log.LogFactory;
 import io.zell.zdb.log.LogStatus;
+import io.zell.zdb.log.LogVerifier;
 import java.nio.file.Path;
 import java.util.concurrent.Callable;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Model.CommandSpec;
 import picocli.CommandLine.Option;
+import picocli.CommandLine.ParameterException;
 import picocli.CommandLine.ScopeType;
 import picocli.CommandLine.Spec;
 
@@ -41,14 +47,153 @@ public class LogCommand implements Callable<Integer> {
       scope = ScopeType.INHERIT)
   private Path partitionPath;
 
+  @Option(
+      names = {"--skipChecksums"},
+      description =
+          "Skips the verification of the record checksums while reading, which makes reading faster."
+              + " Only use this for logs which are known to be intact, see the verify command.",
+      scope = ScopeType.INHERIT)
+  private boolean skipChecksums;
+
+  @Option(
+      names = {"--streamSegments"},
+      description =
+          "Streams the segments through reusable buffers instead of mapping them, with direct I/O"
+              + " if supported. Makes full scans of large logs predictable and keeps the page cache"
+              + " free for other processes, but makes searches slower.",
+      scope = ScopeType.INHERIT)
+  private boolean streamSegments;
+
+  @Option(
+      names = {"--persistIndex"},
+      description =
+          "Persists the indexes built while reading, such that later searches and filters don't"
+              + " need to read the log again. The indexes are stored in ~/.cache/zdb, never next to"
+              + " the segments.",
+      scope = ScopeType.INHERIT)
+  private boolean persistIndex;
+
+  @Option(
+      names = {"--cacheDir"},
+      paramLabel = "CACHE_DIR",
+      description = "The directory to persist the indexes in, implies --persistIndex.",
+      scope = ScopeType.INHERIT)
+  private Path cacheDir;
+
   @Command(name = "status", description = "Print's the status of the log")
-  public int status() {
+  public int status(
+      @Option(
+              names = {"--exact"},
+              description =
+                  "Reads all entries of the log, instead of only the first and last entries of the"
+                      + " log")
+          final boolean exact) {
     System.out.println();
-    final var status = new LogStatus(partitionPath).status();
-    System.out.println(status);
+    try (final var logStatus =
+        new LogStatus(partitionPath, !skipChecksums, streamSegments, indexDirectory(spec))) {
+      System.out.println(logStatus.status(exact));
+    }
+    return 0;
+  }
+
+  @Command(
+      name = "verify",
+      description =
+          "Verifies the checksums of all records in the log and prints corrupted ranges per segment")
+  public int verify() {
+    try (final var logVerifier = new LogVerifier(partitionPath, streamSegments)) {
+      boolean isValid = true;
+      for (final var segment : logVerifier.verify()) {
+        System.out.printf(
+            "%s: %d records, %s%n",
+            segment.fileName(), segment.recordCount(), segment.isValid() ? "OK" : "CORRUPTED");
+        for (final var range : segment.corruptedRanges()) {
+          final var toIndex =
+              range.toIndex() == SegmentVerification.UNKNOWN_INDEX
+                  ? "end of segment"
+                  : String.valueOf(range.toIndex());
+          System.out.printf("  indexes %d - %s: %s%n", range.fromIndex(), toIndex, range.reason());
+        }
+        isValid &= segment.isValid();
+      }
+      return isValid ? 0 : 1;
+    }
+  }
+
+  @Command(
+      name = "extract",
+      description =
+          "Extracts a range of the log into a new partition directory, which can be inspected or"
+              + " shared like the complete log. The records are copied without decoding them.")
+  public int extract(
+      @Option(
+              names = {"-t", "--target"},
+              paramLabel = "TARGET_PATH",
+              description =
+                  "The directory to write the extracted log to, should end with the partition id",
+              required = true)
+          final Path target,
+      @Option(
+              names = {"--fromIndex"},
+              description = "The first index to extract",
+              defaultValue = "0")
+          final long fromIndex,
+      @Option(
+              names = {"--toIndex"},
+              description = "The last index to extract",
+              defaultValue = Long.MAX_VALUE + "")
+          final long toIndex,
+      @Option(
+              names = {"--fromPosition"},
+              description =
+                  "The first position to extract, the complete entry which contains it is extracted")
+          final Long fromPosition,
+      @Option(
+              names = {"--toPosition"},
+              description =
+                  "The last position to extract, the complete entry which contains it is extracted")
+          final Long toPosition) {
+    if ((fromPosition != null || toPosition != null)
+        && (fromIndex != 0 || toIndex != Long.MAX_VALUE)) {
+      throw new ParameterException(
+          spec.commandLine(), "Positions and indexes can't be combined to extract the log");
+    }
+
+    try (final var logExtractor = new LogExtractor(partitionPath)) {
+      final JournalExtraction extraction;
+      if (fromPosition != null || toPosition != null) {
+        extraction =
+            logExtractor.extractPositions(
+                target,
+                fromPosition == null ? 0 : fromPosition,
+                toPosition == null ? Long.MAX_VALUE : toPosition);
+      } else {
+        extraction = logExtractor.extract(target, fromIndex, toIndex);
+      }
+      System.out.printf(
+          "Extracted indexes %d - %d (%d segments, %d bytes) into %s%n",
+          extraction.firstIndex(),
+          extraction.lastIndex(),
+          extraction.segmentCount(),
+          extraction.bytes(),
+          target);
+    }
     return 0;
   }
 
+  /**
+   * Returns the directory to persist the indexes of the log in, or null if they should only be kept
+   * in memory.
+   */
+  static Path indexDirectory(final CommandSpec spec) {
+    final Path cacheDir = spec.findOption("--cacheDir").getValue();
+    if (cacheDir != null) {
+      return cacheDir;
+    }
+    final boolean persistIndex = spec.findOption("--persistIndex").getValue();
+    return persistIndex ? LogFactory.Companion.defaultIndexDirectory() : null;
+  }
+
   @Override
   public Integer call() {
     spec.commandLine().usage(System.out);
@@ -15,13 +15,22 @@
  */
 package io.zell.zdb.journal;
 
+import io.zell.zdb.log.FilterExpression;
 import io.zell.zdb.log.LogContentReader;
 import io.zell.zdb.log.LogWriter;
+import io.zell.zdb.log.ProjectedRecordWriter;
+import io.zell.zdb.log.RecordFilter;
+import io.zell.zdb.log.RecordProjection;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
 import java.util.concurrent.Callable;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Model.CommandSpec;
 import picocli.CommandLine.Option;
+import picocli.CommandLine.ParameterException;
 import picocli.CommandLine.Spec;
 
 @Command(name = "print", description = "Print's the complete log to standard out")
@@ -31,6 +40,7 @@ public class LogPrintCommand implements Callable<Integer> {
     JSON,
     DOT,
     TABLE,
+    CSV,
   }
 
   @Spec private CommandSpec spec;
@@ -60,6 +70,21 @@ public class LogPrintCommand implements Callable<Integer> {
       defaultValue = Long.MAX_VALUE + "")
   private long toPosition;
 
+  @Option(
+      names = {"--fromTime"},
+      description =
+          "Option to skip the begin of log and only print records written at or after the given"
+              + " time, as ISO-8601 instant, e.g. 2024-05-01T10:00:00Z. Only the segments which"
+              + " overlap the time range are read.")
+  private Instant fromTime;
+
+  @Option(
+      names = {"--toTime"},
+      description =
+          "Option to print the log only until the given time (inclusive), as ISO-8601 instant,"
+              + " e.g. 2024-05-01T10:10:00Z.")
+  private Instant toTime;
+
   @Option(
       names = {"--instanceKey"},
       description =
@@ -70,48 +95,159 @@ public class LogPrintCommand implements Callable<Integer> {
       defaultValue = "0")
   private long instanceKey;
 
+  @Option(
+      names = {"--reverse"},
+      description =
+          "Print's the log backwards, the newest records first. Only the printed records are read,"
+              + " which makes it fast to look at the end of large logs, e.g. together with --limit.")
+  private boolean reverse;
+
+  @Option(
+      names = {"--limit"},
+      description = "Option to print at most the given amount of records.",
+      defaultValue = Long.MAX_VALUE + "")
+  private long limit;
+
+  @Option(
+      names = {"--tail"},
+      description =
+          "Print's only the given amount of newest records, in log order. Like with --reverse, only"
+              + " the printed records are read.",
+      defaultValue = "0")
+  private int tail;
+
+  @Option(
+      names = {"--follow"},
+      description =
+          "Keeps printing new records as they are written to the log, e.g. by a running broker,"
+              + " until the command is stopped. Can be combined with --tail to start with the"
+              + " newest records.")
+  private boolean follow;
+
+  @Option(
+      names = {"--fields"},
+      split = ",",
+      description =
+          "Print's only the given fields of each record, comma separated, e.g."
+              + " position,key,valueType,intent,processInstanceKey. Metadata fields are named like"
+              + " in the json format, every other field is read from the record value, nested"
+              + " properties are separated by dots. Supported by the json, table and csv format.")
+  private List<String> fields;
+
+  @Option(
+      names = {"--where"},
+      description =
+          "Filter to print only entries which contain a record matching the given expression,"
+              + " e.g. 'valueType == JOB && intent in (TIMED_OUT, FAILED) && value.type =="
+              + " \"payment\"'. Fields are named like in --fields, comparisons can be combined"
+              + " with &&, || and !.")
+  private String where;
+
+  private RecordFilter whereFilter;
+
   @Override
   public Integer call() {
-    final Path partitionPath = spec.findOption("-p").getValue();
-    final var logContentReader = new LogContentReader(partitionPath);
+    if (where != null) {
+      try {
+        whereFilter = FilterExpression.Companion.compile(where);
+      } catch (final IllegalArgumentException e) {
+        throw new ParameterException(spec.commandLine(), e.getMessage());
+      }
+    }
+    if (follow && (reverse || format == Format.DOT)) {
+      throw new ParameterException(
+          spec.commandLine(), "--follow can't be combined with --reverse or the dot format");
+    }
+    if (fields != null && format == Format.DOT) {
+      throw new ParameterException(
+          spec.commandLine(), "--fields can't be combined with the dot format");
+    }
+    final boolean streamSegments = spec.findOption("--streamSegments").getValue();
+    if (follow && streamSegments) {
+      throw new ParameterException(
+          spec.commandLine(), "--follow can't be combined with --streamSegments");
+    }
 
-    switch (format) {
-      case DOT -> {
-        // for backwards compatibility
-        final var logContent = logContentReader.readAll();
-        System.out.println(logContent.asDotFile());
+    final Path partitionPath = spec.findOption("-p").getValue();
+    final boolean skipChecksums = spec.findOption("--skipChecksums").getValue();
+    try (final var logContentReader =
+        new LogContentReader(
+            partitionPath, !skipChecksums, streamSegments, LogCommand.indexDirectory(spec))) {
+      switch (format) {
+        case DOT -> printDot(logContentReader);
+        case CSV -> printFields(logContentReader, ProjectedRecordWriter.Format.CSV);
+        case TABLE -> {
+          if (fields == null) {
+            printTable(logContentReader);
+          } else {
+            printFields(logContentReader, ProjectedRecordWriter.Format.TABLE);
+          }
+        }
+        default -> {
+          if (fields == null) {
+            printJson(logContentReader);
+          } else {
+            printFields(logContentReader, ProjectedRecordWriter.Format.JSON);
+          }
+        }
       }
-      case TABLE -> printTable(logContentReader);
-      default -> printJson(logContentReader);
     }
     return 0;
   }
 
   private void printTable(LogContentReader logContentReader) {
-    logContentReader.seekToPosition(fromPosition);
-    logContentReader.limitToPosition(toPosition);
-    if (instanceKey > 0) {
-      logContentReader.filterForProcessInstance(instanceKey);
-    }
+    applyOptions(logContentReader);
+
+    new LogWriter(System.out, logContentReader).writeAsTable(follow);
+  }
+
+  private void printFields(
+      final LogContentReader logContentReader, final ProjectedRecordWriter.Format outputFormat) {
+    applyOptions(logContentReader);
 
-    new LogWriter(System.out, logContentReader).writeAsTable();
+    final var fieldNames = fields != null ? fields : RecordProjection.Companion.getDEFAULT_FIELDS();
+    final var projection = new RecordProjection(fieldNames);
+    new LogWriter(new FileOutputStream(FileDescriptor.out), logContentReader)
+        .writeProjected(projection, outputFormat, follow);
+  }
+
+  private void printDot(LogContentReader logContentReader) {
+    applyOptions(logContentReader);
+
+    new LogWriter(System.out, logContentReader).writeAsDot();
   }
 
   private void printJson(LogContentReader logContentReader) {
-    System.out.println("[");
+    applyOptions(logContentReader);
+
+    // written through the channel of standard out, System.out would only add another buffer
+    new LogWriter(new FileOutputStream(FileDescriptor.out), logContentReader).writeAsJson(follow);
+  }
+
+  private void applyOptions(final LogContentReader logContentReader) {
     logContentReader.seekToPosition(fromPosition);
     logContentReader.limitToPosition(toPosition);
+    if (fromTime != null) {
+      logContentReader.seekToTimestamp(fromTime.toEpochMilli());
+    }
+    if (toTime != null) {
+      logContentReader.limitToTimestamp(toTime.toEpochMilli());
+    }
+    logContentReader.limitToCount(limit);
+    if (reverse) {
+      logContentReader.reverse();
+    }
+    if (tail > 0) {
+      logContentReader.tail(tail);
+    }
+    if (follow) {
+      logContentReader.follow();
+    }
     if (instanceKey > 0) {
       logContentReader.filterForProcessInstance(instanceKey);
     }
-
-    var separator = "";
-    while (logContentReader.hasNext()) {
-      final var record = logContentReader.next();
-
-      System.out.print(separator + record);
-      separator = ",";
+    if (whereFilter != null) {
+      logContentReader.filter(whereFilter);
     }
-    System.out.println("]");
   }
 }
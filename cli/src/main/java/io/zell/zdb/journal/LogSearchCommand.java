@@ -35,16 +35,20 @@ public class LogSearchCommand implements Callable<Integer> {
   @Override
   public Integer call() {
     final Path logPath = spec.findOption("-p").getValue();
+    final boolean skipChecksums = spec.findOption("--skipChecksums").getValue();
 
-    final String result;
-    if (exclusive.index == 0) {
-      final var record = new LogSearch(logPath).searchPosition(exclusive.position);
-      result = record == null ? "{}" : record.toString();
-    } else {
-      final var logContent = new LogSearch(logPath).searchIndex(exclusive.index);
-      result = logContent == null ? "{}" : logContent.toString();
+    try (final var logSearch =
+        new LogSearch(logPath, !skipChecksums, LogCommand.indexDirectory(spec))) {
+      final String result;
+      if (exclusive.index == 0) {
+        final var record = logSearch.searchPosition(exclusive.position);
+        result = record == null ? "{}" : record.toString();
+      } else {
+        final var logContent = logSearch.searchIndex(exclusive.index);
+        result = logContent == null ? "{}" : logContent.toString();
+      }
+      System.out.println(result);
     }
-    System.out.println(result);
     return 0;
   }
 
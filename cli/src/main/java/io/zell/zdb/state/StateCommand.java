@@ -17,6 +17,11 @@ package io.zell.zdb.state;
 
 import io.camunda.zeebe.protocol.ZbColumnFamilies;
 import io.zell.zdb.JsonPrinter;
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.util.concurrent.Callable;
 import picocli.CommandLine;
@@ -29,7 +34,9 @@ import picocli.CommandLine.Option;
     description = "Prints general information of the internal state")
 public class StateCommand implements Callable<Integer> {
 
-  public static final String ENTRY_FORMAT = "\n{\"cf\":\"%s\",\"key\":\"%s\",\"value\":%s}";
+  private static final String ENTRY_PREFIX_FORMAT = "\n{\"cf\":\"%s\",\"key\":\"%s\",\"value\":";
+  private static final String ENTRY_SUFFIX = "}";
+  private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
 
   @Option(
       names = {"-p", "--path"},
@@ -61,35 +68,44 @@ public class StateCommand implements Callable<Integer> {
           final String keyFormat) {
     final var keyFormatters = chooseKeyFormatters(keyFormat);
 
-    new JsonPrinter()
-        .surround(
-            (printer) -> {
-              final var zeebeDbReader = new ZeebeDbReader(this.partitionPath);
-              // we print incrementally in order to avoid to build up big state in the application
-              if (noColumnFamilyGiven(columnFamilyName)) {
-                zeebeDbReader.visitDBWithJsonValues(
-                    ((cfName, key, valueJson) -> {
-                      final var cf = ZbColumnFamilies.valueOf(cfName);
-                      printer.accept(
-                          String.format(
-                              ENTRY_FORMAT,
-                              cf,
-                              keyFormatters.forColumnFamily(cf).formatKey(key),
-                              valueJson));
-                    }));
-              } else {
-                final var cf = ZbColumnFamilies.valueOf(columnFamilyName.toUpperCase());
-                zeebeDbReader.visitDBWithPrefix(
-                    cf,
-                    ((key, valueJson) ->
-                        printer.accept(
-                            String.format(
-                                ENTRY_FORMAT,
-                                cf,
-                                keyFormatters.forColumnFamily(cf).formatKey(key),
-                                valueJson))));
-              }
-            });
+    // the transcoded values are written as they are, without creating a string per value
+    final var out =
+        new PrintStream(
+            new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), OUTPUT_BUFFER_SIZE),
+            false,
+            StandardCharsets.UTF_8);
+    final var jsonPrinter = new JsonPrinter(out);
+    jsonPrinter.surround(
+        (ignored) -> {
+          final var zeebeDbReader = new ZeebeDbReader(this.partitionPath);
+          // we print incrementally in order to avoid to build up big state in the application
+          if (noColumnFamilyGiven(columnFamilyName)) {
+            zeebeDbReader.visitDBWithJsonBuffers(
+                ((cfName, key, valueJson) -> {
+                  final var cf = ZbColumnFamilies.valueOf(cfName);
+                  jsonPrinter.printElement(
+                      String.format(
+                          ENTRY_PREFIX_FORMAT,
+                          cf,
+                          keyFormatters.forColumnFamily(cf).formatKey(key)),
+                      valueJson,
+                      ENTRY_SUFFIX);
+                }));
+          } else {
+            final var cf = ZbColumnFamilies.valueOf(columnFamilyName.toUpperCase());
+            zeebeDbReader.visitDBWithPrefixAndJsonBuffers(
+                cf,
+                ((key, valueJson) ->
+                    jsonPrinter.printElement(
+                        String.format(
+                            ENTRY_PREFIX_FORMAT,
+                            cf,
+                            keyFormatters.forColumnFamily(cf).formatKey(key)),
+                        valueJson,
+                        ENTRY_SUFFIX)));
+          }
+        });
+    out.flush();
     return 0;
   }
 
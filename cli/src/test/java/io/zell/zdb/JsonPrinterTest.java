@@ -17,6 +17,8 @@ package io.zell.zdb;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import org.agrona.concurrent.UnsafeBuffer;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -73,4 +75,21 @@ public class JsonPrinterTest {
     Assertions.assertThat(out.toString())
         .isEqualTo("{\"data\":[{\"foo\":1},{\"foo\":1},{\"foo\":1}]}");
   }
+
+  @Test
+  public void shouldPrintElementsWithJsonBuffers() {
+    // given
+    final var json = new UnsafeBuffer("{\"foo\":\"ä\"}".getBytes(StandardCharsets.UTF_8));
+
+    // when
+    jsonPrinter.surround(
+        (printer) -> {
+          printer.accept("{\"foo\":1}");
+          jsonPrinter.printElement("{\"value\":", json, "}");
+        });
+
+    // then
+    Assertions.assertThat(out.toString(StandardCharsets.UTF_8))
+        .isEqualTo("{\"data\":[{\"foo\":1},{\"value\":{\"foo\":\"ä\"}}]}");
+  }
 }
@@ -16,10 +16,12 @@
 package io.zell.zdb.frontend;
 
 import io.zell.zdb.log.LogContentReader;
+import io.zell.zdb.log.LogFactory;
 import io.zell.zdb.log.records.ApplicationRecord;
 import io.zell.zdb.log.records.PersistedRecord;
 import java.io.File;
 import java.net.URL;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.ResourceBundle;
 import java.util.function.Consumer;
@@ -44,6 +46,8 @@ public class LogViewController implements Initializable {
   @FXML private TextField fromPosition;
   @FXML private TextField toPosition;
   private final DirectoryChooser directoryChooser = new DirectoryChooser();
+  // the journal and process instance indexes are cached, such that searching again is fast
+  private final Path indexDirectory = LogFactory.Companion.defaultIndexDirectory();
   private ObservableList<ZeebeRecord> dataObservableList;
 
   @Override
@@ -108,13 +112,16 @@ public class LogViewController implements Initializable {
     if (this.dataPath.getText() == null || this.dataPath.getText().isBlank()) {
       return;
     }
-    final var logContentReader = new LogContentReader(new File(this.dataPath.getText()).toPath());
-
-    consumeValueFromTextField(this.instanceKey, logContentReader::filterForProcessInstance);
-    consumeValueFromTextField(this.fromPosition, logContentReader::seekToPosition);
-    consumeValueFromTextField(this.toPosition, logContentReader::limitToPosition);
-
-    fillTableWithData(logContentReader);
+    // closed after the table is filled, such that the segments are unmapped again
+    try (final var logContentReader =
+        new LogContentReader(
+            new File(this.dataPath.getText()).toPath(), true, false, this.indexDirectory)) {
+      consumeValueFromTextField(this.instanceKey, logContentReader::filterForProcessInstance);
+      consumeValueFromTextField(this.fromPosition, logContentReader::seekToPosition);
+      consumeValueFromTextField(this.toPosition, logContentReader::limitToPosition);
+
+      fillTableWithData(logContentReader);
+    }
   }
 
   private void consumeValueFromTextField(final TextField textField, final Consumer<Long> consumer) {